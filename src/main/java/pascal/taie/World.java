@@ -181,10 +181,18 @@ public final class World extends AbstractResultHolder
         }
     }
 
+    /**
+     * Writes the IR builder after the other fields. If the stream stores
+     * the IRs in an IR cache file, the builder which loads IRs from that
+     * file is written. Otherwise, the IRs of all methods are collected in
+     * a {@link CachedIRBuilder} and written together with the world.
+     */
     @Serial
     private void writeObject(ObjectOutputStream s) throws IOException {
         s.defaultWriteObject();
-        s.writeObject(new CachedIRBuilder(irBuilder, classHierarchy));
+        s.writeObject(s instanceof CachedIRBuilder.IRCacheStream irCacheStream ?
+                irCacheStream.getIRBuilder() :
+                new CachedIRBuilder(irBuilder, classHierarchy));
     }
 
     @Serial
@@ -22,9 +22,12 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.dataflow.solver.SolverStats;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.config.AnalysisConfig;
@@ -32,20 +35,41 @@ import pascal.taie.ir.IR;
 
 /**
  * Driver for performing a specific kind of data-flow analysis for a method.
+ * <p>
+ * The solver is selected by option "solver" (worklist, rpo, or round-robin).
+ * If option "solver-stats" is true, the driver logs the number of node
+ * visits and the time of solving each method.
  */
 public abstract class AnalysisDriver<Node, Fact>
         extends MethodAnalysis<DataflowResult<Node, Fact>> {
 
+    private static final Logger logger = LogManager.getLogger(AnalysisDriver.class);
+
+    private final Solver<Node, Fact> solver;
+
+    private final boolean logStats;
+
     protected AnalysisDriver(AnalysisConfig config) {
         super(config);
+        solver = getOptions().has("solver") ?
+                Solver.getSolver(getOptions().getString("solver")) :
+                Solver.getSolver();
+        logStats = getOptions().has("solver-stats") &&
+                getOptions().getBoolean("solver-stats");
     }
 
     @Override
     public DataflowResult<Node, Fact> analyze(IR ir) {
         CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
         DataflowAnalysis<Node, Fact> analysis = makeAnalysis(cfg);
-        Solver<Node, Fact> solver = Solver.getSolver();
-        return solver.solve(analysis);
+        if (logStats) {
+            SolverStats stats = new SolverStats();
+            DataflowResult<Node, Fact> result = solver.solve(analysis, stats);
+            logger.info("[{}] {}: {}", getId(), ir.getMethod(), stats);
+            return result;
+        } else {
+            return solver.solve(analysis);
+        }
     }
 
     /**
@@ -0,0 +1,168 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.dataflow.fact.BitVectorFact;
+import pascal.taie.analysis.dataflow.fact.BitVectorFact.Mask;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGEdge;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+
+/**
+ * Template for gen/kill data-flow analyses, whose meet operator is union,
+ * and the transfer function of each node is {@code out = gen ∪ (in - kill)}
+ * for forward analyses (or {@code in = gen ∪ (out - kill)} for backward
+ * analyses), where GEN and KILL sets of the node do not depend on the facts.
+ * <p>
+ * The facts of such analyses are {@link BitVectorFact}s. The GEN and KILL
+ * sets of every node are computed once as bit masks, thus the transfer
+ * functions are applied on words in place without allocation.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <E>    type of elements in the facts
+ */
+public abstract class GenKillAnalysis<Node, E>
+        extends AbstractDataflowAnalysis<Node, SetFact<E>> {
+
+    private final Indexer<E> indexer;
+
+    private final int capacity;
+
+    /**
+     * GEN masks of the nodes, indexed by {@link CFG#getIndex(Object)}.
+     */
+    private Mask[] gens;
+
+    /**
+     * KILL masks of the nodes, indexed by {@link CFG#getIndex(Object)}.
+     */
+    private Mask[] kills;
+
+    /**
+     * @param indexer  indexer for the elements in the facts
+     * @param capacity upper bound (exclusive) of the indexes of the elements
+     */
+    protected GenKillAnalysis(CFG<Node> cfg, Indexer<E> indexer, int capacity) {
+        super(cfg);
+        this.indexer = indexer;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Adds the GEN and KILL sets of {@code node} to {@code gen}
+     * and {@code kill} respectively.
+     */
+    protected abstract void computeGenKill(
+            Node node, SetFact<E> gen, SetFact<E> kill);
+
+    @Override
+    public SetFact<E> newBoundaryFact() {
+        return newInitialFact();
+    }
+
+    @Override
+    public BitVectorFact<E> newInitialFact() {
+        return new BitVectorFact<>(indexer, capacity);
+    }
+
+    @Override
+    public void meetInto(SetFact<E> fact, SetFact<E> target) {
+        target.union(fact);
+    }
+
+    @Override
+    public boolean transferNode(Node node, SetFact<E> in, SetFact<E> out) {
+        SetFact<E> source = isForward() ? in : out;
+        SetFact<E> target = isForward() ? out : in;
+        if (source instanceof BitVectorFact<E> bvSource &&
+                target instanceof BitVectorFact<E> bvTarget) {
+            return transferNode(cfg.getIndex(node), bvSource, bvTarget);
+        }
+        // the facts given by subclasses may be of other kinds,
+        // then the GEN and KILL sets are computed on demand
+        SetFact<E> gen = new SetFact<>();
+        SetFact<E> kill = new SetFact<>();
+        computeGenKill(node, gen, kill);
+        SetFact<E> result = source.copy();
+        result.removeAll(kill);
+        result.union(gen);
+        if (!result.equals(target)) {
+            target.set(result);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Applies the transfer function of the node at {@code nodeIndex}
+     * along the direction of this analysis.
+     *
+     * @param source the fact flowing into the node, i.e., in fact for
+     *               forward analyses, and out fact for backward analyses
+     * @param target the fact flowing out of the node
+     * @return true if {@code target} changed as a result of the call.
+     */
+    public boolean transferNode(int nodeIndex,
+                                BitVectorFact<E> source, BitVectorFact<E> target) {
+        if (gens == null) {
+            computeMasks();
+        }
+        return target.transfer(source, gens[nodeIndex], kills[nodeIndex]);
+    }
+
+    /**
+     * Computes GEN and KILL masks for all nodes. Equal masks are shared,
+     * e.g., the KILL masks of the definitions of the same variable.
+     */
+    private void computeMasks() {
+        int n = cfg.getNumberOfNodes();
+        Mask[] gens = new Mask[n];
+        Mask[] kills = new Mask[n];
+        Map<Mask, Mask> masks = Maps.newMap();
+        BitVectorFact<E> gen = newInitialFact();
+        BitVectorFact<E> kill = newInitialFact();
+        for (Node node : cfg) {
+            gen.clear();
+            kill.clear();
+            computeGenKill(node, gen, kill);
+            int i = cfg.getIndex(node);
+            gens[i] = masks.computeIfAbsent(gen.toMask(), m -> m);
+            kills[i] = masks.computeIfAbsent(kill.toMask(), m -> m);
+        }
+        this.kills = kills;
+        this.gens = gens;
+    }
+
+    /**
+     * Gen/kill analyses do not have edge transfer.
+     */
+    @Override
+    public final boolean needTransferEdge(CFGEdge<Node> edge) {
+        return false;
+    }
+}
@@ -22,6 +22,7 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.dataflow.fact.BitVectorFact;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.config.AnalysisConfig;
@@ -29,7 +30,6 @@ import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Copy;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.util.Indexer;
-import pascal.taie.util.collection.IndexerBitSet;
 
 /**
  * Implementation of live variable analysis.
@@ -43,26 +43,58 @@ public class LiveVariable extends AnalysisDriver<Stmt, SetFact<Var>> {
     }
 
     @Override
-    protected Analysis makeAnalysis(CFG<Stmt> cfg) {
-        return new Analysis(cfg, getOptions().getBoolean("strongly"));
+    protected DataflowAnalysis<Stmt, SetFact<Var>> makeAnalysis(CFG<Stmt> cfg) {
+        return getOptions().getBoolean("strongly")
+                ? new StronglyAnalysis(cfg)
+                : new Analysis(cfg);
     }
 
-    private static class Analysis extends AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
+    private static class Analysis extends GenKillAnalysis<Stmt, Var> {
 
-        /**
-         * Whether enable strongly live variable analysis.
-         */
-        private final boolean strongly;
+        private Analysis(CFG<Stmt> cfg) {
+            super(cfg, cfg.getIR().getVarIndexer(), cfg.getIR().getVars().size());
+        }
+
+        @Override
+        public boolean isForward() {
+            return false;
+        }
+
+        @Override
+        protected void computeGenKill(Stmt stmt, SetFact<Var> gen, SetFact<Var> kill) {
+            // kill definition in stmt
+            stmt.getDef().ifPresent(def -> {
+                if (def instanceof Var) {
+                    kill.add((Var) def);
+                }
+            });
+            // generate uses in stmt
+            stmt.getUses().forEach(use -> {
+                if (use instanceof Var) {
+                    gen.add((Var) use);
+                }
+            });
+        }
+    }
+
+    /**
+     * Strongly live variable analysis, which is not a gen/kill analysis
+     * as the liveness of the used variable of a Copy statement depends on
+     * the out fact.
+     */
+    private static class StronglyAnalysis extends AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
 
         /**
          * Indexer for variables in the IR.
          */
         private final Indexer<Var> varIndexer;
 
-        private Analysis(CFG<Stmt> cfg, boolean strongly) {
+        private final int varCount;
+
+        private StronglyAnalysis(CFG<Stmt> cfg) {
             super(cfg);
-            this.strongly = strongly;
             this.varIndexer = cfg.getIR().getVarIndexer();
+            this.varCount = cfg.getIR().getVars().size();
         }
 
         @Override
@@ -77,7 +109,7 @@ public class LiveVariable extends AnalysisDriver<Stmt, SetFact<Var>> {
 
         @Override
         public SetFact<Var> newInitialFact() {
-            return new SetFact<>(new IndexerBitSet<>(varIndexer, false));
+            return new BitVectorFact<>(varIndexer, varCount);
         }
 
         @Override
@@ -95,28 +127,18 @@ public class LiveVariable extends AnalysisDriver<Stmt, SetFact<Var>> {
                     in.remove((Var) def);
                 }
             });
-            // generate uses in stmt
-            if (strongly) {
-                // only add strongly live variables
-                if (stmt instanceof Copy copy) {
-                    // for a Copy statement, say x = y, we consider y as
-                    // strongly live only when x is also strongly live
-                    Var lVar = copy.getLValue();
-                    Var rVar = copy.getRValue();
-                    if (out.contains(lVar)) {
-                        in.add(rVar);
-                    }
-                } else {
-                    // for non-Copy statements, all used variables
-                    // are considered strongly live
-                    stmt.getUses().forEach(use -> {
-                        if (use instanceof Var) {
-                            in.add((Var) use);
-                        }
-                    });
+            // only add strongly live variables
+            if (stmt instanceof Copy copy) {
+                // for a Copy statement, say x = y, we consider y as
+                // strongly live only when x is also strongly live
+                Var lVar = copy.getLValue();
+                Var rVar = copy.getRValue();
+                if (out.contains(lVar)) {
+                    in.add(rVar);
                 }
             } else {
-                // add all used variables
+                // for non-Copy statements, all used variables
+                // are considered strongly live
                 stmt.getUses().forEach(use -> {
                     if (use instanceof Var) {
                         in.add((Var) use);
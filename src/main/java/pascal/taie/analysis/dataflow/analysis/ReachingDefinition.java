@@ -29,9 +29,7 @@ import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
-import pascal.taie.util.Indexer;
 import pascal.taie.util.collection.IndexMap;
-import pascal.taie.util.collection.IndexerBitSet;
 
 import java.util.Map;
 
@@ -48,24 +46,16 @@ public class ReachingDefinition extends AnalysisDriver<Stmt, SetFact<Stmt>> {
         return new Analysis(cfg);
     }
 
-    private static class Analysis extends AbstractDataflowAnalysis<Stmt, SetFact<Stmt>> {
-
-        /**
-         * Indexer for stmts (nodes) in the CFG.
-         */
-        private final Indexer<Stmt> stmtIndexer;
+    private static class Analysis extends GenKillAnalysis<Stmt, Stmt> {
 
         /**
          * Maps a variable to all statements that define it.
-         * This information can accelerate kill operation of live variable analysis.
+         * This information is used to compute the kill sets.
          */
         private final Map<Var, SetFact<Stmt>> defs;
 
-        private static final SetFact<Stmt> EMPTY_DEFS = new SetFact<>();
-
         private Analysis(CFG<Stmt> cfg) {
-            super(cfg);
-            stmtIndexer = new CFGNodeIndexer<>(cfg);
+            super(cfg, new CFGNodeIndexer<>(cfg), cfg.getNumberOfNodes());
             defs = computeDefs(cfg.getIR());
         }
 
@@ -92,33 +82,15 @@ public class ReachingDefinition extends AnalysisDriver<Stmt, SetFact<Stmt>> {
         }
 
         @Override
-        public SetFact<Stmt> newBoundaryFact() {
-            return newInitialFact();
-        }
-
-        @Override
-        public SetFact<Stmt> newInitialFact() {
-            return new SetFact<>(new IndexerBitSet<>(stmtIndexer, false));
-        }
-
-        @Override
-        public void meetInto(SetFact<Stmt> fact, SetFact<Stmt> target) {
-            target.union(fact);
-        }
-
-        @Override
-        public boolean transferNode(Stmt stmt, SetFact<Stmt> in, SetFact<Stmt> out) {
-            SetFact<Stmt> oldOut = out.copy();
-            out.set(in);
+        protected void computeGenKill(Stmt stmt, SetFact<Stmt> gen, SetFact<Stmt> kill) {
             stmt.getDef().ifPresent(def -> {
                 if (def instanceof Var defVar) {
                     // kill previous definitions of defVar
-                    out.removeAll(defs.getOrDefault(defVar, EMPTY_DEFS));
+                    kill.union(defs.get(defVar));
                     // generate definition of defVar
-                    out.add(stmt);
+                    gen.add(stmt);
                 }
             });
-            return !out.equals(oldOut);
         }
     }
 }
@@ -22,9 +22,13 @@
 
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
 import pascal.taie.analysis.dataflow.analysis.AnalysisDriver;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.CFGEdge;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
@@ -44,8 +48,33 @@ public class ConstantPropagation extends AnalysisDriver<Stmt, CPFact> {
 
     public static final String ID = "const-prop";
 
+    private static final Logger logger = LogManager.getLogger(ConstantPropagation.class);
+
+    private final boolean sparse;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        boolean edgeRefine = getOptions().getBoolean("edge-refine");
+        if (getOptions().getBoolean("sparse") && edgeRefine) {
+            logger.warn("Option sparse of {} is ignored as edge-refine is enabled", ID);
+        }
+        sparse = getOptions().getBoolean("sparse") && !edgeRefine;
+    }
+
+    /**
+     * If the option {@code sparse} is enabled (and {@code edge-refine}
+     * is disabled, as {@link SparseCPSolver} does not support edge
+     * refinement), this method propagates values along use-def chains
+     * for the methods which {@link SparseCPSolver} gives the same
+     * result as dense solver.
+     */
+    @Override
+    public DataflowResult<Stmt, CPFact> analyze(IR ir) {
+        if (sparse && SparseCPSolver.isApplicable(ir)) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            return new SparseCPSolver(new Analysis(cfg, false)).solve();
+        }
+        return super.analyze(ir);
     }
 
     @Override
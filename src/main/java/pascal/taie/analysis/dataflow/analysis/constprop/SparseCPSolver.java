@@ -0,0 +1,642 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGNodeIndexer;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.Exps;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.IndexMap;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Sparse solver for constant propagation, which propagates the value
+ * of each definition along use-def chains, instead of propagating
+ * whole {@link CPFact}s along the CFG.
+ * <p>
+ * The use-def chains are built as in the construction of SSA form,
+ * without computing reaching definitions: phi nodes are placed at the
+ * iterated dominance frontiers of the definitions of each int variable,
+ * and each use is linked to its nearest dominating definition (or phi
+ * node) by a walk of the dominator tree. The value of a phi node is the
+ * meet of the values of its operands. The IR itself is not changed.
+ * <p>
+ * The nodes that are not reachable from the entry are treated as if
+ * they were reachable from a virtual root, which also dominates the entry
+ * and holds UNDEF for all variables, so that the values meet at the same
+ * nodes as in dense solver. The in/out facts of a statement are built from
+ * the out fact of its immediate dominator and the phi nodes at the
+ * statement when they are queried.
+ * <p>
+ * This solver only handles the methods whose evaluation is monotone,
+ * see {@link #isApplicable(IR)}. Then the values only go down from UNDEF
+ * in both solvers, and they reach the same (greatest) fixed point
+ * regardless of the order of evaluation.
+ */
+class SparseCPSolver {
+
+    private final ConstantPropagation.Analysis analysis;
+
+    private final CFG<Stmt> cfg;
+
+    private final IR ir;
+
+    /**
+     * CFG nodes in reverse postorder. The number of {@code nodes[i]}
+     * is {@code i + 1}, and 0 is the number of the virtual root.
+     */
+    private final List<Stmt> nodes;
+
+    /**
+     * Maps the index of each CFG node to its number.
+     */
+    private final int[] numbers;
+
+    /**
+     * Numbers of the predecessors of each node.
+     */
+    private int[][] preds;
+
+    /**
+     * Number of the immediate dominator of each node.
+     */
+    private int[] idoms;
+
+    /**
+     * Definition of the int variable at each node, if any.
+     */
+    private StmtDef[] defs;
+
+    /**
+     * Phi nodes at each node, or {@code null} if there is none.
+     */
+    private List<List<Phi>> phis;
+
+    SparseCPSolver(ConstantPropagation.Analysis analysis) {
+        this.analysis = analysis;
+        this.cfg = analysis.getCFG();
+        this.ir = cfg.getIR();
+        this.nodes = cfg.getReversePostOrder(false);
+        this.numbers = new int[cfg.getNumberOfNodes()];
+        for (int i = 0; i < nodes.size(); ++i) {
+            numbers[cfg.getIndex(nodes.get(i))] = i + 1;
+        }
+    }
+
+    /**
+     * Evaluation of {@code *}, {@code /} and {@code %} is not monotone,
+     * e.g., NAC * UNDEF = NAC while NAC * 0 = 0, and NAC / 0 = UNDEF.
+     * For such methods, the fixed point depends on the order of evaluation
+     * (and dense solver keeps the value which goes back to UNDEF in the
+     * out facts of following nodes), so they are left to dense solver.
+     *
+     * @return true if this solver gives the same result as dense solver
+     * for {@code ir}, i.e., no int variable is defined by
+     * {@code *}, {@code /} or {@code %}.
+     */
+    static boolean isApplicable(IR ir) {
+        for (Stmt stmt : ir) {
+            if (getIntLValue(stmt) != null &&
+                    ((DefinitionStmt<?, ?>) stmt).getRValue() instanceof ArithmeticExp exp &&
+                    exp.getOperator() != ArithmeticExp.Op.ADD &&
+                    exp.getOperator() != ArithmeticExp.Op.SUB) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    DataflowResult<Stmt, CPFact> solve() {
+        computeDominators();
+        placePhis(computeDominanceFrontiers());
+        List<Def> all = rename();
+        // evaluates the pending definition which comes first in the order
+        // of node indexes, so that most definitions are evaluated after
+        // the definitions they use
+        BitSet workList = new BitSet(all.size());
+        workList.set(0, all.size());
+        int first = workList.nextSetBit(0);
+        while (first >= 0) {
+            Def def = all.get(first);
+            workList.clear(first);
+            Value value = def.evaluate();
+            if (!value.equals(def.value)) {
+                def.value = value;
+                for (Def user : def.users) {
+                    workList.set(user.order);
+                    first = Math.min(first, user.order);
+                }
+            }
+            first = workList.nextSetBit(first);
+        }
+        return new Result();
+    }
+
+    /**
+     * Computes immediate dominators by the iterative algorithm of
+     * Cooper, Harvey and Kennedy over the reverse postorder.
+     * In the reverse postorder given by CFG, the nodes which have no
+     * predecessor with smaller number are the roots of depth-first
+     * trees, and they become the successors of the virtual root.
+     */
+    private void computeDominators() {
+        int n = nodes.size();
+        preds = new int[n + 1][];
+        preds[0] = new int[0];
+        for (int b = 1; b <= n; ++b) {
+            Stmt node = nodes.get(b - 1);
+            int[] ps = new int[cfg.getInDegreeOf(node) + 1];
+            int size = 0;
+            boolean isRoot = true;
+            for (Stmt pred : cfg.getPredsOf(node)) {
+                int p = numberOf(pred);
+                ps[size++] = p;
+                isRoot &= p >= b;
+            }
+            if (isRoot) {
+                ps[size++] = 0;
+            }
+            preds[b] = Arrays.copyOf(ps, size);
+        }
+        idoms = new int[n + 1];
+        Arrays.fill(idoms, -1);
+        idoms[0] = 0;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int b = 1; b <= n; ++b) {
+                int idom = -1;
+                for (int p : preds[b]) {
+                    if (idoms[p] != -1) {
+                        idom = idom == -1 ? p : intersect(p, idom);
+                    }
+                }
+                if (idoms[b] != idom) {
+                    idoms[b] = idom;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private int intersect(int b1, int b2) {
+        while (b1 != b2) {
+            while (b1 > b2) {
+                b1 = idoms[b1];
+            }
+            while (b2 > b1) {
+                b2 = idoms[b2];
+            }
+        }
+        return b1;
+    }
+
+    /**
+     * @return the dominance frontier of each node.
+     */
+    private int[][] computeDominanceFrontiers() {
+        int n = nodes.size();
+        int[][] frontiers = new int[n + 1][];
+        int[] sizes = new int[n + 1];
+        for (int b = 1; b <= n; ++b) {
+            if (preds[b].length < 2) {
+                continue;
+            }
+            for (int p : preds[b]) {
+                for (int runner = p; runner != idoms[b]; runner = idoms[runner]) {
+                    int[] frontier = frontiers[runner];
+                    int size = sizes[runner];
+                    // b is added to frontiers in order, so checking
+                    // the last element is enough to avoid duplicates
+                    if (size > 0 && frontier[size - 1] == b) {
+                        continue;
+                    }
+                    if (frontier == null) {
+                        frontier = frontiers[runner] = new int[2];
+                    } else if (size == frontier.length) {
+                        frontier = frontiers[runner] =
+                                Arrays.copyOf(frontier, size * 2);
+                    }
+                    frontier[size] = b;
+                    sizes[runner] = size + 1;
+                }
+            }
+        }
+        for (int b = 0; b <= n; ++b) {
+            frontiers[b] = frontiers[b] == null ? new int[0] :
+                    Arrays.copyOf(frontiers[b], sizes[b]);
+        }
+        return frontiers;
+    }
+
+    /**
+     * Creates the definitions of int variables, and places the phi nodes
+     * of each variable at the iterated dominance frontier of the nodes
+     * which define it. The entry defines the int parameters.
+     */
+    private void placePhis(int[][] frontiers) {
+        int n = nodes.size();
+        int nVars = ir.getVars().size();
+        defs = new StmtDef[n + 1];
+        int[] counts = new int[nVars];
+        for (int b = 1; b <= n; ++b) {
+            Stmt node = nodes.get(b - 1);
+            Var lhs = getIntLValue(node);
+            if (lhs != null) {
+                defs[b] = new StmtDef((DefinitionStmt<?, ?>) node, lhs);
+                ++counts[lhs.getIndex()];
+            }
+        }
+        for (Var param : ir.getParams()) {
+            if (isTracked(param)) {
+                ++counts[param.getIndex()];
+            }
+        }
+        // group the nodes which define each variable
+        int[][] defSites = new int[nVars][];
+        for (int v = 0; v < nVars; ++v) {
+            defSites[v] = new int[counts[v]];
+        }
+        Arrays.fill(counts, 0);
+        for (Var param : ir.getParams()) {
+            if (isTracked(param)) {
+                int v = param.getIndex();
+                defSites[v][counts[v]++] = numberOf(cfg.getEntry());
+            }
+        }
+        for (int b = 1; b <= n; ++b) {
+            if (defs[b] != null) {
+                int v = defs[b].var.getIndex();
+                defSites[v][counts[v]++] = b;
+            }
+        }
+        phis = new ArrayList<>(Collections.nCopies(n + 1, null));
+        int[] hasPhi = new int[n + 1];
+        int[] inWorkList = new int[n + 1];
+        Arrays.fill(hasPhi, -1);
+        Arrays.fill(inWorkList, -1);
+        Deque<Integer> workList = new ArrayDeque<>();
+        for (int v = 0; v < nVars; ++v) {
+            for (int b : defSites[v]) {
+                inWorkList[b] = v;
+                workList.push(b);
+            }
+            while (!workList.isEmpty()) {
+                int b = workList.pop();
+                for (int f : frontiers[b]) {
+                    if (hasPhi[f] != v) {
+                        hasPhi[f] = v;
+                        if (phis.get(f) == null) {
+                            phis.set(f, new ArrayList<>(2));
+                        }
+                        phis.get(f).add(new Phi(ir.getVar(v)));
+                        if (inWorkList[f] != v) {
+                            inWorkList[f] = v;
+                            workList.push(f);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Links each use of int variables to its nearest dominating
+     * definition, and the operands of each phi node to the definitions
+     * which reach the corresponding predecessors, by walking the
+     * dominator tree from the virtual root.
+     *
+     * @return the definitions and phi nodes in the order of node indexes.
+     */
+    private List<Def> rename() {
+        int n = nodes.size();
+        // children of each node in the dominator tree
+        int[] firstChild = new int[n + 1];
+        int[] nextSibling = new int[n + 1];
+        Arrays.fill(firstChild, -1);
+        for (int b = n; b >= 1; --b) {
+            nextSibling[b] = firstChild[idoms[b]];
+            firstChild[idoms[b]] = b;
+        }
+        Def[] current = new Def[ir.getVars().size()];
+        Arrays.fill(current, Def.UNDEF);
+        // the values replaced by each node, which are restored
+        // when the walk leaves the node
+        Deque<Var> savedVars = new ArrayDeque<>();
+        Deque<Def> savedDefs = new ArrayDeque<>();
+        int[] marks = new int[n + 1];
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(0);
+        while (!stack.isEmpty()) {
+            int b = stack.pop();
+            if (b < 0) { // leaving node ~b
+                for (int i = savedVars.size() - marks[~b]; i > 0; --i) {
+                    current[savedVars.pop().getIndex()] = savedDefs.pop();
+                }
+                continue;
+            }
+            marks[b] = savedVars.size();
+            if (b != 0) {
+                Stmt node = nodes.get(b - 1);
+                if (phis.get(b) != null) {
+                    for (Phi phi : phis.get(b)) {
+                        define(current, phi.var, phi, savedVars, savedDefs);
+                    }
+                }
+                if (cfg.isEntry(node)) {
+                    for (Var param : ir.getParams()) {
+                        if (isTracked(param)) {
+                            define(current, param, Def.NAC, savedVars, savedDefs);
+                        }
+                    }
+                }
+                StmtDef def = defs[b];
+                if (def != null) {
+                    for (RValue use : node.getUses()) {
+                        if (use instanceof Var var && isTracked(var)) {
+                            def.addUse(var, current[var.getIndex()]);
+                        }
+                    }
+                    define(current, def.var, def, savedVars, savedDefs);
+                }
+                for (Stmt succ : cfg.getSuccsOf(node)) {
+                    List<Phi> succPhis = phis.get(numberOf(succ));
+                    if (succPhis != null) {
+                        for (Phi phi : succPhis) {
+                            phi.addOperand(current[phi.var.getIndex()]);
+                        }
+                    }
+                }
+            }
+            stack.push(~b);
+            for (int c = firstChild[b]; c != -1; c = nextSibling[c]) {
+                stack.push(c);
+            }
+        }
+        List<Def> all = new ArrayList<>();
+        for (int i = 0; i < n; ++i) {
+            int b = numbers[i];
+            if (phis.get(b) != null) {
+                all.addAll(phis.get(b));
+            }
+            if (defs[b] != null) {
+                all.add(defs[b]);
+            }
+        }
+        for (int i = 0; i < all.size(); ++i) {
+            all.get(i).order = i;
+        }
+        return all;
+    }
+
+    private static void define(Def[] current, Var var, Def def,
+                               Deque<Var> savedVars, Deque<Def> savedDefs) {
+        savedVars.push(var);
+        savedDefs.push(current[var.getIndex()]);
+        current[var.getIndex()] = def;
+    }
+
+    private int numberOf(Stmt node) {
+        return numbers[cfg.getIndex(node)];
+    }
+
+    /**
+     * @return true if the values of {@code var} are propagated by
+     * this solver. The values of temporary constant variables are
+     * given by {@link CPFact} directly.
+     */
+    private static boolean isTracked(Var var) {
+        return Exps.holdsInt(var) && !var.isConst();
+    }
+
+    /**
+     * @return the int variable defined by {@code stmt}, or {@code null}
+     * if {@code stmt} does not define an int variable.
+     */
+    @Nullable
+    private static Var getIntLValue(Stmt stmt) {
+        if (stmt instanceof DefinitionStmt<?, ?> defStmt &&
+                defStmt.getLValue() instanceof Var lhs &&
+                Exps.holdsInt(lhs)) {
+            return lhs;
+        }
+        return null;
+    }
+
+    /**
+     * Definition of a variable, whose value is computed by the solver.
+     */
+    private abstract static class Def {
+
+        /**
+         * The definition at the virtual root, which is used when
+         * no definition of a variable dominates its use.
+         */
+        private static final Def UNDEF = new ConstantDef(Value.getUndef());
+
+        /**
+         * The definition of parameters at the entry.
+         */
+        private static final Def NAC = new ConstantDef(Value.getNAC());
+
+        Value value = Value.getUndef();
+
+        /**
+         * Position of this definition in the work list.
+         */
+        int order;
+
+        /**
+         * Definitions and phi nodes which use this definition.
+         */
+        List<Def> users = List.of();
+
+        void addUser(Def user) {
+            if (users.isEmpty()) {
+                users = new ArrayList<>(2);
+            }
+            users.add(user);
+        }
+
+        abstract Value evaluate();
+    }
+
+    /**
+     * Definition whose value never changes, so that its users
+     * are not recorded.
+     */
+    private static class ConstantDef extends Def {
+
+        private ConstantDef(Value value) {
+            this.value = value;
+        }
+
+        @Override
+        void addUser(Def user) {
+        }
+
+        @Override
+        Value evaluate() {
+            return value;
+        }
+    }
+
+    private static class StmtDef extends Def {
+
+        private final DefinitionStmt<?, ?> stmt;
+
+        private final Var var;
+
+        private final List<Var> useVars = new ArrayList<>(2);
+
+        private final List<Def> useDefs = new ArrayList<>(2);
+
+        private StmtDef(DefinitionStmt<?, ?> stmt, Var var) {
+            this.stmt = stmt;
+            this.var = var;
+        }
+
+        private void addUse(Var useVar, Def useDef) {
+            useVars.add(useVar);
+            useDefs.add(useDef);
+            useDef.addUser(this);
+        }
+
+        @Override
+        Value evaluate() {
+            CPFact fact = new CPFact();
+            for (int i = 0; i < useVars.size(); ++i) {
+                fact.update(useVars.get(i), useDefs.get(i).value);
+            }
+            return Evaluator.evaluate(stmt.getRValue(), fact);
+        }
+    }
+
+    private class Phi extends Def {
+
+        private final Var var;
+
+        private final List<Def> operands = new ArrayList<>(2);
+
+        private Phi(Var var) {
+            this.var = var;
+        }
+
+        private void addOperand(Def operand) {
+            operands.add(operand);
+            operand.addUser(this);
+        }
+
+        @Override
+        Value evaluate() {
+            Value result = Value.getUndef();
+            for (Def operand : operands) {
+                result = analysis.meetValue(result, operand.value);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Data-flow result whose facts are built on demand.
+     */
+    private class Result extends DataflowResult<Stmt, CPFact> {
+
+        private Result() {
+            super(new IndexMap<>(new CFGNodeIndexer<>(cfg), cfg.getNumberOfNodes()),
+                    new IndexMap<>(new CFGNodeIndexer<>(cfg), cfg.getNumberOfNodes()));
+        }
+
+        @Override
+        public CPFact getInFact(Stmt stmt) {
+            CPFact fact = super.getInFact(stmt);
+            if (fact == null) {
+                computeFacts(stmt);
+                fact = super.getInFact(stmt);
+            }
+            return fact;
+        }
+
+        @Override
+        public CPFact getOutFact(Stmt stmt) {
+            CPFact fact = super.getOutFact(stmt);
+            if (fact == null) {
+                computeFacts(stmt);
+                fact = super.getOutFact(stmt);
+            }
+            return fact;
+        }
+
+        /**
+         * Computes the facts of {@code stmt} and its dominators whose
+         * facts are not computed yet, from the top of the dominator tree.
+         * The in fact of a node is the out fact of its immediate dominator
+         * updated by the phi nodes at the node.
+         */
+        private void computeFacts(Stmt stmt) {
+            Deque<Integer> chain = new ArrayDeque<>();
+            for (int b = numberOf(stmt);
+                 b != 0 && super.getOutFact(nodes.get(b - 1)) == null;
+                 b = idoms[b]) {
+                chain.push(b);
+            }
+            while (!chain.isEmpty()) {
+                int b = chain.pop();
+                Stmt node = nodes.get(b - 1);
+                CPFact in;
+                if (cfg.isEntry(node)) {
+                    in = analysis.newBoundaryFact();
+                } else if (idoms[b] == 0) {
+                    in = new CPFact();
+                } else {
+                    in = super.getOutFact(nodes.get(idoms[b] - 1)).copy();
+                }
+                if (phis.get(b) != null) {
+                    for (Phi phi : phis.get(b)) {
+                        in.update(phi.var, phi.value);
+                    }
+                }
+                CPFact out = in.copy();
+                if (defs[b] != null) {
+                    out.update(defs[b].var, defs[b].value);
+                }
+                setInFact(node, in);
+                setOutFact(node, out);
+            }
+        }
+    }
+}
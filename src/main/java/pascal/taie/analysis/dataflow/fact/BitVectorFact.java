@@ -0,0 +1,356 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexer;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set-like data-flow facts which are represented by fixed-size bit vectors,
+ * i.e., the elements are mapped to bits by an {@link Indexer}, and the
+ * indexes of all elements must be less than the capacity given at creation.
+ * <p>
+ * The set operations between bit-vector facts (of the same indexer) are
+ * performed on words in place, and {@link #transfer(BitVectorFact, Mask, Mask)}
+ * applies a gen/kill transfer function without any allocation.
+ *
+ * @param <E> type of elements
+ */
+public class BitVectorFact<E> extends SetFact<E> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private final long[] words;
+
+    public BitVectorFact(Indexer<E> indexer, int capacity) {
+        this(new Bits<>(indexer, new long[wordIndex(capacity + Long.SIZE - 1)]));
+    }
+
+    private BitVectorFact(Bits<E> bits) {
+        super(bits, false);
+        this.words = bits.words;
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    private Indexer<E> getIndexer() {
+        return ((Bits<E>) set).indexer;
+    }
+
+    /**
+     * Sets this fact to {@code gen ∪ (source - kill)}.
+     * {@code source} can be this fact itself.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean transfer(BitVectorFact<E> source, Mask gen, Mask kill) {
+        long[] src = source.words;
+        boolean changed = false;
+        for (int i = 0; i < words.length; ++i) {
+            long word = src[i];
+            int k = i - kill.from;
+            if (k >= 0 && k < kill.words.length) {
+                word &= ~kill.words[k];
+            }
+            int g = i - gen.from;
+            if (g >= 0 && g < gen.words.length) {
+                word |= gen.words[g];
+            }
+            if (word != words[i]) {
+                words[i] = word;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return a mask which contains the elements of this fact.
+     */
+    public Mask toMask() {
+        int from = 0;
+        while (from < words.length && words[from] == 0) {
+            ++from;
+        }
+        if (from == words.length) {
+            return Mask.EMPTY;
+        }
+        int to = words.length;
+        while (words[to - 1] == 0) {
+            --to;
+        }
+        return new Mask(from, Arrays.copyOfRange(words, from, to));
+    }
+
+    @Override
+    public boolean removeAll(SetFact<E> other) {
+        if (other instanceof BitVectorFact<E> that) {
+            boolean changed = false;
+            for (int i = 0; i < words.length; ++i) {
+                long word = words[i] & ~that.words[i];
+                if (word != words[i]) {
+                    words[i] = word;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+        return super.removeAll(other);
+    }
+
+    @Override
+    public boolean union(SetFact<E> other) {
+        if (other instanceof BitVectorFact<E> that) {
+            boolean changed = false;
+            for (int i = 0; i < words.length; ++i) {
+                long word = words[i] | that.words[i];
+                if (word != words[i]) {
+                    words[i] = word;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+        return super.union(other);
+    }
+
+    @Override
+    public boolean intersect(SetFact<E> other) {
+        if (other instanceof BitVectorFact<E> that) {
+            boolean changed = false;
+            for (int i = 0; i < words.length; ++i) {
+                long word = words[i] & that.words[i];
+                if (word != words[i]) {
+                    words[i] = word;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+        return super.intersect(other);
+    }
+
+    @Override
+    public void set(SetFact<E> other) {
+        if (other instanceof BitVectorFact<E> that) {
+            System.arraycopy(that.words, 0, words, 0, words.length);
+        } else {
+            clear();
+            union(other);
+        }
+    }
+
+    @Override
+    public BitVectorFact<E> copy() {
+        return new BitVectorFact<>(new Bits<>(getIndexer(), words.clone()));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof BitVectorFact<?> that) {
+            return this == that || Arrays.equals(words, that.words);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * Immutable bit mask used by gen/kill transfer functions. To save space,
+     * a mask only stores the words between its first and last non-zero words.
+     */
+    public static final class Mask {
+
+        /**
+         * The mask which contains no elements.
+         */
+        public static final Mask EMPTY = new Mask(0, new long[0]);
+
+        /**
+         * Index of the first stored word.
+         */
+        private final int from;
+
+        private final long[] words;
+
+        private Mask(int from, long[] words) {
+            this.from = from;
+            this.words = words;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Mask that)) {
+                return false;
+            }
+            return from == that.from && Arrays.equals(words, that.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * from + Arrays.hashCode(words);
+        }
+    }
+
+    /**
+     * Set view of the bit vector, which is used by the operations
+     * inherited from {@link SetFact}.
+     */
+    private static class Bits<E> extends AbstractSet<E> {
+
+        private final Indexer<E> indexer;
+
+        private final long[] words;
+
+        private Bits(Indexer<E> indexer, long[] words) {
+            this.indexer = indexer;
+            this.words = words;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            @SuppressWarnings("unchecked")
+            int index = indexer.getIndex((E) o);
+            return (words[wordIndex(index)] & (1L << index)) != 0;
+        }
+
+        @Override
+        public boolean add(E e) {
+            int index = indexer.getIndex(e);
+            int i = wordIndex(index);
+            long word = words[i] | (1L << index);
+            if (word != words[i]) {
+                words[i] = word;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            @SuppressWarnings("unchecked")
+            int index = indexer.getIndex((E) o);
+            return clear(index);
+        }
+
+        private boolean clear(int index) {
+            int i = wordIndex(index);
+            long word = words[i] & ~(1L << index);
+            if (word != words[i]) {
+                words[i] = word;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(words, 0);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            for (long word : words) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (long word : words) {
+                size += Long.bitCount(word);
+            }
+            return size;
+        }
+
+        @Override
+        @Nonnull
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+
+                private int next = nextSetBit(0);
+
+                private int lastRet = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return next != -1;
+                }
+
+                @Override
+                public E next() {
+                    if (next == -1) {
+                        throw new NoSuchElementException();
+                    }
+                    lastRet = next;
+                    next = nextSetBit(next + 1);
+                    return indexer.getObject(lastRet);
+                }
+
+                @Override
+                public void remove() {
+                    if (lastRet == -1) {
+                        throw new IllegalStateException();
+                    }
+                    clear(lastRet);
+                    lastRet = -1;
+                }
+            };
+        }
+
+        private int nextSetBit(int fromIndex) {
+            int i = wordIndex(fromIndex);
+            if (i >= words.length) {
+                return -1;
+            }
+            long word = words[i] & (-1L << fromIndex);
+            while (true) {
+                if (word != 0) {
+                    return i * Long.SIZE + Long.numberOfTrailingZeros(word);
+                }
+                if (++i == words.length) {
+                    return -1;
+                }
+                word = words[i];
+            }
+        }
+    }
+}
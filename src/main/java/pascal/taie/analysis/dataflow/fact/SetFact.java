@@ -45,10 +45,24 @@ public class SetFact<E> implements Copyable<SetFact<E>>, Iterable<E> {
     protected final Set<E> set;
 
     public SetFact(Collection<E> c) {
+        set = copyOf(c);
+    }
+
+    /**
+     * Creates a fact which contains the elements of {@code set}.
+     * If {@code copy} is false, the fact is backed by {@code set} directly,
+     * which is for the subclasses that provide their own representations
+     * of sets.
+     */
+    protected SetFact(Set<E> set, boolean copy) {
+        this.set = copy ? copyOf(set) : set;
+    }
+
+    private static <E> Set<E> copyOf(Collection<E> c) {
         if (c instanceof GenericBitSet<E> s) {
-            set = s.copy();
+            return s.copy();
         } else {
-            set = Sets.newHybridSet(c);
+            return Sets.newHybridSet(c);
         }
     }
 
@@ -0,0 +1,56 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.ifds;
+
+import java.util.Set;
+
+/**
+ * Flow function of IFDS problems, which maps a data-flow fact
+ * to the facts it generates at the target of a flow.
+ *
+ * @param <D> type of data-flow facts
+ */
+@FunctionalInterface
+public interface FlowFunction<D> {
+
+    /**
+     * @return the facts which are generated by {@code source}.
+     */
+    Set<D> compute(D source);
+
+    /**
+     * @return the flow function which maps each fact to itself.
+     */
+    static <D> FlowFunction<D> identity() {
+        return Set::of;
+    }
+
+    /**
+     * @return the flow function which kills all facts
+     * except the zero fact {@code zero}.
+     */
+    static <D> FlowFunction<D> killAll(D zero) {
+        return d -> d.equals(zero) ? Set.of(zero) : Set.of();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.ifds;
+
+/**
+ * Template interface for defining IFDS (interprocedural, finite,
+ * distributive, subset) problems, which are solved by {@link IFDSSolver}.
+ * <p>
+ * The flow functions are applied on the facts one by one, and they must be
+ * distributive. The zero fact ({@link #zeroValue()}) holds at every node
+ * which is reachable from the entries, and the flow functions usually
+ * generate new facts from it.
+ *
+ * @param <Method> type of ICFG methods
+ * @param <Node>   type of ICFG nodes
+ * @param <D>      type of data-flow facts
+ */
+public interface IFDSProblem<Method, Node, D> {
+
+    /**
+     * @return the zero fact of this problem.
+     */
+    D zeroValue();
+
+    /**
+     * @return the flow function for the intra-procedural flow
+     * from {@code curr} to {@code succ}.
+     */
+    FlowFunction<D> getNormalFlowFunction(Node curr, Node succ);
+
+    /**
+     * @return the flow function for the flow from {@code callSite}
+     * to the entry of {@code callee}.
+     */
+    FlowFunction<D> getCallFlowFunction(Node callSite, Method callee);
+
+    /**
+     * @return the flow function for the flow from {@code exit} of
+     * {@code callee} to {@code returnSite} of {@code callSite}.
+     */
+    FlowFunction<D> getReturnFlowFunction(Node callSite, Method callee,
+                                          Node exit, Node returnSite);
+
+    /**
+     * @return the flow function for the intra-procedural flow from
+     * {@code callSite} to {@code returnSite}, which bypasses the callees.
+     */
+    FlowFunction<D> getCallToReturnFlowFunction(Node callSite, Node returnSite);
+}
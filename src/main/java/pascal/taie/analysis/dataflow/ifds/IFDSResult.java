@@ -0,0 +1,88 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.ifds;
+
+import pascal.taie.analysis.StmtResult;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Results of IFDS problems, i.e., the facts which hold
+ * at (the beginning of) each node.
+ *
+ * @param <Node> type of ICFG nodes
+ * @param <D>    type of data-flow facts
+ */
+public class IFDSResult<Node, D> implements StmtResult<Set<D>> {
+
+    private final Map<Node, Set<D>> facts;
+
+    private final D zero;
+
+    IFDSResult(Map<Node, Set<D>> facts, D zero) {
+        this.facts = facts;
+        this.zero = zero;
+    }
+
+    /**
+     * @return the facts (excluding the zero fact) which hold at
+     * the beginning of given node.
+     */
+    public Set<D> getFactsAt(Node node) {
+        Set<D> result = facts.get(node);
+        if (result == null) {
+            return Set.of();
+        }
+        return Collections.unmodifiableSet(
+                result.contains(zero) ? withoutZero(result) : result);
+    }
+
+    private Set<D> withoutZero(Set<D> result) {
+        Set<D> copy = new HashSet<>(result);
+        copy.remove(zero);
+        return copy;
+    }
+
+    /**
+     * @return true if given node is reachable from the entries of the ICFG.
+     */
+    public boolean isReachable(Node node) {
+        return facts.containsKey(node);
+    }
+
+    @Override
+    public boolean isRelevant(Stmt stmt) {
+        return true;
+    }
+
+    @Override
+    public Set<D> getResult(Stmt stmt) {
+        //noinspection unchecked
+        return getFactsAt((Node) stmt);
+    }
+}
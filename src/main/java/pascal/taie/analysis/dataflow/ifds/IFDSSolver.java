@@ -0,0 +1,290 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.ifds;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Solver for {@link IFDSProblem}s, which implements the tabulation
+ * algorithm proposed by Reps, Horwitz and Sagiv (POPL'95).
+ * <p>
+ * The solver computes the realizable path edges {@code <d1, n, d2>} of
+ * the exploded super-graph, where {@code d1} is a fact at the entry of
+ * the method containing {@code n}, and {@code d2} is a fact at {@code n}.
+ * When the path edges reach the exit of a method, the solver records
+ * them as the summaries of the method, and reuses the summaries at the
+ * other call sites which pass the same entry facts to the method,
+ * instead of analyzing the method again.
+ * <p>
+ * When parallelism is greater than 1, the path edges are processed
+ * concurrently by a fork/join pool. The summaries and the incoming
+ * call contexts of each (method, entry fact) pair are guarded by
+ * the same lock, thus every summary is applied to every call context,
+ * and both modes reach the same result.
+ *
+ * @param <Method> type of ICFG methods
+ * @param <Node>   type of ICFG nodes
+ * @param <D>      type of data-flow facts
+ */
+public class IFDSSolver<Method, Node, D> {
+
+    private static final Logger logger = LogManager.getLogger(IFDSSolver.class);
+
+    private final IFDSProblem<Method, Node, D> problem;
+
+    private final ICFG<Method, Node> icfg;
+
+    private final int parallelism;
+
+    private final D zero;
+
+    /**
+     * Path edges which have been reached.
+     */
+    private final Set<PathEdge<Node, D>> pathEdges = Sets.newConcurrentSet();
+
+    /**
+     * Facts which hold at each node.
+     */
+    private final Map<Node, Set<D>> facts = Maps.newConcurrentMap();
+
+    /**
+     * Summaries and incoming call contexts of each (method, entry fact) pair.
+     */
+    private final Map<MethodFact<Method, D>, Summary<Node, D>> summaries
+            = Maps.newConcurrentMap();
+
+    private Queue<PathEdge<Node, D>> workList;
+
+    private ForkJoinPool workerPool;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * @param parallelism number of threads to process path edges;
+     *                    if it is not greater than 1, the solver runs
+     *                    in current thread.
+     */
+    public IFDSSolver(IFDSProblem<Method, Node, D> problem,
+                      ICFG<Method, Node> icfg, int parallelism) {
+        this.problem = problem;
+        this.icfg = icfg;
+        this.parallelism = parallelism;
+        this.zero = problem.zeroValue();
+    }
+
+    public IFDSSolver(IFDSProblem<Method, Node, D> problem,
+                      ICFG<Method, Node> icfg) {
+        this(problem, icfg, 1);
+    }
+
+    /**
+     * Solves the problem from the zero fact at entries of the entry methods.
+     * The solver can be used only once.
+     */
+    public IFDSResult<Node, D> solve() {
+        if (parallelism > 1) {
+            logger.info("IFDS solver runs with {} worker threads", parallelism);
+            workerPool = new ForkJoinPool(parallelism);
+            try {
+                initialize();
+                workerPool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.DAYS);
+            } finally {
+                workerPool.shutdown();
+            }
+            Throwable e = failure.get();
+            if (e instanceof RuntimeException re) {
+                throw re;
+            } else if (e instanceof Error err) {
+                throw err;
+            }
+        } else {
+            workList = new ArrayDeque<>();
+            initialize();
+            while (!workList.isEmpty()) {
+                process(workList.poll());
+            }
+        }
+        logger.info("IFDS solver reached {} path edges, {} summaries" +
+                        " of {} (method, entry fact) pairs",
+                pathEdges.size(),
+                summaries.values().stream().mapToInt(Summary::size).sum(),
+                summaries.size());
+        return new IFDSResult<>(facts, zero);
+    }
+
+    private void initialize() {
+        icfg.entryMethods().forEach(method ->
+                propagate(zero, icfg.getEntryOf(method), zero));
+    }
+
+    private void propagate(D source, Node node, D target) {
+        PathEdge<Node, D> edge = new PathEdge<>(source, node, target);
+        if (pathEdges.add(edge)) {
+            facts.computeIfAbsent(node, __ -> Sets.newConcurrentSet())
+                    .add(target);
+            if (workerPool != null) {
+                workerPool.execute(() -> {
+                    try {
+                        process(edge);
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+            } else {
+                workList.add(edge);
+            }
+        }
+    }
+
+    private void process(PathEdge<Node, D> edge) {
+        if (failure.get() != null) {
+            return;
+        }
+        Node node = edge.node();
+        Method method = icfg.getContainingMethodOf(node);
+        if (icfg.getExitOf(method).equals(node)) {
+            processExit(method, edge);
+        } else if (icfg.isCallSite(node)) {
+            processCall(edge);
+        } else {
+            processNormal(edge);
+        }
+    }
+
+    private void processNormal(PathEdge<Node, D> edge) {
+        Node node = edge.node();
+        for (Node succ : icfg.getSuccsOf(node)) {
+            problem.getNormalFlowFunction(node, succ)
+                    .compute(edge.target())
+                    .forEach(d -> propagate(edge.source(), succ, d));
+        }
+    }
+
+    private void processCall(PathEdge<Node, D> edge) {
+        Node callSite = edge.node();
+        Set<Node> returnSites = icfg.getReturnSitesOf(callSite);
+        CallContext<Node, D> context = new CallContext<>(
+                callSite, edge.source(), edge.target());
+        for (Method callee : icfg.getCalleesOf(callSite)) {
+            Node entry = icfg.getEntryOf(callee);
+            for (D entryFact : problem.getCallFlowFunction(callSite, callee)
+                    .compute(edge.target())) {
+                propagate(entryFact, entry, entryFact);
+                // apply the summaries which have been computed for callee
+                Summary<Node, D> summary = getSummary(callee, entryFact);
+                for (ExitFact<Node, D> end : summary.addIncoming(context)) {
+                    applySummary(context, callee, end, returnSites);
+                }
+            }
+        }
+        for (Node returnSite : returnSites) {
+            problem.getCallToReturnFlowFunction(callSite, returnSite)
+                    .compute(edge.target())
+                    .forEach(d -> propagate(edge.source(), returnSite, d));
+        }
+    }
+
+    private void processExit(Method method, PathEdge<Node, D> edge) {
+        ExitFact<Node, D> end = new ExitFact<>(edge.node(), edge.target());
+        Summary<Node, D> summary = getSummary(method, edge.source());
+        for (CallContext<Node, D> context : summary.addEnd(end)) {
+            applySummary(context, method, end,
+                    icfg.getReturnSitesOf(context.callSite()));
+        }
+    }
+
+    private void applySummary(CallContext<Node, D> context, Method callee,
+                              ExitFact<Node, D> end, Set<Node> returnSites) {
+        for (Node returnSite : returnSites) {
+            problem.getReturnFlowFunction(context.callSite(), callee,
+                            end.exit(), returnSite)
+                    .compute(end.fact())
+                    .forEach(d -> propagate(context.source(), returnSite, d));
+        }
+    }
+
+    private Summary<Node, D> getSummary(Method method, D entryFact) {
+        return summaries.computeIfAbsent(
+                new MethodFact<>(method, entryFact), __ -> new Summary<>());
+    }
+
+    private record PathEdge<Node, D>(D source, Node node, D target) {
+    }
+
+    private record MethodFact<Method, D>(Method method, D fact) {
+    }
+
+    /**
+     * Fact {@code fact} at {@code exit} of a method.
+     */
+    private record ExitFact<Node, D>(Node exit, D fact) {
+    }
+
+    /**
+     * A call site with the path edge {@code <source, callSite, fact>}.
+     */
+    private record CallContext<Node, D>(Node callSite, D source, D fact) {
+    }
+
+    /**
+     * Summaries and incoming call contexts of a (method, entry fact) pair.
+     * Each update returns a snapshot of the other side, so that a summary
+     * and a call context which are added concurrently are always
+     * combined by one of the updates.
+     */
+    private static class Summary<Node, D> {
+
+        private final Set<ExitFact<Node, D>> ends = Sets.newHybridSet();
+
+        private final Set<CallContext<Node, D>> incoming = Sets.newHybridSet();
+
+        private synchronized List<ExitFact<Node, D>> addIncoming(
+                CallContext<Node, D> context) {
+            return incoming.add(context) ? List.copyOf(ends) : List.of();
+        }
+
+        private synchronized List<CallContext<Node, D>> addEnd(
+                ExitFact<Node, D> end) {
+            return ends.add(end) ? List.copyOf(incoming) : List.of();
+        }
+
+        private synchronized int size() {
+            return ends.size();
+        }
+    }
+}
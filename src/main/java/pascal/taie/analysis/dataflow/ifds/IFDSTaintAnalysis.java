@@ -0,0 +1,226 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.ifds;
+
+import pascal.taie.World;
+import pascal.taie.analysis.ProgramAnalysis;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignStmt;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Cast;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.Unary;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Sets;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Taint analysis of local variables based on {@link IFDSSolver}.
+ * <p>
+ * The values returned by the calls to source methods are tainted, and the
+ * taint is propagated through copies, casts, unary and binary operations,
+ * arguments and return values. The analysis reports the calls to sink
+ * methods which take tainted arguments. The values stored in fields and
+ * arrays are not tracked, and the calls to the methods that are not in
+ * the ICFG (e.g., native methods) do not propagate taint.
+ * For taint analysis which handles the heap and the library methods,
+ * see {@link pascal.taie.analysis.pta.plugin.taint.TaintAnalysis}.
+ */
+public class IFDSTaintAnalysis extends ProgramAnalysis<Set<IFDSTaintAnalysis.Flow>> {
+
+    public static final String ID = "ifds-taint";
+
+    /**
+     * The zero fact, which holds at every reachable node.
+     */
+    private static final TaintFact ZERO = new TaintFact(null, null);
+
+    /**
+     * Signatures of source methods.
+     */
+    private final Set<String> sources;
+
+    /**
+     * Signatures of sink methods.
+     */
+    private final Set<String> sinks;
+
+    private final int threads;
+
+    private ICFG<JMethod, Stmt> icfg;
+
+    public IFDSTaintAnalysis(AnalysisConfig config) {
+        super(config);
+        //noinspection unchecked
+        sources = Set.copyOf((List<String>) getOptions().get("sources"));
+        //noinspection unchecked
+        sinks = Set.copyOf((List<String>) getOptions().get("sinks"));
+        threads = getOptions().getInt("threads");
+    }
+
+    @Override
+    public Set<Flow> analyze() {
+        icfg = World.get().getResult(ICFGBuilder.ID);
+        IFDSResult<Stmt, TaintFact> result =
+                new IFDSSolver<>(new Problem(), icfg, threads).solve();
+        Set<Flow> flows = Sets.newSet();
+        for (Stmt stmt : icfg) {
+            if (stmt instanceof Invoke sink && isCallTo(sink, sinks)) {
+                List<Var> args = sink.getInvokeExp().getArgs();
+                for (TaintFact fact : result.getFactsAt(sink)) {
+                    for (int i = 0; i < args.size(); ++i) {
+                        if (args.get(i).equals(fact.var())) {
+                            flows.add(new Flow(fact.source(), sink, i));
+                        }
+                    }
+                }
+            }
+        }
+        return flows;
+    }
+
+    /**
+     * @return true if {@code invoke} may call a method in {@code signatures}.
+     */
+    private boolean isCallTo(Invoke invoke, Set<String> signatures) {
+        return icfg.getCalleesOf(invoke)
+                .stream()
+                .anyMatch(callee -> signatures.contains(callee.getSignature()));
+    }
+
+    /**
+     * Taint flow from a call to a source method to the argument
+     * at {@code index} of a call to a sink method.
+     */
+    public record Flow(Invoke source, Invoke sink, int index) {
+
+        @Override
+        public String toString() {
+            return String.format("Flow{%s -> %s/%d}", source, sink, index);
+        }
+    }
+
+    /**
+     * Fact that {@code var} holds the value returned by {@code source}.
+     */
+    private record TaintFact(Var var, Invoke source) {
+    }
+
+    private class Problem implements IFDSProblem<JMethod, Stmt, TaintFact> {
+
+        @Override
+        public TaintFact zeroValue() {
+            return ZERO;
+        }
+
+        @Override
+        public FlowFunction<TaintFact> getNormalFlowFunction(Stmt curr, Stmt succ) {
+            if (!(curr instanceof AssignStmt<?, ?> assign)
+                    || !(assign.getLValue() instanceof Var lhs)) {
+                return FlowFunction.identity();
+            }
+            RValue rhs = assign.getRValue();
+            boolean propagates = curr instanceof Copy || curr instanceof Cast
+                    || curr instanceof Unary || curr instanceof Binary;
+            return fact -> {
+                if (fact.equals(ZERO)) {
+                    return Set.of(ZERO);
+                }
+                Var var = fact.var();
+                if (propagates && (rhs.equals(var) || rhs.getUses().contains(var))) {
+                    return var.equals(lhs) ? Set.of(fact)
+                            : Set.of(fact, new TaintFact(lhs, fact.source()));
+                }
+                // lhs is overwritten
+                return var.equals(lhs) ? Set.of() : Set.of(fact);
+            };
+        }
+
+        @Override
+        public FlowFunction<TaintFact> getCallFlowFunction(Stmt callSite, JMethod callee) {
+            InvokeExp invokeExp = ((Invoke) callSite).getInvokeExp();
+            IR ir = callee.getIR();
+            return fact -> {
+                if (fact.equals(ZERO)) {
+                    return Set.of(ZERO);
+                }
+                Set<TaintFact> result = Sets.newHybridSet();
+                List<Var> args = invokeExp.getArgs();
+                for (int i = 0; i < args.size() && i < callee.getParamCount(); ++i) {
+                    if (args.get(i).equals(fact.var())) {
+                        result.add(new TaintFact(ir.getParam(i), fact.source()));
+                    }
+                }
+                if (invokeExp instanceof InvokeInstanceExp instanceExp
+                        && instanceExp.getBase().equals(fact.var())
+                        && !callee.isStatic()) {
+                    result.add(new TaintFact(ir.getThis(), fact.source()));
+                }
+                return result;
+            };
+        }
+
+        @Override
+        public FlowFunction<TaintFact> getReturnFlowFunction(
+                Stmt callSite, JMethod callee, Stmt exit, Stmt returnSite) {
+            Var result = ((Invoke) callSite).getResult();
+            List<Var> returnVars = callee.getIR().getReturnVars();
+            return fact -> {
+                if (fact.equals(ZERO)) {
+                    return Set.of(ZERO);
+                }
+                return result != null && returnVars.contains(fact.var())
+                        ? Set.of(new TaintFact(result, fact.source()))
+                        : Set.of();
+            };
+        }
+
+        @Override
+        public FlowFunction<TaintFact> getCallToReturnFlowFunction(
+                Stmt callSite, Stmt returnSite) {
+            Invoke invoke = (Invoke) callSite;
+            Var result = invoke.getResult();
+            boolean isSource = result != null && isCallTo(invoke, sources);
+            return fact -> {
+                if (fact.equals(ZERO)) {
+                    return isSource
+                            ? Set.of(ZERO, new TaintFact(result, invoke))
+                            : Set.of(ZERO);
+                }
+                // the result of the call flows from the callees
+                return fact.var().equals(result) ? Set.of() : Set.of(fact);
+            };
+        }
+    }
+}
@@ -60,6 +60,17 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     protected void initialize() {
     }
 
+    /**
+     * @return true if the transfer functions of this analysis only modify
+     * the given facts, so that the solver can analyze the methods which do
+     * not call each other in parallel. The analyses which modify the facts
+     * of other nodes (e.g., via {@link InterSolver#getOutFact(Object)})
+     * should return false.
+     */
+    protected boolean isParallelizable() {
+        return false;
+    }
+
     /**
      * If the concrete analysis needs to perform some finishing work after
      * the solver finishes, then it can overwrite this method.
@@ -121,7 +132,10 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     public DataflowResult<Node, Fact> analyze() {
         icfg = World.get().getResult(ICFGBuilder.ID);
         initialize();
-        solver = new InterSolver<>(this, icfg);
+        int threads = getOptions().has("threads") ?
+                getOptions().getInt("threads") : 1;
+        solver = new InterSolver<>(this, icfg, threads > 0 ? threads
+                : Runtime.getRuntime().availableProcessors());
         DataflowResult<Node, Fact> result = solver.solve();
         finish();
         return result;
@@ -180,6 +180,13 @@ public class InterConstantPropagation extends
         arrayLoadToStores = null;
     }
 
+    @Override
+    protected boolean isParallelizable() {
+        // alias-aware transfer functions update the facts of
+        // the loads which may be in other methods
+        return !aliasAware;
+    }
+
     @Override
     public boolean isForward() {
         return cp.isForward();
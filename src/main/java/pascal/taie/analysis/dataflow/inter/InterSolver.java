@@ -20,20 +20,51 @@
  * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
  */
 
+
 package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.SimpleGraph;
+import pascal.taie.util.graph.TopologicalSorter;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Solver for inter-procedural data-flow analysis.
  * The workload of inter-procedural analysis is heavy, thus we always
  * adopt work-list algorithm for efficiency.
+ * <p>
+ * The solver keeps a work list for each method, and schedules the methods
+ * by the topological order of the strongly-connected components (SCCs)
+ * of the call graph, i.e., it always analyzes the pending method which
+ * comes first in the order (callers before callees), until the nodes of
+ * the method reach a local fixed point. The data-flow facts of a node are
+ * created when the node is visited for the first time. The nodes which are
+ * unreachable from the entries of the ICFG are never visited, and the result
+ * gives them initial facts when they are queried.
+ * <p>
+ * When parallelism is enabled and the analysis is parallelizable, the solver
+ * analyzes the methods in rounds. In each round, it selects the pending
+ * methods which are not adjacent to each other in the call graph,
+ * and analyzes them concurrently. As the ICFG edges between different
+ * methods are call and return edges, the facts read by a method are never
+ * modified concurrently, and the propagations across methods are applied
+ * after each round. Both modes reach the same fixed point.
  */
 class InterSolver<Method, Node, Fact> {
 
@@ -41,64 +72,242 @@ class InterSolver<Method, Node, Fact> {
 
     private final ICFG<Method, Node> icfg;
 
+    private final int parallelism;
+
     private DataflowResult<Node, Fact> result;
 
-    private Queue<Node> workList;
+    private Set<Node> entryNodes;
+
+    /**
+     * Work list of each method.
+     */
+    private Map<Method, Queue<Node>> workLists;
+
+    /**
+     * Ranks of the methods in the topological order of call graph SCCs.
+     */
+    private Map<Method, Integer> ranks;
+
+    private List<Method> rankedMethods;
+
+    /**
+     * Ranks of the methods whose work lists are not empty.
+     */
+    private TreeSet<Integer> pendingRanks;
 
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
+        this(analysis, icfg, 1);
+    }
+
+    /**
+     * @param parallelism number of threads to analyze methods concurrently.
+     *                    It only takes effect when the analysis is
+     *                    {@link AbstractInterDataflowAnalysis#isParallelizable()
+     *                    parallelizable}.
+     */
+    InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                ICFG<Method, Node> icfg, int parallelism) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.parallelism = parallelism;
     }
 
     DataflowResult<Node, Fact> solve() {
-        result = new DataflowResult<>();
+        boolean isParallel = parallelism > 1 &&
+                analysis instanceof AbstractInterDataflowAnalysis<?, ?, ?> a &&
+                a.isParallelizable();
+        Map<Node, Fact> inFacts = isParallel ?
+                Maps.newConcurrentMap() : Maps.newLinkedHashMap();
+        Map<Node, Fact> outFacts = isParallel ?
+                Maps.newConcurrentMap() : Maps.newLinkedHashMap();
+        result = new DataflowResult<>(inFacts, outFacts);
         initialize();
-        doSolve();
-        return result;
+        SimpleGraph<Method> methodGraph = buildMethodGraph();
+        entryNodes.forEach(this::propagateTo);
+        if (isParallel) {
+            ForkJoinPool workerPool = new ForkJoinPool(parallelism);
+            try {
+                doSolveInParallel(methodGraph, workerPool);
+            } finally {
+                workerPool.shutdown();
+            }
+        } else {
+            doSolve();
+        }
+        return new Result(inFacts, outFacts);
     }
 
     private void initialize() {
-        Set<Node> entryNodes = icfg.entryMethods()
+        entryNodes = icfg.entryMethods()
                 .map(icfg::getEntryOf)
                 .collect(Collectors.toSet());
-        entryNodes.forEach(entry -> {
-            result.setInFact(entry, analysis.newBoundaryFact(entry));
-            result.setOutFact(entry, analysis.newBoundaryFact(entry));
-        });
+        workLists = Maps.newMap();
+        pendingRanks = new TreeSet<>();
+    }
+
+    /**
+     * Builds the call graph of the methods in the ICFG, and ranks
+     * the methods by the topological order of its SCCs.
+     */
+    private SimpleGraph<Method> buildMethodGraph() {
+        SimpleGraph<Method> methodGraph = new SimpleGraph<>();
         icfg.forEach(node -> {
-            if (entryNodes.contains(node)) {
-                return;
+            Method method = icfg.getContainingMethodOf(node);
+            methodGraph.addNode(method);
+            if (icfg.isCallSite(node)) {
+                icfg.getCalleesOf(node).forEach(callee ->
+                        methodGraph.addEdge(method, callee));
             }
-            result.setInFact(node, analysis.newInitialFact());
-            result.setOutFact(node, analysis.newInitialFact());
         });
+        ranks = Maps.newMap(methodGraph.getNumberOfNodes());
+        rankedMethods = new ArrayList<>(methodGraph.getNumberOfNodes());
+        MergedSCCGraph<Method> sccGraph = new MergedSCCGraph<>(methodGraph);
+        for (MergedNode<Method> scc : new TopologicalSorter<>(sccGraph).get()) {
+            for (Method method : scc.getNodes()) {
+                ranks.put(method, rankedMethods.size());
+                rankedMethods.add(method);
+            }
+        }
+        return methodGraph;
     }
 
     private void doSolve() {
-        workList = new SetQueue<>();
-        icfg.forEach(workList::add);
+        while (!pendingRanks.isEmpty()) {
+            Method method = rankedMethods.get(pendingRanks.pollFirst());
+            solveMethod(method, this::propagateTo);
+        }
+    }
+
+    private void doSolveInParallel(SimpleGraph<Method> methodGraph,
+                                   ForkJoinPool workerPool) {
+        while (!pendingRanks.isEmpty()) {
+            // select the pending methods which are independent of each other
+            List<Method> selected = new ArrayList<>();
+            Set<Method> blocked = Sets.newSet();
+            for (int rank : pendingRanks) {
+                Method method = rankedMethods.get(rank);
+                if (blocked.add(method)) {
+                    selected.add(method);
+                    blocked.addAll(methodGraph.getPredsOf(method));
+                    blocked.addAll(methodGraph.getSuccsOf(method));
+                }
+            }
+            selected.forEach(m -> pendingRanks.remove(ranks.get(m)));
+            List<List<Node>> propagations = workerPool.submit(() ->
+                    selected.parallelStream()
+                            .map(method -> {
+                                List<Node> targets = new ArrayList<>();
+                                solveMethod(method, targets::add);
+                                return targets;
+                            })
+                            .toList()
+            ).join();
+            propagations.forEach(targets -> targets.forEach(this::propagateTo));
+        }
+    }
+
+    /**
+     * Processes the work list of given method until it is empty.
+     *
+     * @param crossPropagation handles the propagations
+     *                         to the nodes of other methods
+     */
+    private void solveMethod(Method method,
+                             Consumer<Node> crossPropagation) {
+        Queue<Node> workList = workLists.get(method);
         while (!workList.isEmpty()) {
             Node node = workList.poll();
-            // meet incoming facts
             Fact in = result.getInFact(node);
-            icfg.getInEdgesOf(node).forEach(inEdge -> {
+            boolean isFirstVisit = in == null;
+            if (isFirstVisit) {
+                in = newFact(node);
+                result.setInFact(node, in);
+            }
+            // meet incoming facts
+            for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(node)) {
+                // the facts of unvisited nodes are initial facts,
+                // which do not affect the meet results
                 Fact predOut = result.getOutFact(inEdge.source());
-                analysis.meetInto(analysis.transferEdge(inEdge, predOut), in);
-            });
-            Fact out = result.getOutFact(node);
+                if (predOut != null) {
+                    analysis.meetInto(analysis.transferEdge(inEdge, predOut), in);
+                }
+            }
+            Fact out = getOutFact(node);
             boolean changed = analysis.transferNode(node, in, out);
-            if (changed) {
-                propagate(node);
+            if (changed || isFirstVisit) {
+                for (Node succ : icfg.getSuccsOf(node)) {
+                    if (icfg.getContainingMethodOf(succ).equals(method)) {
+                        workList.add(succ);
+                    } else {
+                        crossPropagation.accept(succ);
+                    }
+                }
             }
         }
     }
 
+    private Fact newFact(Node node) {
+        return entryNodes.contains(node) ?
+                analysis.newBoundaryFact(node) :
+                analysis.newInitialFact();
+    }
+
+    /**
+     * Adds a node to the work list of its method.
+     */
+    private void propagateTo(Node node) {
+        Method method = icfg.getContainingMethodOf(node);
+        workLists.computeIfAbsent(method, __ -> new SetQueue<>()).add(node);
+        pendingRanks.add(ranks.get(method));
+    }
+
     void propagate(Node node) {
-        workList.addAll(icfg.getSuccsOf(node));
+        icfg.getSuccsOf(node).forEach(this::propagateTo);
     }
 
+    /**
+     * @return the out fact of given node. If the node has not been
+     * visited, its out fact is created.
+     */
     Fact getOutFact(Node node) {
-        return result.getOutFact(node);
+        Fact out = result.getOutFact(node);
+        if (out == null) {
+            out = newFact(node);
+            result.setOutFact(node, out);
+        }
+        return out;
+    }
+
+    /**
+     * Data-flow result which shares the facts with the solver, and gives
+     * initial facts to the nodes that have not been visited, i.e.,
+     * the nodes unreachable from the entries of the ICFG.
+     */
+    private class Result extends DataflowResult<Node, Fact> {
+
+        private Result(Map<Node, Fact> inFacts, Map<Node, Fact> outFacts) {
+            super(inFacts, outFacts);
+        }
+
+        @Override
+        public Fact getInFact(Node node) {
+            Fact fact = super.getInFact(node);
+            if (fact == null) {
+                fact = analysis.newInitialFact();
+                setInFact(node, fact);
+            }
+            return fact;
+        }
+
+        @Override
+        public Fact getOutFact(Node node) {
+            Fact fact = super.getOutFact(node);
+            if (fact == null) {
+                fact = analysis.newInitialFact();
+                setOutFact(node, fact);
+            }
+            return fact;
+        }
     }
 }
@@ -38,8 +38,16 @@ abstract class AbstractSolver<Node, Fact> implements Solver<Node, Fact> {
 
     @Override
     public DataflowResult<Node, Fact> solve(DataflowAnalysis<Node, Fact> analysis) {
+        return solve(analysis, new SolverStats());
+    }
+
+    @Override
+    public DataflowResult<Node, Fact> solve(DataflowAnalysis<Node, Fact> analysis,
+                                            SolverStats stats) {
+        long start = System.nanoTime();
         DataflowResult<Node, Fact> result = initialize(analysis);
-        doSolve(analysis, result);
+        int visits = doSolve(analysis, result);
+        stats.record(visits, System.nanoTime() - start);
         return result;
     }
 
@@ -100,19 +108,21 @@ abstract class AbstractSolver<Node, Fact> implements Solver<Node, Fact> {
 
     /**
      * Solves the data-flow problem for given analysis.
+     *
+     * @return the number of node visits
      */
-    private void doSolve(DataflowAnalysis<Node, Fact> analysis,
-                         DataflowResult<Node, Fact> result) {
+    private int doSolve(DataflowAnalysis<Node, Fact> analysis,
+                        DataflowResult<Node, Fact> result) {
         if (analysis.isForward()) {
-            doSolveForward(analysis, result);
+            return doSolveForward(analysis, result);
         } else {
-            doSolveBackward(analysis, result);
+            return doSolveBackward(analysis, result);
         }
     }
 
-    protected abstract void doSolveForward(DataflowAnalysis<Node, Fact> analysis,
-                                           DataflowResult<Node, Fact> result);
+    protected abstract int doSolveForward(DataflowAnalysis<Node, Fact> analysis,
+                                          DataflowResult<Node, Fact> result);
 
-    protected abstract void doSolveBackward(DataflowAnalysis<Node, Fact> analysis,
-                                            DataflowResult<Node, Fact> result);
+    protected abstract int doSolveBackward(DataflowAnalysis<Node, Fact> analysis,
+                                           DataflowResult<Node, Fact> result);
 }
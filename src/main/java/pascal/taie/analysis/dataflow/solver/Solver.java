@@ -24,6 +24,7 @@ package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.config.ConfigException;
 
 /**
  * Interface of data-flow analysis solver.
@@ -37,7 +38,20 @@ public interface Solver<Node, Fact> {
      * The default solver.
      */
     @SuppressWarnings("rawtypes")
-    Solver SOLVER = new WorkListSolver<>();
+    Solver SOLVER = new WorkListSolver<>(false, false);
+
+    /**
+     * The work-list solver which prioritizes the nodes by reverse postorder.
+     */
+    @SuppressWarnings("rawtypes")
+    Solver RPO_SOLVER = new WorkListSolver<>(true, false);
+
+    /**
+     * The solver which iterates over the nodes in reverse postorder
+     * round by round until the facts no longer change.
+     */
+    @SuppressWarnings("rawtypes")
+    Solver ROUND_ROBIN_SOLVER = new WorkListSolver<>(true, true);
 
     /**
      * Static factory method for obtaining a solver.
@@ -47,10 +61,35 @@ public interface Solver<Node, Fact> {
         return (Solver<Node, Fact>) SOLVER;
     }
 
+    /**
+     * Static factory method for obtaining a solver of given kind.
+     *
+     * @param kind one of "worklist", "rpo", and "round-robin".
+     * @throws ConfigException if the given kind is unknown.
+     */
+    @SuppressWarnings("unchecked")
+    static <Node, Fact> Solver<Node, Fact> getSolver(String kind) {
+        return switch (kind) {
+            case "worklist" -> (Solver<Node, Fact>) SOLVER;
+            case "rpo" -> (Solver<Node, Fact>) RPO_SOLVER;
+            case "round-robin" -> (Solver<Node, Fact>) ROUND_ROBIN_SOLVER;
+            default -> throw new ConfigException("Unknown solver: " + kind);
+        };
+    }
+
     /**
      * Solves the given analysis problem.
      *
      * @return the data-flow analysis result
      */
     DataflowResult<Node, Fact> solve(DataflowAnalysis<Node, Fact> analysis);
+
+    /**
+     * Solves the given analysis problem, and records the number of
+     * node visits and the elapsed time in {@code stats}.
+     *
+     * @return the data-flow analysis result
+     */
+    DataflowResult<Node, Fact> solve(DataflowAnalysis<Node, Fact> analysis,
+                                     SolverStats stats);
 }
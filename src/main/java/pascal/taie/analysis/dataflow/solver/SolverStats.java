@@ -0,0 +1,60 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+/**
+ * Statistics of solving a data-flow problem, i.e., the number of
+ * times that the solver visits (applies transfer function on) CFG nodes,
+ * and the time spent on solving.
+ */
+public class SolverStats {
+
+    private long visits;
+
+    private long elapsedTime;
+
+    void record(int visits, long elapsedTime) {
+        this.visits += visits;
+        this.elapsedTime += elapsedTime;
+    }
+
+    /**
+     * @return the number of node visits.
+     */
+    public long getVisits() {
+        return visits;
+    }
+
+    /**
+     * @return the elapsed time of solving in nanoseconds.
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d visits, %.2fms",
+                visits, elapsedTime / 1_000_000.0);
+    }
+}
@@ -23,20 +23,53 @@
 package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.GenKillAnalysis;
+import pascal.taie.analysis.dataflow.fact.BitVectorFact;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGEdge;
 import pascal.taie.util.collection.CollectionUtils;
-import pascal.taie.util.collection.Sets;
 
-import java.util.Comparator;
-import java.util.NavigableSet;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntPredicate;
 
 /**
  * Work-list solver with optimization.
+ * <p>
+ * By default, the nodes are prioritized by their indexes (in descending
+ * order for backward analysis). Optionally, they can be prioritized by
+ * the reverse postorder of the CFG (of the reverse CFG for backward analysis),
+ * which is cached by the CFG. Both orders reach the same fixed point for
+ * monotone analyses, but constant propagation is not monotone
+ * (e.g., NAC * 0 = 0 while NAC * UNDEF = NAC), and its results may
+ * differ in a few cases under reverse postorder. Index order is kept as
+ * the default so that these results stay unchanged.
+ * <p>
+ * For {@link GenKillAnalysis}, the solver precomputes the facts and
+ * neighbors of the nodes in arrays, and applies the transfer and meet
+ * functions on bit-vector facts in place.
  */
 class WorkListSolver<Node, Fact> extends AbstractSolver<Node, Fact> {
 
+    /**
+     * Whether to prioritize the nodes by reverse postorder
+     * instead of by node indexes.
+     */
+    private final boolean reversePostOrder;
+
+    /**
+     * Whether to visit all nodes round by round instead of
+     * maintaining a work list.
+     */
+    private final boolean roundRobin;
+
+    WorkListSolver(boolean reversePostOrder, boolean roundRobin) {
+        this.reversePostOrder = reversePostOrder;
+        this.roundRobin = roundRobin;
+    }
+
     @Override
     protected void initializeForward(DataflowAnalysis<Node, Fact> analysis,
                                      DataflowResult<Node, Fact> result) {
@@ -79,49 +112,55 @@ class WorkListSolver<Node, Fact> extends AbstractSolver<Node, Fact> {
     }
 
     @Override
-    protected void doSolveForward(DataflowAnalysis<Node, Fact> analysis,
-                                  DataflowResult<Node, Fact> result) {
+    protected int doSolveForward(DataflowAnalysis<Node, Fact> analysis,
+                                 DataflowResult<Node, Fact> result) {
+        if (hasBitVectorFacts(analysis, result)) {
+            return doSolveGenKill(analysis, result);
+        }
         CFG<Node> cfg = analysis.getCFG();
-        NavigableSet<Node> workList = Sets.newOrderedSet(
-                Comparator.comparingInt(cfg::getIndex));
-        cfg.forEach(node -> {
-            if (!cfg.isEntry(node)) {
-                workList.add(node);
-            }
-        });
-        while (!workList.isEmpty()) {
-            Node node = workList.pollFirst();
-            // meet incoming facts
-            Fact in;
-            int inDegree = cfg.getInDegreeOf(node);
-            if (inDegree > 1) {
-                in = result.getInFact(node);
-                cfg.getInEdgesOf(node).forEach(inEdge -> {
-                    Fact fact = result.getOutFact(inEdge.source());
-                    if (analysis.needTransferEdge(inEdge)) {
-                        fact = analysis.transferEdge(inEdge, fact);
-                    }
-                    analysis.meetInto(fact, in);
-                });
-            } else if (inDegree == 1) {
-                CFGEdge<Node> inEdge = CollectionUtils.getOne(cfg.getInEdgesOf(node));
+        List<Node> order = getOrder(cfg, false);
+        int[][] succs = makeSuccessors(
+                cfg, order, makePriorities(cfg, order), false);
+        return iterate(succs, p -> visitForward(analysis, result, order.get(p)),
+                roundRobin);
+    }
+
+    /**
+     * Meets the facts flowing into the given node and applies
+     * the node transfer function.
+     *
+     * @return true if the out fact of the node has been changed.
+     */
+    private boolean visitForward(DataflowAnalysis<Node, Fact> analysis,
+                                 DataflowResult<Node, Fact> result, Node node) {
+        CFG<Node> cfg = analysis.getCFG();
+        // meet incoming facts
+        Fact in;
+        int inDegree = cfg.getInDegreeOf(node);
+        if (inDegree > 1) {
+            in = result.getInFact(node);
+            cfg.getInEdgesOf(node).forEach(inEdge -> {
+                Fact fact = result.getOutFact(inEdge.source());
                 if (analysis.needTransferEdge(inEdge)) {
-                    in = analysis.transferEdge(inEdge,
-                            result.getOutFact(inEdge.source()));
-                    result.setInFact(node, in);
-                } else {
-                    in = result.getInFact(node);
+                    fact = analysis.transferEdge(inEdge, fact);
                 }
+                analysis.meetInto(fact, in);
+            });
+        } else if (inDegree == 1) {
+            CFGEdge<Node> inEdge = CollectionUtils.getOne(cfg.getInEdgesOf(node));
+            if (analysis.needTransferEdge(inEdge)) {
+                in = analysis.transferEdge(inEdge,
+                        result.getOutFact(inEdge.source()));
+                result.setInFact(node, in);
             } else {
                 in = result.getInFact(node);
             }
-            // apply node transfer function
-            Fact out = result.getOutFact(node);
-            boolean changed = analysis.transferNode(node, in, out);
-            if (changed) {
-                workList.addAll(cfg.getSuccsOf(node));
-            }
+        } else {
+            in = result.getInFact(node);
         }
+        // apply node transfer function
+        Fact out = result.getOutFact(node);
+        return analysis.transferNode(node, in, out);
     }
 
     @Override
@@ -166,48 +205,231 @@ class WorkListSolver<Node, Fact> extends AbstractSolver<Node, Fact> {
     }
 
     @Override
-    protected void doSolveBackward(DataflowAnalysis<Node, Fact> analysis,
-                                   DataflowResult<Node, Fact> result) {
+    protected int doSolveBackward(DataflowAnalysis<Node, Fact> analysis,
+                                  DataflowResult<Node, Fact> result) {
+        if (hasBitVectorFacts(analysis, result)) {
+            return doSolveGenKill(analysis, result);
+        }
         CFG<Node> cfg = analysis.getCFG();
-        NavigableSet<Node> workList = Sets.newOrderedSet(
-                Comparator.comparingInt(n -> -cfg.getIndex(n)));
-        cfg.forEach(node -> {
-            if (!cfg.isExit(node)) {
-                workList.add(node);
-            }
-        });
-        while (!workList.isEmpty()) {
-            Node node = workList.pollFirst();
-            // meet incoming facts
-            Fact out;
-            int outDegree = cfg.getOutDegreeOf(node);
-            if (outDegree > 1) {
-                out = result.getOutFact(node);
-                cfg.getOutEdgesOf(node).forEach(outEdge -> {
-                    Fact fact = result.getInFact(outEdge.target());
-                    if (analysis.needTransferEdge(outEdge)) {
-                        fact = analysis.transferEdge(outEdge, fact);
-                    }
-                    analysis.meetInto(fact, out);
-                });
-            } else if (outDegree == 1) {
-                CFGEdge<Node> outEdge = CollectionUtils.getOne(cfg.getOutEdgesOf(node));
+        List<Node> order = getOrder(cfg, true);
+        int[][] succs = makeSuccessors(
+                cfg, order, makePriorities(cfg, order), true);
+        return iterate(succs, p -> visitBackward(analysis, result, order.get(p)),
+                roundRobin);
+    }
+
+    /**
+     * Meets the facts flowing out of the given node and applies
+     * the node transfer function.
+     *
+     * @return true if the in fact of the node has been changed.
+     */
+    private boolean visitBackward(DataflowAnalysis<Node, Fact> analysis,
+                                  DataflowResult<Node, Fact> result, Node node) {
+        CFG<Node> cfg = analysis.getCFG();
+        // meet incoming facts
+        Fact out;
+        int outDegree = cfg.getOutDegreeOf(node);
+        if (outDegree > 1) {
+            out = result.getOutFact(node);
+            cfg.getOutEdgesOf(node).forEach(outEdge -> {
+                Fact fact = result.getInFact(outEdge.target());
                 if (analysis.needTransferEdge(outEdge)) {
-                    out = analysis.transferEdge(outEdge,
-                            result.getInFact(outEdge.target()));
-                    result.setOutFact(node, out);
-                } else {
-                    out = result.getOutFact(node);
+                    fact = analysis.transferEdge(outEdge, fact);
                 }
+                analysis.meetInto(fact, out);
+            });
+        } else if (outDegree == 1) {
+            CFGEdge<Node> outEdge = CollectionUtils.getOne(cfg.getOutEdgesOf(node));
+            if (analysis.needTransferEdge(outEdge)) {
+                out = analysis.transferEdge(outEdge,
+                        result.getInFact(outEdge.target()));
+                result.setOutFact(node, out);
             } else {
                 out = result.getOutFact(node);
             }
-            // apply node transfer function
-            Fact in = result.getInFact(node);
-            boolean changed = analysis.transferNode(node, in, out);
-            if (changed) {
-                workList.addAll(cfg.getPredsOf(node));
+        } else {
+            out = result.getOutFact(node);
+        }
+        // apply node transfer function
+        Fact in = result.getInFact(node);
+        return analysis.transferNode(node, in, out);
+    }
+
+    /**
+     * @return true if {@code analysis} is a gen/kill analysis and all
+     * its facts in {@code result} are {@link BitVectorFact}s, so that it
+     * can be solved by {@link #doSolveGenKill}. The facts of a subclass
+     * of {@link GenKillAnalysis} may be of other kinds, e.g., if it
+     * overrides {@link DataflowAnalysis#newBoundaryFact()}.
+     */
+    private static <Node> boolean hasBitVectorFacts(
+            DataflowAnalysis<Node, ?> analysis, DataflowResult<Node, ?> result) {
+        if (!(analysis instanceof GenKillAnalysis)) {
+            return false;
+        }
+        for (Node node : analysis.getCFG()) {
+            if (!(result.getInFact(node) instanceof BitVectorFact) ||
+                    !(result.getOutFact(node) instanceof BitVectorFact)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Solves gen/kill analysis in both directions. The nodes are visited in
+     * the same order as the general loops. The facts shared by a node and
+     * its single predecessor (successor for backward analysis) are set up
+     * by the initialization. All facts must be {@link BitVectorFact}s,
+     * see {@link #hasBitVectorFacts}.
+     */
+    private <E> int doSolveGenKill(
+            DataflowAnalysis<Node, ?> dfa, DataflowResult<Node, ?> result) {
+        @SuppressWarnings("unchecked")
+        GenKillAnalysis<Node, E> analysis = (GenKillAnalysis<Node, E>) dfa;
+        CFG<Node> cfg = analysis.getCFG();
+        boolean forward = analysis.isForward();
+        List<Node> order = getOrder(cfg, !forward);
+        int[] priorities = makePriorities(cfg, order);
+        int n = order.size();
+        // all arrays below are indexed by priorities of the nodes
+        int[] indexes = new int[n];
+        // facts flowing into and out of each node along the analysis direction
+        @SuppressWarnings("unchecked")
+        BitVectorFact<E>[] sources = (BitVectorFact<E>[]) new BitVectorFact<?>[n];
+        @SuppressWarnings("unchecked")
+        BitVectorFact<E>[] targets = (BitVectorFact<E>[]) new BitVectorFact<?>[n];
+        // priorities of the nodes whose facts are met into the source facts
+        int[][] preds = new int[n][];
+        for (int p = 0; p < n; ++p) {
+            Node node = order.get(p);
+            indexes[p] = cfg.getIndex(node);
+            Object in = result.getInFact(node);
+            Object out = result.getOutFact(node);
+            sources[p] = asBitVectorFact(forward ? in : out);
+            targets[p] = asBitVectorFact(forward ? out : in);
+            preds[p] = (forward ? cfg.getInEdgesOf(node) : cfg.getOutEdgesOf(node))
+                    .stream()
+                    .mapToInt(e -> priorities[cfg.getIndex(
+                            forward ? e.source() : e.target())])
+                    .toArray();
+        }
+        return iterate(makeSuccessors(cfg, order, priorities, !forward), p -> {
+            BitVectorFact<E> source = sources[p];
+            int[] ps = preds[p];
+            if (ps.length > 1) {
+                for (int pred : ps) {
+                    source.union(targets[pred]);
+                }
+            }
+            return analysis.transferNode(indexes[p], source, targets[p]);
+        }, roundRobin);
+    }
+
+    /**
+     * The elements of the facts are given by the analysis,
+     * thus the cast is safe.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> BitVectorFact<E> asBitVectorFact(Object fact) {
+        return (BitVectorFact<E>) fact;
+    }
+
+    /**
+     * @return the nodes of the CFG in the order of their priorities.
+     * The first node is the entry (exit for backward analysis).
+     */
+    private List<Node> getOrder(CFG<Node> cfg, boolean backward) {
+        if (reversePostOrder || roundRobin) {
+            return cfg.getReversePostOrder(backward);
+        }
+        int n = cfg.getNumberOfNodes();
+        List<Node> order = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            order.add(cfg.getNode(backward ? n - 1 - i : i));
+        }
+        return order;
+    }
+
+    /**
+     * @return an array that maps the index of each node to its position
+     * in the given order, i.e., the priority of the node.
+     */
+    private static <Node> int[] makePriorities(CFG<Node> cfg, List<Node> order) {
+        int[] priorities = new int[order.size()];
+        for (int p = 0; p < priorities.length; ++p) {
+            priorities[cfg.getIndex(order.get(p))] = p;
+        }
+        return priorities;
+    }
+
+    /**
+     * @return the priorities of the nodes that should be revisited
+     * when the fact of each node (specified by priority) changes.
+     */
+    private static <Node> int[][] makeSuccessors(
+            CFG<Node> cfg, List<Node> order, int[] priorities, boolean backward) {
+        int[][] succs = new int[order.size()][];
+        for (int p = 0; p < succs.length; ++p) {
+            Node node = order.get(p);
+            succs[p] = (backward ? cfg.getPredsOf(node) : cfg.getSuccsOf(node))
+                    .stream()
+                    .mapToInt(s -> priorities[cfg.getIndex(s)])
+                    .toArray();
+        }
+        return succs;
+    }
+
+    /**
+     * Visits the nodes (specified by priorities) until reaching
+     * the fixed point. The node with priority 0, i.e., the entry
+     * (exit for backward analysis), holds the boundary fact and is skipped.
+     * <p>
+     * In work-list mode, the pending node with the smallest priority
+     * is visited first, and the successors of a node are added to
+     * the work list when its fact changes. In round-robin mode, all nodes
+     * are visited by priority in each round, until no fact changes in
+     * a round, which needs few rounds for reducible CFGs.
+     *
+     * @param succs the successors of each node.
+     * @param visit applies meet and transfer functions on the node,
+     *              and returns whether its fact changes.
+     * @return the number of node visits.
+     */
+    private static int iterate(int[][] succs, IntPredicate visit,
+                               boolean roundRobin) {
+        int n = succs.length;
+        int visits = 0;
+        if (roundRobin) {
+            boolean changed;
+            do {
+                changed = false;
+                for (int p = 1; p < n; ++p) {
+                    changed |= visit.test(p);
+                }
+                visits += n - 1;
+            } while (changed);
+        } else {
+            BitSet workList = new BitSet(n);
+            workList.set(1, n);
+            // the smallest priority that may be pending
+            int first = workList.nextSetBit(0);
+            while (first >= 0) {
+                int p = first;
+                workList.clear(p);
+                ++visits;
+                if (visit.test(p)) {
+                    for (int s : succs[p]) {
+                        if (s != 0) {
+                            workList.set(s);
+                            first = Math.min(first, s);
+                        }
+                    }
+                }
+                first = workList.nextSetBit(first);
             }
         }
+        return visits;
     }
 }
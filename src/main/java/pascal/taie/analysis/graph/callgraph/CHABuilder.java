@@ -35,13 +35,17 @@ import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.classes.Subsignature;
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Timer;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.TwoKeyMap;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -76,7 +80,13 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      */
     private final int calleeLimit;
 
-    CHABuilder(String algorithm) {
+    /**
+     * Number of threads that resolve call sites concurrently.
+     */
+    private final int parallelism;
+
+    CHABuilder(String algorithm, int parallelism) {
+        this.parallelism = parallelism;
         switch (algorithm) {
             case "cha" -> { // default setting, ignore Object's methods
                 ignoreObjectMethods = true;
@@ -117,9 +127,32 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
                 .stream()
                 .map(JMethod::getSubsignature)
                 .collect(Collectors.toUnmodifiableSet());
-        resolveTable = Maps.newTwoKeyMap();
+        resolveTable = Maps.newTwoKeyMap(
+                Maps.newConcurrentMap(), Maps::newConcurrentMap);
         DefaultCallGraph callGraph = new DefaultCallGraph();
         callGraph.addEntryMethod(entry);
+        Timer timer = new Timer("CHA");
+        timer.start();
+        if (parallelism > 1) {
+            logger.info("CHA runs with {} worker threads", parallelism);
+            ForkJoinPool workerPool = new ForkJoinPool(parallelism);
+            try {
+                buildInParallel(callGraph, entry, workerPool);
+            } finally {
+                workerPool.shutdown();
+            }
+        } else {
+            build(callGraph, entry);
+        }
+        timer.stop();
+        logger.info("CHA processed {} reachable methods in {}s ({} methods/s)",
+                callGraph.getNumberOfMethods(), timer.inSecond(),
+                String.format("%.0f", callGraph.getNumberOfMethods()
+                        / Math.max(timer.inSecond(), 0.001f)));
+        return callGraph;
+    }
+
+    private void build(DefaultCallGraph callGraph, JMethod entry) {
         Queue<JMethod> workList = new ArrayDeque<>();
         workList.add(entry);
         while (!workList.isEmpty()) {
@@ -137,7 +170,46 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
                 });
             }
         }
-        return callGraph;
+    }
+
+    /**
+     * Builds call graph level by level in breadth-first order.
+     * For each level, the new reachable methods (and their IRs) are added
+     * to the call graph by the current thread, then the call sites in
+     * these methods are resolved by the worker threads concurrently,
+     * and finally the resolved edges are added to the call graph in
+     * the order of the call sites. Thus, the call graph is the same as
+     * the one built by {@link #build(DefaultCallGraph, JMethod)},
+     * including the order of its methods and edges.
+     */
+    private void buildInParallel(DefaultCallGraph callGraph, JMethod entry,
+                                 ForkJoinPool workerPool) {
+        List<JMethod> level = List.of(entry);
+        while (!level.isEmpty()) {
+            List<Invoke> callSites = new ArrayList<>();
+            for (JMethod method : level) {
+                if (callGraph.addReachableMethod(method)) {
+                    callGraph.callSitesIn(method).forEach(callSites::add);
+                }
+            }
+            List<Set<JMethod>> callees = workerPool.submit(() ->
+                    callSites.parallelStream()
+                            .map(this::resolveCalleesOf)
+                            .toList()
+            ).join();
+            List<JMethod> nextLevel = new ArrayList<>();
+            for (int i = 0; i < callSites.size(); ++i) {
+                Invoke invoke = callSites.get(i);
+                callees.get(i).forEach(callee -> {
+                    if (!callGraph.contains(callee)) {
+                        nextLevel.add(callee);
+                    }
+                    callGraph.addEdge(new Edge<>(
+                            CallGraphs.getCallKind(invoke), invoke, callee));
+                });
+            }
+            level = nextLevel;
+        }
     }
 
     /**
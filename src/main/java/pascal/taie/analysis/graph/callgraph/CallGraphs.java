@@ -50,6 +50,8 @@ import java.io.FileOutputStream;
 import java.io.PrintStream;
 import java.util.Comparator;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
  * Static utility methods about call graph.
@@ -93,6 +95,38 @@ public final class CallGraphs {
         }
     }
 
+    /**
+     * Resolves the callees of a call site on the types of given receivers
+     * in bulk, e.g., the new objects pointed to by the receiver variable
+     * of the call site. The result is the same as
+     * {@link #resolveCallee(Type, Invoke)} for each receiver.
+     *
+     * @param typeGetter returns the type of each receiver.
+     * @param consumer   consumes each receiver and its callee,
+     *                   which is null if the callee cannot be resolved.
+     * @see pascal.taie.language.classes.ClassHierarchy#dispatchAll
+     */
+    public static <T> void resolveCallees(
+            Invoke callSite, Iterable<T> receivers,
+            Function<? super T, Type> typeGetter,
+            BiConsumer<? super T, JMethod> consumer) {
+        if (callSite.isInterface() || callSite.isVirtual()) {
+            World.get().getClassHierarchy().dispatchAll(
+                    callSite.getMethodRef(), receivers, typeGetter, consumer);
+        } else {
+            // the callee of other call sites does not depend on receivers
+            boolean resolved = false;
+            JMethod callee = null;
+            for (T receiver : receivers) {
+                if (!resolved) {
+                    callee = resolveCallee(typeGetter.apply(receiver), callSite);
+                    resolved = true;
+                }
+                consumer.accept(receiver, callee);
+            }
+        }
+    }
+
     /**
      * Dumps call graph to dot file.
      */
@@ -30,8 +30,14 @@ import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.Views;
 
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 abstract class AbstractCFG<N> implements CFG<N> {
 
@@ -47,6 +53,13 @@ abstract class AbstractCFG<N> implements CFG<N> {
 
     private final MultiMap<N, CFGEdge<N>> outEdges;
 
+    /**
+     * Caches of {@link #getReversePostOrder(boolean)}.
+     */
+    private volatile List<N> rpo;
+
+    private volatile List<N> reverseRPO;
+
     AbstractCFG(IR ir) {
         this.ir = ir;
         // number of nodes = number of statements in IR + entry + exit
@@ -155,4 +168,68 @@ abstract class AbstractCFG<N> implements CFG<N> {
     public Set<N> getNodes() {
         return Collections.unmodifiableSet(nodes);
     }
+
+    @Override
+    public List<N> getReversePostOrder(boolean reverse) {
+        List<N> order = reverse ? reverseRPO : rpo;
+        if (order == null) {
+            order = reverse ?
+                    computeReversePostOrder(exit, this::getPredsOf) :
+                    computeReversePostOrder(entry, this::getSuccsOf);
+            if (reverse) {
+                reverseRPO = order;
+            } else {
+                rpo = order;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Computes reverse postorder by iterative depth-first search from
+     * the given start node. The remaining nodes are then traversed
+     * in the order of their indexes (from the largest index when the start
+     * node is the exit), and the reverse postorder of each of these
+     * depth-first trees is appended to the result.
+     */
+    private List<N> computeReversePostOrder(N start, Function<N, Set<N>> next) {
+        int n = getNumberOfNodes();
+        boolean[] visited = new boolean[n];
+        List<N> order = new ArrayList<>(n);
+        List<N> postOrder = new ArrayList<>();
+        Deque<N> stack = new ArrayDeque<>();
+        Deque<Iterator<N>> iters = new ArrayDeque<>();
+        for (int k = -1; k < n; ++k) {
+            N root;
+            if (k < 0) {
+                root = start;
+            } else {
+                root = getNode(start == exit ? n - 1 - k : k);
+            }
+            if (visited[getIndex(root)]) {
+                continue;
+            }
+            visited[getIndex(root)] = true;
+            stack.push(root);
+            iters.push(next.apply(root).iterator());
+            while (!stack.isEmpty()) {
+                Iterator<N> iter = iters.peek();
+                if (iter.hasNext()) {
+                    N node = iter.next();
+                    if (!visited[getIndex(node)]) {
+                        visited[getIndex(node)] = true;
+                        stack.push(node);
+                        iters.push(next.apply(node).iterator());
+                    }
+                } else {
+                    postOrder.add(stack.pop());
+                    iters.pop();
+                }
+            }
+            Collections.reverse(postOrder);
+            order.addAll(postOrder);
+            postOrder.clear();
+        }
+        return Collections.unmodifiableList(order);
+    }
 }
@@ -26,6 +26,7 @@ import pascal.taie.ir.IR;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.graph.Graph;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -75,6 +76,20 @@ public interface CFG<N> extends Graph<N> {
      */
     N getNode(int index);
 
+    /**
+     * Returns the nodes of this CFG in reverse postorder of a depth-first
+     * traversal, which is computed once and cached by the CFG.
+     * The nodes that are not reachable from the start node are ordered
+     * after the reachable ones.
+     *
+     * @param reverse if true, traverses the reverse CFG, i.e., starts from
+     *                the exit and follows the predecessors, which is
+     *                the preferred order for backward analyses.
+     * @return an unmodifiable list of all nodes, whose first element is
+     * the entry (or the exit if {@code reverse} is true).
+     */
+    List<N> getReversePostOrder(boolean reverse);
+
     /**
      * @return incoming edges of the given node.
      */
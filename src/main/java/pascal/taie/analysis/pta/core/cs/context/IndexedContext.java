@@ -0,0 +1,244 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.LongObjectMap;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An implementation of {@link Context}, which organizes contexts as Trie
+ * like {@link TrieContext}, but stores the Trie in the flat arrays of
+ * its factory instead of the context objects.
+ * <p>
+ * Each context is given a dense index by its factory, and each context
+ * element is also given an index, thus the child of a context is looked
+ * up by the pair of indexes, and no map is created for each context.
+ * The index of a context can be used by the clients as a compact key of
+ * the context, e.g., to pack the keys of context-sensitive elements
+ * into {@code long} values. The indexes are unique among the contexts
+ * produced by the same factory.
+ */
+public class IndexedContext implements Context, Indexable {
+
+    private final Factory<?> factory;
+
+    private final int index;
+
+    private IndexedContext(Factory<?> factory, int index) {
+        this.factory = factory;
+        this.index = index;
+    }
+
+    /**
+     * @return the factory that produces this context.
+     */
+    public Factory<?> getFactory() {
+        return factory;
+    }
+
+    /**
+     * @return the index of this context, which is unique among
+     * the contexts produced by the same factory.
+     */
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public int getLength() {
+        return factory.lengths[index];
+    }
+
+    @Override
+    public Object getElementAt(int i) {
+        assert 0 <= i && i < getLength();
+        int c = index;
+        for (int j = getLength() - 1; j > i; --j) {
+            c = factory.parents[c];
+        }
+        return factory.elems[c];
+    }
+
+    @Override
+    public String toString() {
+        int length = getLength();
+        Object[] elems = new Object[length];
+        int c = index;
+        for (int i = length - 1; i >= 0; --i) {
+            elems[i] = factory.elems[c];
+            c = factory.parents[c];
+        }
+        return Arrays.toString(elems);
+    }
+
+    public static class Factory<T> implements ContextFactory<T> {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        /**
+         * Maps index of context to the index of its parent.
+         * The parent of the root context is -1.
+         */
+        private int[] parents = new int[INITIAL_CAPACITY];
+
+        /**
+         * Maps index of context to its length.
+         */
+        private int[] lengths = new int[INITIAL_CAPACITY];
+
+        /**
+         * Maps index of context to its last element.
+         */
+        private Object[] elems = new Object[INITIAL_CAPACITY];
+
+        /**
+         * Maps index of context to the context object.
+         */
+        private IndexedContext[] contexts = new IndexedContext[INITIAL_CAPACITY];
+
+        /**
+         * Number of contexts produced by this factory.
+         */
+        private int size = 0;
+
+        /**
+         * Maps context element to its index.
+         */
+        private final Map<Object, Integer> elemIndexes = Maps.newMap();
+
+        /**
+         * Maps (index of parent context, index of element) to the child context.
+         */
+        private final LongObjectMap<IndexedContext> children =
+                new LongObjectMap<>(INITIAL_CAPACITY);
+
+        /**
+         * Root context of all contexts produced by this factory.
+         * It also acts as the default context.
+         */
+        private final IndexedContext rootContext = newContext(-1, null, 0);
+
+        /**
+         * @return the number of contexts produced by this factory.
+         */
+        public int getContextCount() {
+            return size;
+        }
+
+        /**
+         * @return the context of given index.
+         */
+        public IndexedContext getContext(int index) {
+            return contexts[index];
+        }
+
+        @Override
+        public IndexedContext getEmptyContext() {
+            return rootContext;
+        }
+
+        @Override
+        public IndexedContext make(T elem) {
+            return getChild(rootContext.index, elem);
+        }
+
+        @Override
+        public IndexedContext make(T... elems) {
+            int c = rootContext.index;
+            for (T elem : elems) {
+                c = getChild(c, elem).index;
+            }
+            return contexts[c];
+        }
+
+        @Override
+        public IndexedContext makeLastK(Context context, int k) {
+            if (k == 0) {
+                return rootContext;
+            }
+            IndexedContext ctx = (IndexedContext) context;
+            int length = lengths[ctx.index];
+            if (length <= k) {
+                return ctx;
+            }
+            int[] path = new int[k];
+            int c = ctx.index;
+            for (int i = k; i > 0; --i) {
+                path[i - 1] = c;
+                c = parents[c];
+            }
+            int result = rootContext.index;
+            for (int p : path) {
+                result = getChild(result, elems[p]).index;
+            }
+            return contexts[result];
+        }
+
+        @Override
+        public IndexedContext append(Context parent, T elem, int limit) {
+            IndexedContext p = (IndexedContext) parent;
+            if (lengths[p.index] < limit) {
+                return getChild(p.index, elem);
+            } else {
+                return getChild(makeLastK(p, limit - 1).index, elem);
+            }
+        }
+
+        private IndexedContext getChild(int parent, Object elem) {
+            Integer elemIndex = elemIndexes.get(elem);
+            if (elemIndex == null) {
+                elemIndex = elemIndexes.size();
+                elemIndexes.put(elem, elemIndex);
+            }
+            long key = LongObjectMap.key(parent, elemIndex);
+            IndexedContext child = children.get(key);
+            if (child == null) {
+                child = newContext(parent, elem, lengths[parent] + 1);
+                children.put(key, child);
+            }
+            return child;
+        }
+
+        private IndexedContext newContext(int parent, Object elem, int length) {
+            int index = size++;
+            if (index == contexts.length) {
+                int newLength = contexts.length << 1;
+                parents = Arrays.copyOf(parents, newLength);
+                lengths = Arrays.copyOf(lengths, newLength);
+                elems = Arrays.copyOf(elems, newLength);
+                contexts = Arrays.copyOf(contexts, newLength);
+            }
+            IndexedContext context = new IndexedContext(this, index);
+            parents[index] = parent;
+            lengths[index] = length;
+            elems[index] = elem;
+            contexts[index] = context;
+            return context;
+        }
+    }
+}
@@ -0,0 +1,504 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.IndexedContext;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.LongObjectMap;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Streams;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Manages data by maintaining the data and their context-sensitive
+ * counterparts by index-based tables.
+ * <p>
+ * Each element (i.e., variable, object, field, call site, method, and
+ * context) is given a dense {@code int} index, and each context-sensitive
+ * element is stored in a {@link LongObjectMap} with the key that packs
+ * the indexes of its element and context. Compared to
+ * {@link MapBasedCSManager}, this avoids the nested hash maps (one per
+ * element) and boxed keys, and the {@link ArrayIndex} pointers are looked
+ * up in an array indexed by their {@link CSObj}s.
+ * <p>
+ * The indexes of variables and call sites are derived from their own
+ * indexes in the IR of their methods ({@link Var#getIndex()} and
+ * {@link Invoke#getIndex()}) plus an offset assigned to each method,
+ * so they need no hash lookups, except for finding the offsets of the
+ * method, which is skipped when the method is the same as last lookup.
+ * The variables and call sites which are not in the IR of their methods
+ * (e.g., the ones created by plugins) are indexed by hash maps.
+ * <p>
+ * For {@link IndexedContext}s, their own indexes are used, so that
+ * looking up a context-sensitive element does not hash the context.
+ */
+public class IndexBasedCSManager implements CSManager {
+
+    private final PointerManager ptrManager = new PointerManager();
+
+    private final CSObjManager objManager = new CSObjManager();
+
+    /**
+     * The factory whose contexts are indexed by their own indexes.
+     */
+    private IndexedContext.Factory<?> ctxFactory;
+
+    /**
+     * Indexes the other contexts, which are given negative indexes
+     * to avoid conflicts with the indexes of {@link IndexedContext}s.
+     */
+    private final ElementIndexer<Context> ctxIndexer = new ElementIndexer<>(1024);
+
+    private final MethodIndexer methodIndexer = new MethodIndexer();
+
+    private final LongObjectMap<CSCallSite> callSites = new LongObjectMap<>(4096);
+
+    private final LongObjectMap<CSMethod> methods = new LongObjectMap<>(4096);
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        return ptrManager.getCSVar(context, var);
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return ptrManager.getStaticField(field);
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        return ptrManager.getInstanceField(base, field);
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        return ptrManager.getArrayIndex(array);
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return ptrManager.getVars();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return ptrManager.getCSVars();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        return ptrManager.getCSVarsOf(var);
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return ptrManager.getStaticFields();
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return ptrManager.getInstanceFields();
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return ptrManager.getArrayIndexes();
+    }
+
+    @Override
+    public Stream<Pointer> pointers() {
+        return ptrManager.pointers();
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        return objManager.getCSObj(heapContext, obj);
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return objManager.getObjects();
+    }
+
+    @Override
+    public Collection<CSObj> getCSObjsOf(Obj obj) {
+        return objManager.getCSObjsOf(obj);
+    }
+
+    @Override
+    public Indexer<CSObj> getObjectIndexer() {
+        return objManager.getIndexer();
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        long key = LongObjectMap.key(
+                methodIndexer.getCallSiteIndex(callSite), getContextIndex(context));
+        CSCallSite csCallSite = callSites.get(key);
+        if (csCallSite == null) {
+            CSMethod container = getCSMethod(context, callSite.getContainer());
+            csCallSite = new CSCallSite(callSite, context, container);
+            callSites.put(key, csCallSite);
+        }
+        return csCallSite;
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        return methods.computeIfAbsent(LongObjectMap.key(
+                        methodIndexer.getMethodIndex(method).index, getContextIndex(context)),
+                k -> new CSMethod(method, context));
+    }
+
+    private int getContextIndex(Context context) {
+        if (context instanceof IndexedContext indexedContext) {
+            if (ctxFactory == null) {
+                ctxFactory = indexedContext.getFactory();
+            }
+            if (indexedContext.getFactory() == ctxFactory) {
+                return indexedContext.getIndex();
+            }
+        }
+        return -1 - ctxIndexer.getIndex(context);
+    }
+
+    private class PointerManager {
+
+        private final LongObjectMap<CSVar> vars = new LongObjectMap<>(4096);
+
+        /**
+         * Context-sensitive variables of each variable,
+         * indexed by the indexes of the variables.
+         */
+        private final List<List<CSVar>> csVarsOfVar = new ArrayList<>(4096);
+
+        /**
+         * The variables which have context-sensitive variables.
+         */
+        private final List<Var> varList = new ArrayList<>(4096);
+
+        private final Map<JField, StaticField> staticFields = Maps.newMap();
+
+        private final ElementIndexer<JField> fieldIndexer = new ElementIndexer<>(1024);
+
+        private final LongObjectMap<InstanceField> instanceFields = new LongObjectMap<>(4096);
+
+        /**
+         * Maps index of CSObj to the ArrayIndex of the CSObj.
+         */
+        private ArrayIndex[] arrayIndexes = new ArrayIndex[4096];
+
+        private final List<ArrayIndex> arrayIndexList = new ArrayList<>();
+
+        /**
+         * Counter for assigning unique indexes to Pointers.
+         */
+        private int counter = 0;
+
+        private CSVar getCSVar(Context context, Var var) {
+            int varIndex = methodIndexer.getVarIndex(var);
+            long key = LongObjectMap.key(varIndex, getContextIndex(context));
+            CSVar csVar = vars.get(key);
+            if (csVar == null) {
+                csVar = new CSVar(var, context, counter++);
+                vars.put(key, csVar);
+                while (varIndex >= csVarsOfVar.size()) {
+                    csVarsOfVar.add(null);
+                }
+                List<CSVar> csVars = csVarsOfVar.get(varIndex);
+                if (csVars == null) {
+                    csVars = new ArrayList<>(1);
+                    csVarsOfVar.set(varIndex, csVars);
+                    varList.add(var);
+                }
+                csVars.add(csVar);
+            }
+            return csVar;
+        }
+
+        private StaticField getStaticField(JField field) {
+            return staticFields.computeIfAbsent(field,
+                    f -> new StaticField(f, counter++));
+        }
+
+        private InstanceField getInstanceField(CSObj base, JField field) {
+            return instanceFields.computeIfAbsent(
+                    LongObjectMap.key(base.getIndex(), fieldIndexer.getIndex(field)),
+                    k -> new InstanceField(base, field, counter++));
+        }
+
+        private ArrayIndex getArrayIndex(CSObj array) {
+            int index = array.getIndex();
+            if (index >= arrayIndexes.length) {
+                int newLength = Math.max(index + 1, (int) (arrayIndexes.length * 1.5));
+                arrayIndexes = Arrays.copyOf(arrayIndexes, newLength);
+            }
+            ArrayIndex arrayIndex = arrayIndexes[index];
+            if (arrayIndex == null) {
+                arrayIndex = new ArrayIndex(array, counter++);
+                arrayIndexes[index] = arrayIndex;
+                arrayIndexList.add(arrayIndex);
+            }
+            return arrayIndex;
+        }
+
+        private Collection<Var> getVars() {
+            return Collections.unmodifiableList(varList);
+        }
+
+        private Collection<CSVar> getCSVars() {
+            return vars.values();
+        }
+
+        private Collection<CSVar> getCSVarsOf(Var var) {
+            int varIndex = methodIndexer.getVarIndex(var);
+            List<CSVar> csVars = varIndex < csVarsOfVar.size() ?
+                    csVarsOfVar.get(varIndex) : null;
+            return csVars != null ? Collections.unmodifiableList(csVars) : List.of();
+        }
+
+        private Collection<StaticField> getStaticFields() {
+            return Collections.unmodifiableCollection(staticFields.values());
+        }
+
+        private Collection<InstanceField> getInstanceFields() {
+            return instanceFields.values();
+        }
+
+        private Collection<ArrayIndex> getArrayIndexes() {
+            return Collections.unmodifiableList(arrayIndexList);
+        }
+
+        private Stream<Pointer> pointers() {
+            return Streams.concat(
+                    getCSVars().stream(),
+                    getInstanceFields().stream(),
+                    getArrayIndexes().stream(),
+                    getStaticFields().stream());
+        }
+    }
+
+    private class CSObjManager {
+
+        private final LongObjectMap<CSObj> objMap = new LongObjectMap<>(4096);
+
+        /**
+         * Context-sensitive objects of each object,
+         * indexed by the indexes of the objects.
+         */
+        private final List<List<CSObj>> csObjsOfObj = new ArrayList<>(4096);
+
+        private final CSObjIndexer indexer = new CSObjIndexer();
+
+        CSObj getCSObj(Context heapContext, Obj obj) {
+            long key = LongObjectMap.key(obj.getIndex(), getContextIndex(heapContext));
+            CSObj csObj = objMap.get(key);
+            if (csObj == null) {
+                csObj = indexer.newCSObj(obj, heapContext);
+                objMap.put(key, csObj);
+                while (obj.getIndex() >= csObjsOfObj.size()) {
+                    csObjsOfObj.add(null);
+                }
+                List<CSObj> csObjs = csObjsOfObj.get(obj.getIndex());
+                if (csObjs == null) {
+                    csObjs = new ArrayList<>(1);
+                    csObjsOfObj.set(obj.getIndex(), csObjs);
+                }
+                csObjs.add(csObj);
+            }
+            return csObj;
+        }
+
+        Collection<CSObj> getObjects() {
+            return objMap.values();
+        }
+
+        Collection<CSObj> getCSObjsOf(Obj obj) {
+            List<CSObj> csObjs = obj.getIndex() < csObjsOfObj.size() ?
+                    csObjsOfObj.get(obj.getIndex()) : null;
+            return csObjs != null ? Collections.unmodifiableList(csObjs) : List.of();
+        }
+
+        Indexer<CSObj> getIndexer() {
+            return indexer;
+        }
+    }
+
+    /**
+     * Assigns dense indexes to methods, and to the variables and call sites
+     * in their IRs. The variables (call sites) of a method occupy a range of
+     * indexes which starts at the variable (statement) offset of the method.
+     */
+    private static class MethodIndexer {
+
+        private final Map<JMethod, MethodIndex> indexes = Maps.newMap(4096);
+
+        /**
+         * The method of last lookup, which is likely to be looked up again,
+         * as the variables and call sites of a method are usually processed
+         * together.
+         */
+        private MethodIndex last;
+
+        /**
+         * Number of indexes assigned to variables.
+         */
+        private int varCounter = 0;
+
+        /**
+         * Number of indexes assigned to call sites.
+         */
+        private int callSiteCounter = 0;
+
+        /**
+         * Indexes of the variables which are not in the IRs of their methods.
+         */
+        private final Map<Var, Integer> otherVars = Maps.newMap();
+
+        /**
+         * Indexes of the call sites which are not in the IRs of their methods.
+         */
+        private final Map<Invoke, Integer> otherCallSites = Maps.newMap();
+
+        private MethodIndex getMethodIndex(JMethod method) {
+            MethodIndex methodIndex = last;
+            if (methodIndex == null || methodIndex.method != method) {
+                methodIndex = indexes.get(method);
+                if (methodIndex == null) {
+                    methodIndex = new MethodIndex(method, indexes.size());
+                    indexes.put(method, methodIndex);
+                }
+                last = methodIndex;
+            }
+            return methodIndex;
+        }
+
+        private int getVarIndex(Var var) {
+            int index = var.getIndex();
+            if (index >= 0) {
+                MethodIndex methodIndex = getMethodIndex(var.getMethod());
+                if (methodIndex.vars == null) {
+                    methodIndex.vars = var.getMethod().getIR().getVars();
+                    methodIndex.varOffset = varCounter;
+                    varCounter += methodIndex.vars.size();
+                }
+                if (index < methodIndex.vars.size()
+                        && methodIndex.vars.get(index) == var) {
+                    return methodIndex.varOffset + index;
+                }
+            }
+            Integer otherIndex = otherVars.get(var);
+            if (otherIndex == null) {
+                otherIndex = varCounter++;
+                otherVars.put(var, otherIndex);
+            }
+            return otherIndex;
+        }
+
+        private int getCallSiteIndex(Invoke callSite) {
+            int index = callSite.getIndex();
+            if (index >= 0) {
+                MethodIndex methodIndex = getMethodIndex(callSite.getContainer());
+                if (methodIndex.stmts == null) {
+                    methodIndex.stmts = callSite.getContainer().getIR().getStmts();
+                    methodIndex.stmtOffset = callSiteCounter;
+                    callSiteCounter += methodIndex.stmts.size();
+                }
+                if (index < methodIndex.stmts.size()
+                        && methodIndex.stmts.get(index) == callSite) {
+                    return methodIndex.stmtOffset + index;
+                }
+            }
+            Integer otherIndex = otherCallSites.get(callSite);
+            if (otherIndex == null) {
+                otherIndex = callSiteCounter++;
+                otherCallSites.put(callSite, otherIndex);
+            }
+            return otherIndex;
+        }
+    }
+
+    /**
+     * Index of a method, and the offsets of the indexes of
+     * the variables and statements in its IR.
+     */
+    private static class MethodIndex {
+
+        private final JMethod method;
+
+        private final int index;
+
+        private List<Var> vars;
+
+        private int varOffset;
+
+        private List<Stmt> stmts;
+
+        private int stmtOffset;
+
+        private MethodIndex(JMethod method, int index) {
+            this.method = method;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Assigns dense indexes to elements (e.g., contexts and fields)
+     * which do not have indexes of their own.
+     */
+    private static class ElementIndexer<E> {
+
+        private final Map<E, Integer> indexes;
+
+        private ElementIndexer(int initialCapacity) {
+            indexes = Maps.newMap(initialCapacity);
+        }
+
+        /**
+         * @return the index of given element. If the element has not
+         * been indexed, it is given a new index.
+         */
+        private int getIndex(E e) {
+            Integer index = indexes.get(e);
+            if (index == null) {
+                index = indexes.size();
+                indexes.put(e, index);
+            }
+            return index;
+        }
+    }
+}
@@ -24,14 +24,30 @@ package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.cs.context.ContextFactory;
+import pascal.taie.analysis.pta.core.cs.context.IndexedContext;
 import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.heap.NewObj;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.ConfigException;
 
 abstract class AbstractContextSelector<T> implements ContextSelector {
 
-    protected final ContextFactory<T> factory = new TrieContext.Factory<>();
+    protected final ContextFactory<T> factory;
+
+    /**
+     * @param contextFactory kind of the contexts created by this selector,
+     *                       i.e., "trie" ({@link TrieContext}) or
+     *                       "index" ({@link IndexedContext}).
+     */
+    AbstractContextSelector(String contextFactory) {
+        factory = switch (contextFactory) {
+            case "trie" -> new TrieContext.Factory<>();
+            case "index" -> new IndexedContext.Factory<>();
+            default -> throw new ConfigException(
+                    "Unknown context factory: " + contextFactory);
+        };
+    }
 
     @Override
     public Context getEmptyContext() {
@@ -36,6 +36,10 @@ import pascal.taie.language.classes.JMethod;
  */
 class ContextInsensitiveSelector extends AbstractContextSelector<Void> {
 
+    ContextInsensitiveSelector(String contextFactory) {
+        super(contextFactory);
+    }
+
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
         return getEmptyContext();
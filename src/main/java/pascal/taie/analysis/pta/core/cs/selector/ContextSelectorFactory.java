@@ -38,11 +38,16 @@ import java.util.function.Predicate;
  */
 public class ContextSelectorFactory {
 
+    /**
+     * Kind of the contexts created by the selectors if it is not given.
+     */
+    private static final String DEFAULT_CONTEXT_FACTORY = "trie";
+
     /**
      * @return selector for context insensitivity.
      */
     public static ContextSelector makeCISelector() {
-        return new ContextInsensitiveSelector();
+        return new ContextInsensitiveSelector(DEFAULT_CONTEXT_FACTORY);
     }
 
     /**
@@ -50,8 +55,18 @@ public class ContextSelectorFactory {
      * The returned selector applies the same variant for all methods.
      */
     public static ContextSelector makePlainSelector(String cs) {
+        return makePlainSelector(cs, DEFAULT_CONTEXT_FACTORY);
+    }
+
+    /**
+     * @param contextFactory kind of the contexts created by the selector,
+     *                       i.e., "trie" or "index".
+     * @return a context selector for given context sensitivity variant.
+     * The returned selector applies the same variant for all methods.
+     */
+    public static ContextSelector makePlainSelector(String cs, String contextFactory) {
         if (cs.equals("ci")) {
-            return new ContextInsensitiveSelector();
+            return new ContextInsensitiveSelector(contextFactory);
         } else {
             try {
                 // we expect that the argument of context-sensitivity variant
@@ -70,8 +85,9 @@ public class ContextSelectorFactory {
                 String selectorName = ContextSelectorFactory.class.getPackageName() +
                         ".K" + kind + "Selector";
                 Class<?> c = Class.forName(selectorName);
-                Constructor<?> ctor = c.getConstructor(int.class, int.class);
-                return (ContextSelector) ctor.newInstance(k, hk);
+                Constructor<?> ctor = c.getConstructor(
+                        int.class, int.class, String.class);
+                return (ContextSelector) ctor.newInstance(k, hk, contextFactory);
             } catch (RuntimeException e) {
                 throw new ConfigException("Unexpected context-sensitivity variants: " + cs, e);
             } catch (ClassNotFoundException | NoSuchMethodException |
@@ -89,7 +105,19 @@ public class ContextSelectorFactory {
      */
     public static ContextSelector makeSelectiveSelector(
             String cs, Set<JMethod> csMethods) {
-        return makeSelectiveSelector(cs, csMethods::contains, o -> true);
+        return makeSelectiveSelector(cs, csMethods, DEFAULT_CONTEXT_FACTORY);
+    }
+
+    /**
+     * @return a selective context selector which applies given context sensitivity
+     * variant (specified by cs) to set of methods (specified by csMethods),
+     * and cs to all objects. The contexts are created by given kind of
+     * context factory.
+     */
+    public static ContextSelector makeSelectiveSelector(
+            String cs, Set<JMethod> csMethods, String contextFactory) {
+        return new SelectiveSelector(makePlainSelector(cs, contextFactory),
+                csMethods::contains, o -> true);
     }
 
     /**
@@ -107,6 +135,16 @@ public class ContextSelectorFactory {
      * variants to the methods according to given map.
      */
     public static ContextSelector makeGuidedSelector(Map<JMethod, String> csMap) {
-        return new GuidedSelector(csMap);
+        return makeGuidedSelector(csMap, DEFAULT_CONTEXT_FACTORY);
+    }
+
+    /**
+     * @return a guided context selector which applies the context sensitivity
+     * variants to the methods according to given map. The contexts are
+     * created by given kind of context factory.
+     */
+    public static ContextSelector makeGuidedSelector(
+            Map<JMethod, String> csMap, String contextFactory) {
+        return new GuidedSelector(csMap, contextFactory);
     }
 }
@@ -30,8 +30,8 @@ import pascal.taie.language.classes.JMethod;
 
 class KCallSelector extends KLimitingSelector<Invoke> {
 
-    public KCallSelector(int k, int hk) {
-        super(k, hk);
+    public KCallSelector(int k, int hk, String contextFactory) {
+        super(k, hk, contextFactory);
     }
 
     @Override
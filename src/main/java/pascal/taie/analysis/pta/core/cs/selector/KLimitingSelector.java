@@ -46,8 +46,10 @@ abstract class KLimitingSelector<T> extends AbstractContextSelector<T> {
     /**
      * @param k  k-limit for method contexts.
      * @param hk k-limit for heap contexts.
+     * @param contextFactory kind of the contexts created by this selector.
      */
-    KLimitingSelector(int k, int hk) {
+    KLimitingSelector(int k, int hk, String contextFactory) {
+        super(contextFactory);
         this.limit = k;
         this.hLimit = hk;
     }
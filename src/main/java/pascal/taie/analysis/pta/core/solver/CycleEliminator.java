@@ -0,0 +1,194 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.solver;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.SCC;
+import pascal.taie.util.graph.SimpleGraph;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Detects cycles in pointer flow graph on the fly, so that the pointers
+ * in each cycle can be merged and share one points-to set.
+ * <p>
+ * Only the cycles that consist of copy edges (i.e., the edges whose
+ * only transfer is {@link Identity}) between the pointers without
+ * filters (see {@link Pointer#getFilters()}) are merged, as all pointers
+ * in such a cycle must have the same points-to set. The edges with
+ * {@link TypeFilter} or other transfers never make cycles. If a filter
+ * is added to a pointer after it has been merged, the solver splits
+ * the merged pointers, so that the filter takes effect.
+ * <p>
+ * Cycles are detected lazily (Hardekopf and Lin, PLDI'07): when a
+ * pointer p receives new objects and one of its successors q already
+ * has the same number of objects as p, it is likely that p and q are in
+ * a cycle, and the detection is triggered on edge p -> q. Each edge
+ * triggers the detection at most once.
+ * <p>
+ * The pointers in detected cycles are merged by {@link PointerMerger}.
+ * Note that the edges of the merged pointers remain in the pointer flow
+ * graph unchanged.
+ */
+final class CycleEliminator {
+
+    private final PointerMerger merger;
+
+    /**
+     * Edges that have triggered cycle detection.
+     */
+    private final Set<PointerFlowEdge> checkedEdges = Sets.newSet();
+
+    /**
+     * Edges that are going to trigger cycle detection.
+     */
+    private final Deque<PointerFlowEdge> candidates = new ArrayDeque<>();
+
+    /**
+     * Number of cycles detected.
+     */
+    private int cycles = 0;
+
+    CycleEliminator(PointerMerger merger) {
+        this.merger = merger;
+    }
+
+    /**
+     * Checks out edges of given representative, which just received new
+     * objects, and records the edges that may be in cycles.
+     */
+    void checkEdges(Pointer rep) {
+        PointsToSet pts = rep.getPointsToSet();
+        for (Pointer member : merger.getMembers(rep)) {
+            for (PointerFlowEdge edge : member.getOutEdges()) {
+                if (isCopyEdge(edge)) {
+                    Pointer target = merger.getRepresentative(edge.target());
+                    PointsToSet targetPts = target.getPointsToSet();
+                    if (target != rep && targetPts != null
+                            && targetPts.size() == pts.size()
+                            && checkedEdges.add(edge)) {
+                        candidates.add(edge);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Detects cycles on the recorded edges.
+     *
+     * @return the representatives in the next detected cycle,
+     * or {@code null} if there is no more cycle.
+     */
+    List<Pointer> pollCycle() {
+        while (!candidates.isEmpty()) {
+            PointerFlowEdge edge = candidates.poll();
+            Pointer source = merger.getRepresentative(edge.source());
+            Pointer target = merger.getRepresentative(edge.target());
+            if (source != target) {
+                List<Pointer> cycle = findCycle(source, target);
+                if (cycle != null) {
+                    ++cycles;
+                    return cycle;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the cycle that contains edge source -> target.
+     *
+     * @return the representatives in the cycle, or {@code null}
+     * if the edge is not in any cycle.
+     */
+    private List<Pointer> findCycle(Pointer source, Pointer target) {
+        // build the subgraph (of representatives and copy edges)
+        // which is reachable from target
+        SimpleGraph<Pointer> graph = new SimpleGraph<>();
+        graph.addNode(target);
+        Deque<Pointer> workList = new ArrayDeque<>();
+        workList.push(target);
+        while (!workList.isEmpty()) {
+            Pointer rep = workList.pop();
+            for (Pointer succ : getCopySuccsOf(rep)) {
+                if (!graph.hasNode(succ)) {
+                    workList.push(succ);
+                }
+                graph.addEdge(rep, succ);
+            }
+        }
+        if (!graph.hasNode(source)) {
+            return null;
+        }
+        for (List<Pointer> component : new SCC<>(graph).getComponents()) {
+            if (component.contains(source)) {
+                return component.size() > 1 ? component : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the representatives of the successors of given representative
+     * along the copy edges.
+     */
+    private Set<Pointer> getCopySuccsOf(Pointer rep) {
+        Set<Pointer> succs = Sets.newHybridSet();
+        for (Pointer member : merger.getMembers(rep)) {
+            for (PointerFlowEdge edge : member.getOutEdges()) {
+                if (isCopyEdge(edge)) {
+                    Pointer succ = merger.getRepresentative(edge.target());
+                    if (succ != rep) {
+                        succs.add(succ);
+                    }
+                }
+            }
+        }
+        return succs;
+    }
+
+    /**
+     * @return {@code true} if given edge propagates all objects of its
+     * source to its target, and both source and target can be merged.
+     */
+    static boolean isCopyEdge(PointerFlowEdge edge) {
+        Set<Transfer> transfers = edge.getTransfers();
+        return transfers.size() == 1
+                && transfers.contains(Identity.INSTANCE)
+                && edge.source().getFilters().isEmpty()
+                && edge.target().getFilters().isEmpty();
+    }
+
+    /**
+     * @return number of cycles that have been detected.
+     */
+    int getCollapsedCycles() {
+        return cycles;
+    }
+}
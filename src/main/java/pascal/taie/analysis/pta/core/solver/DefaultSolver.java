@@ -51,6 +51,7 @@ import pascal.taie.analysis.pta.plugin.Plugin;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.CastExp;
 import pascal.taie.ir.exp.InvokeExp;
@@ -83,13 +84,17 @@ import pascal.taie.language.type.TypeSystem;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Sets;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 import static pascal.taie.language.classes.Signatures.FINALIZE;
 import static pascal.taie.language.classes.Signatures.FINALIZER_REGISTER;
@@ -108,6 +113,13 @@ public class DefaultSolver implements Solver {
      */
     private static final long UNLIMITED = -1;
 
+    /**
+     * Batches of pointer entries smaller than this threshold are
+     * propagated by the solver thread directly, as dispatching them
+     * to the worker threads costs more than it saves.
+     */
+    private static final int PARALLEL_THRESHOLD = 32;
+
     private final AnalysisOptions options;
 
     private final HeapModel heapModel;
@@ -122,6 +134,8 @@ public class DefaultSolver implements Solver {
 
     private final PointsToSetFactory ptsFactory;
 
+    private final TypeMasks typeMasks;
+
     private final PropagateTypes propTypes;
 
     /**
@@ -136,6 +150,18 @@ public class DefaultSolver implements Solver {
 
     private TimeLimiter timeLimiter;
 
+    /**
+     * Number of worker threads for propagating points-to sets.
+     * If it is 1, the work list is processed sequentially.
+     */
+    private final int parallelism;
+
+    /**
+     * Pool of worker threads, which is used only when {@link #parallelism}
+     * is larger than 1.
+     */
+    private ForkJoinPool workerPool;
+
     /**
      * Whether the analysis has reached time limit.
      */
@@ -145,10 +171,48 @@ public class DefaultSolver implements Solver {
 
     private WorkList workList;
 
+    /**
+     * Number of propagations which find no new objects.
+     */
+    private long wastedPropagations;
+
+    /**
+     * Time (in nanoseconds) that parallel solver spends on propagating
+     * points-to sets by worker threads, and on the remaining work
+     * which runs on the solver thread.
+     */
+    private long concurrentTime, serialTime;
+
     private CSCallGraph callGraph;
 
     private PointerFlowGraph pointerFlowGraph;
 
+    /**
+     * Maintains the pointers that share points-to sets.
+     * It is {@code null} if neither cycle elimination nor
+     * variable substitution is enabled.
+     */
+    private PointerMerger pointerMerger;
+
+    /**
+     * Detects the cycles of pointer flow graph.
+     * It is {@code null} if cycle elimination is disabled.
+     */
+    private CycleEliminator cycleEliminator;
+
+    /**
+     * Finds the variables that must have the same points-to set.
+     * It is {@code null} if variable substitution is disabled.
+     */
+    private VariableSubstitution variableSubstitution;
+
+    /**
+     * Copy-defined variables (see {@link VariableSubstitution}) that receive
+     * objects not via their copies, which are never merged by
+     * variable substitution.
+     */
+    private Set<CSVar> irregularVars;
+
     private Set<JMethod> reachableMethods;
 
     /**
@@ -174,12 +238,32 @@ public class DefaultSolver implements Solver {
         this.csManager = csManager;
         hierarchy = World.get().getClassHierarchy();
         typeSystem = World.get().getTypeSystem();
-        ptsFactory = new PointsToSetFactory(csManager.getObjectIndexer());
+        ptsFactory = new PointsToSetFactory(csManager.getObjectIndexer(),
+                options.getString("pts-set"), options.getBoolean("pts-sharing"),
+                options.getString("pts-spill-dir"), options.getInt("pts-spill-memory"));
+        typeMasks = new TypeMasks(typeSystem, ptsFactory::make);
         propTypes = new PropagateTypes(
                 (List<String>) options.get("propagate-types"),
                 typeSystem);
         onlyApp = options.getBoolean("only-app");
         timeLimit = options.getInt("time-limit");
+        parallelism = getParallelism(options);
+    }
+
+    private static int getParallelism(AnalysisOptions options) {
+        String solver = options.getString("solver");
+        switch (solver) {
+            case "sequential" -> {
+                return 1;
+            }
+            case "parallel" -> {
+                int threads = options.getInt("solver-threads");
+                return threads > 0 ? threads
+                        : Runtime.getRuntime().availableProcessors();
+            }
+            default -> throw new ConfigException(
+                    "Unknown pointer analysis solver: " + solver);
+        }
     }
 
     @Override
@@ -221,7 +305,7 @@ public class DefaultSolver implements Solver {
     public PointsToSet getPointsToSetOf(Pointer pointer) {
         PointsToSet pts = pointer.getPointsToSet();
         if (pts == null) {
-            pts = ptsFactory.make();
+            pts = ptsFactory.makeForPointer();
             pointer.setPointsToSet(pts);
         }
         return pts;
@@ -232,6 +316,11 @@ public class DefaultSolver implements Solver {
         return ptsFactory.make();
     }
 
+    @Override
+    public PointsToSet filterByType(PointsToSet pts, Type type) {
+        return typeMasks.filter(pts, type);
+    }
+
     @Override
     public void setPlugin(Plugin plugin) {
         this.plugin = plugin;
@@ -254,7 +343,18 @@ public class DefaultSolver implements Solver {
     private void initialize() {
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph(csManager);
-        workList = new WorkList();
+        workList = WorkList.make(options.getString("work-list"), pointerFlowGraph);
+        wastedPropagations = 0;
+        concurrentTime = serialTime = 0;
+        boolean cycleElimination = options.getBoolean("cycle-elimination");
+        boolean varSubstitution = options.getBoolean("variable-substitution");
+        pointerMerger = cycleElimination || varSubstitution
+                ? new PointerMerger() : null;
+        cycleEliminator = cycleElimination
+                ? new CycleEliminator(pointerMerger) : null;
+        variableSubstitution = varSubstitution
+                ? new VariableSubstitution(propTypes::isAllowed) : null;
+        irregularVars = Sets.newSet();
         reachableMethods = Sets.newSet();
         initializedClasses = Sets.newSet();
         ignoredMethods = Sets.newSet();
@@ -264,6 +364,10 @@ public class DefaultSolver implements Solver {
             timeLimiter = new TimeLimiter(timeLimit);
             timeLimiter.countDown();
         }
+        if (parallelism > 1) {
+            workerPool = new ForkJoinPool(parallelism);
+            logger.info("Pointer analysis runs with {} worker threads", parallelism);
+        }
         plugin.onStart();
     }
 
@@ -307,25 +411,13 @@ public class DefaultSolver implements Solver {
     private void analyze() {
         while (!workList.isEmpty() && !isTimeout) {
             // phase starts
-            while (!workList.isEmpty() && !isTimeout) {
-                WorkList.Entry entry = workList.pollEntry();
-                if (entry instanceof WorkList.PointerEntry pEntry) {
-                    Pointer p = pEntry.pointer();
-                    PointsToSet pts = pEntry.pointsToSet();
-                    PointsToSet diff = propagate(p, pts);
-                    if (!diff.isEmpty() && p instanceof CSVar v) {
-                        processInstanceStore(v, diff);
-                        processInstanceLoad(v, diff);
-                        processArrayStore(v, diff);
-                        processArrayLoad(v, diff);
-                        processCall(v, diff);
-                        plugin.onNewPointsToSet(v, diff);
-                    }
-                } else if (entry instanceof WorkList.CallEdgeEntry eEntry) {
-                    processCallEdge(eEntry.edge());
-                }
+            if (workerPool != null) {
+                processWorkListInParallel();
+            } else {
+                processWorkList();
             }
             plugin.onPhaseFinish();
+            ptsFactory.onPhaseFinish();
         }
         if (!workList.isEmpty() && isTimeout) {
             logger.warn("Pointer analysis stops early as it reaches time limit ({} seconds)," +
@@ -333,15 +425,398 @@ public class DefaultSolver implements Solver {
         } else if (timeLimiter != null) { // finish normally but time limiter is still running
             timeLimiter.stop();
         }
+        if (workerPool != null) {
+            workerPool.shutdown();
+            // only the propagation is parallelized, thus the share of
+            // serial time bounds the speedup of parallel solver
+            logger.info("Parallel solver: {} ms propagating points-to sets" +
+                            " by worker threads, {} ms on solver thread",
+                    concurrentTime / 1_000_000, serialTime / 1_000_000);
+        }
+        logger.info("Work list ({}): {} pointer entries polled, {} entries merged," +
+                        " {} propagations found no new objects",
+                options.getString("work-list"), workList.getPops(),
+                workList.getMerges(), wastedPropagations);
+        if (cycleEliminator != null) {
+            logger.info("Cycle elimination: collapsed {} cycles",
+                    cycleEliminator.getCollapsedCycles());
+        }
+        if (variableSubstitution != null) {
+            logger.info("Variable substitution: substituted {} variables",
+                    variableSubstitution.getSubstitutedVars());
+        }
+        if (pointerMerger != null) {
+            logger.info("Merged {} pointers into their representatives," +
+                            " split {} groups of merged pointers",
+                    pointerMerger.getMergedPointers(),
+                    pointerMerger.getSplitGroups());
+        }
+        if (ptsFactory.getOffHeapBytes() > 0) {
+            logger.info("Off-heap points-to sets: reserved {} MB",
+                    ptsFactory.getOffHeapBytes() >> 20);
+        }
+        if (options.getBoolean("pts-sharing")) {
+            PointsToSetFactory.SharingStatistics stats = ptsFactory.canonicalize(
+                    csManager.pointers()
+                            .map(Pointer::getPointsToSet)
+                            .filter(Objects::nonNull)::iterator);
+            logger.info("Points-to set sharing: {} points-to sets use {} underlying sets" +
+                            " ({} after canonicalization), which store {} of {} objects",
+                    stats.sets(), stats.storagesBefore(), stats.storagesAfter(),
+                    stats.storedObjects(), stats.objects());
+        }
         plugin.onFinish();
     }
 
+    /**
+     * Processes work list entries one by one until the work list is empty.
+     */
+    private void processWorkList() {
+        while (!workList.isEmpty() && !isTimeout) {
+            WorkList.Entry entry = workList.pollEntry();
+            if (entry instanceof WorkList.PointerEntry pEntry) {
+                Pointer p = getRepresentative(pEntry.pointer());
+                PointsToSet pts = pEntry.pointsToSet();
+                PointsToSet diff = propagate(p, pts);
+                processNewPointsTo(p, diff);
+                collapseCycles();
+            } else if (entry instanceof WorkList.CallEdgeEntry eEntry) {
+                processCallEdge(eEntry.edge());
+            }
+        }
+    }
+
+    /**
+     * Processes work list entries batch by batch until the work list
+     * is empty. In each batch, the pending points-to sets of all pointers
+     * in the work list are propagated by the worker threads concurrently;
+     * after that, the solver thread handles the consequences of the
+     * propagation (i.e., new work list entries, PFG edges, call edges, and
+     * plugin events) in the order of the batch. Thus, the solver states
+     * other than the points-to sets of the pointers in the current batch
+     * are never modified concurrently, and the results are the same as
+     * the ones of {@link #processWorkList()}.
+     * <p>
+     * Note that only the propagation is parallelized: statement processing,
+     * call resolution, call edge processing, and plugin callbacks are
+     * still performed by the solver thread one by one, which limits
+     * the speedup of this mode.
+     */
+    private void processWorkListInParallel() {
+        while (!workList.isEmpty() && !isTimeout) {
+            long start = System.nanoTime();
+            // for correctness, call edges must be processed
+            // prior to the pointer entries
+            while (workList.hasCallEdges() && !isTimeout) {
+                processCallEdge(workList.pollCallEdge());
+            }
+            List<WorkList.PointerEntry> entries = getRepresentativeEntries(
+                    workList.pollPointerEntries());
+            Propagation[] propagations = new Propagation[entries.size()];
+            IntStream indexes = IntStream.range(0, entries.size());
+            long propagationStart = System.nanoTime();
+            if (entries.size() < PARALLEL_THRESHOLD) {
+                indexes.forEach(i -> propagations[i] = propagate(entries.get(i)));
+            } else {
+                workerPool.submit(() -> indexes.parallel().forEach(i ->
+                        propagations[i] = propagate(entries.get(i)))).join();
+            }
+            long propagationEnd = System.nanoTime();
+            concurrentTime += propagationEnd - propagationStart;
+            for (Propagation propagation : propagations) {
+                Pointer p = propagation.pointer();
+                PointsToSet diff = propagation.diff();
+                for (int i = 0; i < propagation.targets().size(); ++i) {
+                    addEntry(propagation.targets().get(i),
+                            propagation.targetSets().get(i));
+                }
+                for (PointerFlowEdge edge : propagation.deferredEdges()) {
+                    edge.getTransfers().forEach(transfer -> {
+                        if (!isConcurrent(transfer)) {
+                            addEntry(edge.target(), transfer.apply(edge, diff));
+                        }
+                    });
+                }
+                processNewPointsTo(p, propagation.members(), diff);
+            }
+            collapseCycles();
+            serialTime += propagationStart - start
+                    + System.nanoTime() - propagationEnd;
+        }
+    }
+
+    /**
+     * Replaces the pointers in given entries by their representatives,
+     * so that no two entries in a batch modify the same points-to set.
+     */
+    private List<WorkList.PointerEntry> getRepresentativeEntries(
+            List<WorkList.PointerEntry> entries) {
+        if (pointerMerger == null || !pointerMerger.hasMergedPointers()) {
+            return entries;
+        }
+        Map<Pointer, PointsToSet> repEntries = Maps.newLinkedHashMap();
+        for (WorkList.PointerEntry entry : entries) {
+            Pointer rep = getRepresentative(entry.pointer());
+            PointsToSet pts = repEntries.get(rep);
+            if (pts == null) {
+                repEntries.put(rep, entry.pointsToSet());
+            } else {
+                // the points-to sets in entries are owned by the work list,
+                // thus they can be modified safely
+                pts.addAll(entry.pointsToSet());
+            }
+        }
+        List<WorkList.PointerEntry> result = new ArrayList<>(repEntries.size());
+        repEntries.forEach((p, pts) -> result.add(new WorkList.PointerEntry(p, pts)));
+        return result;
+    }
+
+    /**
+     * Result of propagating a work list entry on a worker thread.
+     *
+     * @param pointer       the pointer of the work list entry
+     * @param members       the pointers represented by the pointer, which
+     *                      are captured before any callbacks of the batch,
+     *                      as the group may be split by the callbacks
+     * @param diff          the new objects pointed to by the pointer
+     * @param targets       the PFG successors of the pointer
+     * @param targetSets    the points-to sets to be added to {@code targets}
+     * @param deferredEdges the out edges whose transfers must be applied
+     *                      by the solver thread
+     */
+    private record Propagation(Pointer pointer, Collection<Pointer> members,
+                               PointsToSet diff,
+                               List<Pointer> targets,
+                               List<PointsToSet> targetSets,
+                               List<PointerFlowEdge> deferredEdges) {
+    }
+
+    /**
+     * Propagates the points-to set of given entry to pt(pointer), and
+     * applies the transfers of the out edges of the pointer. This method
+     * may be executed by worker threads, thus it only modifies pt(pointer)
+     * and does not add entries to the work list.
+     */
+    private Propagation propagate(WorkList.PointerEntry entry) {
+        Pointer pointer = entry.pointer();
+        PointsToSet pointsToSet = filter(pointer, entry.pointsToSet());
+        PointsToSet diff = getPointsToSetOf(pointer).addAllDiff(pointsToSet);
+        List<Pointer> targets = new ArrayList<>();
+        List<PointsToSet> targetSets = new ArrayList<>();
+        List<PointerFlowEdge> deferredEdges = new ArrayList<>(0);
+        if (!diff.isEmpty()) {
+            getOutEdgesOf(pointer).forEach(edge -> {
+                boolean deferred = false;
+                for (Transfer transfer : edge.getTransfers()) {
+                    if (isConcurrent(transfer)) {
+                        targets.add(edge.target());
+                        targetSets.add(transfer.apply(edge, diff));
+                    } else {
+                        deferred = true;
+                    }
+                }
+                if (deferred) {
+                    deferredEdges.add(edge);
+                }
+            });
+        }
+        return new Propagation(pointer, List.copyOf(getMembers(pointer)),
+                diff, targets, targetSets, deferredEdges);
+    }
+
+    /**
+     * @return {@code true} if given transfer can be applied by worker threads.
+     * The built-in transfers are side effect free; other transfers
+     * (e.g., the ones added by plugins) may modify shared states of the
+     * analysis, thus they are always applied by the solver thread.
+     */
+    private static boolean isConcurrent(Transfer transfer) {
+        return transfer == Identity.INSTANCE || transfer instanceof TypeFilter;
+    }
+
+    /**
+     * Processes the new objects pointed to by given pointer.
+     */
+    private void processNewPointsTo(Pointer pointer, PointsToSet diff) {
+        // copy the members as the group may be split by the callbacks
+        processNewPointsTo(pointer, List.copyOf(getMembers(pointer)), diff);
+    }
+
+    private void processNewPointsTo(Pointer pointer, Collection<Pointer> members,
+                                    PointsToSet diff) {
+        if (diff.isEmpty()) {
+            ++wastedPropagations;
+        } else {
+            processNewPointsTo(members, diff);
+            if (cycleEliminator != null) {
+                cycleEliminator.checkEdges(getRepresentative(pointer));
+            }
+        }
+    }
+
+    private void processNewPointsTo(Collection<Pointer> pointers, PointsToSet diff) {
+        for (Pointer pointer : pointers) {
+            if (pointer instanceof CSVar v) {
+                processInstanceStore(v, diff);
+                processInstanceLoad(v, diff);
+                processArrayStore(v, diff);
+                processArrayLoad(v, diff);
+                processCall(v, diff);
+                plugin.onNewPointsToSet(v, diff);
+            }
+        }
+    }
+
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
      * returns the difference set of pointsToSet and pt(pointer).
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
         logger.trace("Propagate {} to {}", pointsToSet, pointer);
+        pointsToSet = filter(pointer, pointsToSet);
+        PointsToSet diff = getPointsToSetOf(pointer).addAllDiff(pointsToSet);
+        if (!diff.isEmpty()) {
+            propagateToSuccessors(getOutEdgesOf(pointer), diff);
+        }
+        return diff;
+    }
+
+    private void propagateToSuccessors(
+            Collection<PointerFlowEdge> edges, PointsToSet diff) {
+        edges.forEach(edge -> {
+            Pointer target = edge.target();
+            edge.getTransfers().forEach(transfer ->
+                    addEntry(target, transfer.apply(edge, diff)));
+        });
+    }
+
+    /**
+     * Adds the objects flowing along pointer flow edges to the work list.
+     * Different from {@link #addPointsTo(Pointer, PointsToSet)}, this method
+     * does not check the flows for variable substitution, as the flows
+     * along edges are checked when the edges are added.
+     */
+    private void addEntry(Pointer pointer, PointsToSet pts) {
+        workList.addEntry(getRepresentative(pointer), pts);
+    }
+
+    /**
+     * @return the pointers that share points-to set with given
+     * representative pointer.
+     */
+    private Collection<Pointer> getMembers(Pointer rep) {
+        return pointerMerger != null
+                ? pointerMerger.getMembers(rep) : List.of(rep);
+    }
+
+    private Pointer getRepresentative(Pointer pointer) {
+        return pointerMerger != null
+                ? pointerMerger.getRepresentative(pointer) : pointer;
+    }
+
+    /**
+     * @return the out edges of the pointers represented by given
+     * representative, excluding the copy edges between these pointers.
+     */
+    private Collection<PointerFlowEdge> getOutEdgesOf(Pointer rep) {
+        if (pointerMerger == null || !pointerMerger.isMerged(rep)) {
+            return pointerFlowGraph.getOutEdgesOf(rep);
+        }
+        List<PointerFlowEdge> edges = new ArrayList<>();
+        for (Pointer member : pointerMerger.getMembers(rep)) {
+            for (PointerFlowEdge edge : member.getOutEdges()) {
+                if (!CycleEliminator.isCopyEdge(edge)
+                        || getRepresentative(edge.target()) != rep) {
+                    edges.add(edge);
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Merges the pointers in the cycles detected by {@link #cycleEliminator}.
+     */
+    private void collapseCycles() {
+        if (cycleEliminator == null) {
+            return;
+        }
+        List<Pointer> cycle;
+        while ((cycle = cycleEliminator.pollCycle()) != null) {
+            mergePointers(cycle);
+        }
+    }
+
+    /**
+     * Merges the pointers represented by given representatives,
+     * and lets them share one points-to set.
+     */
+    private void mergePointers(List<Pointer> reps) {
+        // make all pointers point to the union of their points-to sets
+        PointsToSet union = makePointsToSet();
+        reps.forEach(rep -> union.addAll(getPointsToSetOf(rep)));
+        List<Collection<Pointer>> oldMembers = new ArrayList<>(reps.size());
+        List<PointsToSet> diffs = new ArrayList<>(reps.size());
+        for (Pointer rep : reps) {
+            oldMembers.add(List.copyOf(getMembers(rep)));
+            diffs.add(getPointsToSetOf(rep).addAllDiff(union));
+        }
+        Pointer newRep = pointerMerger.merge(reps);
+        PointsToSet pts = getPointsToSetOf(newRep);
+        getMembers(newRep).forEach(p -> p.setPointsToSet(pts));
+        // process the objects that are new to each part of merged pointers
+        for (int i = 0; i < reps.size(); ++i) {
+            PointsToSet diff = diffs.get(i);
+            if (!diff.isEmpty()) {
+                Collection<Pointer> members = oldMembers.get(i);
+                for (Pointer member : members) {
+                    propagateToSuccessors(member.getOutEdges()
+                            .stream()
+                            .filter(e -> !CycleEliminator.isCopyEdge(e)
+                                    || getRepresentative(e.target()) != newRep)
+                            .toList(), diff);
+                }
+                processNewPointsTo(members, diff);
+            }
+        }
+    }
+
+    /**
+     * Merges the variables of given method that must have the same
+     * points-to set, which are found by {@link #variableSubstitution}.
+     * This is done after the statements of the method are processed and
+     * the plugins are notified, but before any objects are propagated
+     * to the variables, so that the copies between the merged variables
+     * never propagate any objects. The variables with filters, and
+     * the copy-defined variables that receive objects not via copies
+     * (see {@link #checkSubstitution}), are not merged.
+     */
+    private void substituteVariables(CSMethod csMethod) {
+        if (variableSubstitution == null) {
+            return;
+        }
+        Context context = csMethod.getContext();
+        for (List<Var> group : variableSubstitution
+                .getEquivalentVars(csMethod.getMethod())) {
+            Set<Pointer> reps = Sets.newLinkedSet();
+            for (Var var : group) {
+                CSVar csVar = csManager.getCSVar(context, var);
+                // the pointers with filters are never merged
+                if (csVar.getFilters().isEmpty()
+                        && !irregularVars.contains(csVar)) {
+                    reps.add(getRepresentative(csVar));
+                }
+            }
+            if (reps.size() > 1) {
+                mergePointers(List.copyOf(reps));
+            }
+        }
+    }
+
+    /**
+     * Applies the filters of given pointer on pointsToSet.
+     */
+    private PointsToSet filter(Pointer pointer, PointsToSet pointsToSet) {
         Set<Predicate<CSObj>> filters = pointer.getFilters();
         if (!filters.isEmpty()) {
             // apply filters (of the pointer) on pointsToSet
@@ -349,15 +824,7 @@ public class DefaultSolver implements Solver {
                     .filter(o -> filters.stream().allMatch(f -> f.test(o)))
                     .collect(ptsFactory::make, PointsToSet::addObject, PointsToSet::addAll);
         }
-        PointsToSet diff = getPointsToSetOf(pointer).addAllDiff(pointsToSet);
-        if (!diff.isEmpty()) {
-            pointerFlowGraph.getOutEdgesOf(pointer).forEach(edge -> {
-                Pointer target = edge.target();
-                edge.getTransfers().forEach(transfer ->
-                        addPointsTo(target, transfer.apply(edge, diff)));
-            });
-        }
-        return diff;
+        return pointsToSet;
     }
 
     /**
@@ -468,28 +935,28 @@ public class DefaultSolver implements Solver {
         Context context = recv.getContext();
         Var var = recv.getVar();
         for (Invoke callSite : var.getInvokes()) {
-            pts.forEach(recvObj -> {
-                // resolve callee
-                JMethod callee = CallGraphs.resolveCallee(
-                        recvObj.getObject().getType(), callSite);
-                if (callee != null) {
-                    // select context
-                    CSCallSite csCallSite = csManager.getCSCallSite(context, callSite);
-                    Context calleeContext = contextSelector.selectContext(
-                            csCallSite, recvObj, callee);
-                    // build call edge
-                    CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
-                    addCallEdge(new Edge<>(CallGraphs.getCallKind(callSite),
-                            csCallSite, csCallee));
-                    // pass receiver object to *this* variable
-                    if (!isIgnored(callee)) {
-                        addVarPointsTo(calleeContext, callee.getIR().getThis(),
-                                recvObj);
-                    }
-                } else {
-                    plugin.onUnresolvedCall(recvObj, context, callSite);
-                }
-            });
+            // resolve callees of all receiver objects in bulk
+            CallGraphs.resolveCallees(callSite, pts,
+                    recvObj -> recvObj.getObject().getType(),
+                    (recvObj, callee) -> {
+                        if (callee != null) {
+                            // select context
+                            CSCallSite csCallSite = csManager.getCSCallSite(context, callSite);
+                            Context calleeContext = contextSelector.selectContext(
+                                    csCallSite, recvObj, callee);
+                            // build call edge
+                            CSMethod csCallee = csManager.getCSMethod(calleeContext, callee);
+                            addCallEdge(new Edge<>(CallGraphs.getCallKind(callSite),
+                                    csCallSite, csCallee));
+                            // pass receiver object to *this* variable
+                            if (!isIgnored(callee)) {
+                                addVarPointsTo(calleeContext, callee.getIR().getThis(),
+                                        recvObj);
+                            }
+                        } else {
+                            plugin.onUnresolvedCall(recvObj, context, callSite);
+                        }
+                    });
         }
     }
 
@@ -541,6 +1008,11 @@ public class DefaultSolver implements Solver {
      */
     private void processNewMethod(JMethod method) {
         if (reachableMethods.add(method)) {
+            if (variableSubstitution != null) {
+                // label the variables before processing the method,
+                // so that the flows into copy-defined variables are checked
+                variableSubstitution.getEquivalentVars(method);
+            }
             plugin.onNewMethod(method);
             method.getIR().forEach(stmt -> plugin.onNewStmt(stmt, method));
         }
@@ -740,7 +1212,8 @@ public class DefaultSolver implements Solver {
 
     @Override
     public void addPointsTo(Pointer pointer, PointsToSet pts) {
-        workList.addEntry(pointer, pts);
+        checkSubstitution(pointer, null, null);
+        addEntry(pointer, pts);
     }
 
     @Override
@@ -772,17 +1245,70 @@ public class DefaultSolver implements Solver {
 
     @Override
     public void addPointerFilter(Pointer pointer, Predicate<CSObj> filter) {
+        if (pointerMerger != null && pointerMerger.isMerged(pointer)) {
+            // the filter cannot be applied on the shared points-to set
+            splitPointers(pointer);
+        }
         pointer.addFilter(filter);
     }
 
     @Override
     public void addPFGEdge(PointerFlowEdge edge, Transfer transfer) {
+        checkSubstitution(edge.target(), edge, transfer);
         edge = pointerFlowGraph.addEdge(edge);
         if (edge != null && edge.addTransfer(transfer)) {
             PointsToSet targetSet = transfer.apply(
                     edge, getPointsToSetOf(edge.source()));
             if (!targetSet.isEmpty()) {
-                addPointsTo(edge.target(), targetSet);
+                addEntry(edge.target(), targetSet);
+            }
+        }
+    }
+
+    /**
+     * Checks the flow of objects into given pointer (via given edge and
+     * transfer, or added directly if edge is {@code null}). If the pointer
+     * is a copy-defined variable and the flow is not a copy in IR,
+     * then the pointer cannot be substituted by the variables that are
+     * equivalent in IR (see {@link VariableSubstitution}), thus it is
+     * excluded from the substitution, or split from the merged pointers.
+     */
+    private void checkSubstitution(Pointer pointer, @Nullable PointerFlowEdge edge,
+                                   @Nullable Transfer transfer) {
+        if (variableSubstitution != null
+                && pointer instanceof CSVar csVar
+                && variableSubstitution.isCopyDefined(csVar.getVar())) {
+            boolean isCopy = edge != null
+                    && edge.kind() == FlowKind.LOCAL_ASSIGN
+                    && transfer == Identity.INSTANCE
+                    && edge.source() instanceof CSVar source
+                    && source.getContext().equals(csVar.getContext())
+                    && variableSubstitution.isCopy(source.getVar(), csVar.getVar());
+            if (!isCopy && irregularVars.add(csVar)
+                    && pointerMerger.isMerged(csVar)) {
+                splitPointers(csVar);
+            }
+        }
+    }
+
+    /**
+     * Splits the pointers merged with given pointer, so that each of them
+     * has its own points-to set again, which is a copy of the shared
+     * points-to set. The pending objects of the merged pointers in
+     * the work list are added to each of them.
+     */
+    private void splitPointers(Pointer pointer) {
+        Pointer rep = getRepresentative(pointer);
+        PointsToSet pts = getPointsToSetOf(rep);
+        PointsToSet pending = workList.getPendingSet(rep);
+        for (Pointer member : pointerMerger.split(rep)) {
+            if (member != rep) {
+                PointsToSet copy = ptsFactory.makeForPointer();
+                copy.addAll(pts);
+                member.setPointsToSet(copy);
+                if (pending != null) {
+                    workList.addEntry(member, pending);
+                }
             }
         }
     }
@@ -841,6 +1367,9 @@ public class DefaultSolver implements Solver {
             processNewMethod(method);
             addStmts(csMethod, method.getIR().getStmts());
             plugin.onNewCSMethod(csMethod);
+            // substitute variables after the plugins process the method,
+            // so that the variables touched by the plugins are excluded
+            substituteVariables(csMethod);
         }
     }
 
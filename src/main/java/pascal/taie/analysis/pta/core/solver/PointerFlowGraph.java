@@ -40,6 +40,11 @@ public class PointerFlowGraph implements Graph<Pointer> {
 
     private final CSManager csManager;
 
+    /**
+     * Number of edges that have been added to this graph.
+     */
+    private long addedEdges = 0;
+
     PointerFlowGraph(CSManager csManager) {
         this.csManager = csManager;
     }
@@ -55,7 +60,20 @@ public class PointerFlowGraph implements Graph<Pointer> {
      * </ul>
      */
     public PointerFlowEdge addEdge(PointerFlowEdge edge) {
-        return edge.source().addEdge(edge);
+        PointerFlowEdge result = edge.source().addEdge(edge);
+        if (result == edge) {
+            ++addedEdges;
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of edges that have been added to this graph.
+     * As edges are never removed during propagation, this number can be
+     * used to check whether this graph has changed.
+     */
+    long getNumberOfAddedEdges() {
+        return addedEdges;
     }
 
     @Override
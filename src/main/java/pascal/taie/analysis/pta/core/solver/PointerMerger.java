@@ -0,0 +1,158 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.solver;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the pointers that are known to have the same points-to set,
+ * e.g., the pointers in a cycle of copy edges. Each group of merged
+ * pointers is represented by a representative pointer.
+ * <p>
+ * A group can be split again, e.g., when a filter is added to one of
+ * its pointers, so that the pointers no longer have the same points-to set.
+ * <p>
+ * This class only records which pointers are merged; it is the solver
+ * that lets the merged pointers share one points-to set.
+ */
+final class PointerMerger {
+
+    /**
+     * Maps merged pointers to their representatives.
+     */
+    private final Map<Pointer, Pointer> reps = Maps.newMap();
+
+    /**
+     * Maps representative pointers to the pointers merged into them
+     * (including the representatives themselves).
+     */
+    private final MultiMap<Pointer, Pointer> members = Maps.newMultiMap();
+
+    /**
+     * Number of groups that have been split.
+     */
+    private int splitGroups = 0;
+
+    /**
+     * @return the representative of given pointer. If the pointer has not
+     * been merged with other pointers, then it is the representative of itself.
+     */
+    Pointer getRepresentative(Pointer pointer) {
+        // this method may be called by the worker threads of parallel
+        // solver concurrently; this is safe as no pointers are merged
+        // or split at that time
+        Pointer rep = reps.get(pointer);
+        return rep != null ? rep : pointer;
+    }
+
+    /**
+     * @return the pointers that are represented by given representative.
+     */
+    Collection<Pointer> getMembers(Pointer rep) {
+        Set<Pointer> result = members.get(rep);
+        return result.isEmpty() ? List.of(rep) : result;
+    }
+
+    /**
+     * @return {@code true} if any pointers have been merged.
+     */
+    boolean hasMergedPointers() {
+        return !members.isEmpty();
+    }
+
+    /**
+     * @return {@code true} if given pointer has been merged with other pointers.
+     */
+    boolean isMerged(Pointer pointer) {
+        return reps.containsKey(pointer);
+    }
+
+    /**
+     * Merges the pointers represented by given representatives.
+     * The members of smaller groups are moved to the largest group,
+     * so that each pointer is moved O(log n) times.
+     *
+     * @return the representative of the merged pointers.
+     */
+    Pointer merge(List<Pointer> reps) {
+        Pointer newRep = reps.get(0);
+        for (Pointer rep : reps) {
+            if (getMembers(rep).size() > getMembers(newRep).size()) {
+                newRep = rep;
+            }
+        }
+        if (!isMerged(newRep)) {
+            this.reps.put(newRep, newRep);
+            members.put(newRep, newRep);
+        }
+        List<Pointer> movedMembers = new ArrayList<>();
+        for (Pointer rep : reps) {
+            if (rep != newRep) {
+                for (Pointer member : getMembers(rep)) {
+                    this.reps.put(member, newRep);
+                    movedMembers.add(member);
+                }
+                members.removeAll(rep);
+            }
+        }
+        members.putAll(newRep, movedMembers);
+        return newRep;
+    }
+
+    /**
+     * Splits the group of given representative, so that each pointer
+     * in the group becomes the representative of itself.
+     *
+     * @return the pointers in the split group.
+     */
+    Collection<Pointer> split(Pointer rep) {
+        Collection<Pointer> result = List.copyOf(getMembers(rep));
+        members.removeAll(rep);
+        result.forEach(reps::remove);
+        ++splitGroups;
+        return result;
+    }
+
+    /**
+     * @return number of pointers that are merged into
+     * their representatives.
+     */
+    int getMergedPointers() {
+        return members.size() - members.keySet().size();
+    }
+
+    /**
+     * @return number of groups that have been split.
+     */
+    int getSplitGroups() {
+        return splitGroups;
+    }
+}
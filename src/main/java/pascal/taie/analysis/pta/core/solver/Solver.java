@@ -77,6 +77,21 @@ public interface Solver {
      */
     PointsToSet makePointsToSet();
 
+    /**
+     * Filters out the objects whose types are NOT subtypes of given type.
+     *
+     * @return a new points-to set which contains the objects in {@code pts}
+     * whose types are subtypes of {@code type}.
+     */
+    default PointsToSet filterByType(PointsToSet pts, Type type) {
+        PointsToSet result = makePointsToSet();
+        pts.objects()
+                .filter(o -> TypeFilter.isAssignable(getTypeSystem(),
+                        o.getObject().getType(), type))
+                .forEach(result::addObject);
+        return result;
+    }
+
     /**
      * Sets plugin to this solver.
      */
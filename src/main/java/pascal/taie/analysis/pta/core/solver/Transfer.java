@@ -28,6 +28,10 @@ import pascal.taie.analysis.pta.pts.PointsToSet;
  * Transfer function on pointer flow edges.
  * For a given pointer flow edge "source" -> "target", the function defines
  * how the points-to facts of "source" node are propagated to the "target" node.
+ * <p>
+ * When the solver runs in parallel mode, the built-in transfers
+ * ({@link Identity} and {@link TypeFilter}) are applied by the worker
+ * threads, while other transfers are always applied by the solver thread.
  */
 @FunctionalInterface
 public interface Transfer {
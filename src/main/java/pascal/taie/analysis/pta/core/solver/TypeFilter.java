@@ -28,8 +28,6 @@ import pascal.taie.language.type.ReferenceType;
 import pascal.taie.language.type.Type;
 import pascal.taie.language.type.TypeSystem;
 
-import java.util.function.Supplier;
-
 /**
  * Transfer function that filters out the objects whose types are NOT
  * subtypes of specific type.
@@ -41,26 +39,23 @@ public class TypeFilter implements Transfer {
      */
     private final Type type;
 
-    private final TypeSystem typeSystem;
-
-    private final Supplier<PointsToSet> ptsFactory;
+    private final Solver solver;
 
     public TypeFilter(Type type, Solver solver) {
         this.type = type;
-        this.typeSystem = solver.getTypeSystem();
-        this.ptsFactory = solver::makePointsToSet;
+        this.solver = solver;
     }
 
     @Override
     public PointsToSet apply(PointerFlowEdge edge, PointsToSet input) {
-        PointsToSet result = ptsFactory.get();
-        input.objects()
-                .filter(o -> isAssignable(o.getObject().getType(), type))
-                .forEach(result::addObject);
-        return result;
+        return solver.filterByType(input, type);
     }
 
-    private boolean isAssignable(Type from, Type to) {
+    /**
+     * @return true if the objects of type {@code from} can be
+     * assigned to the variables of type {@code to}.
+     */
+    static boolean isAssignable(TypeSystem typeSystem, Type from, Type to) {
         return (from instanceof NullType)
                 ? to instanceof ReferenceType
                 : typeSystem.isSubtype(to, from);
@@ -0,0 +1,110 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.core.solver;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Filters points-to sets by types with masks. For each filter type,
+ * a mask records the objects whose types are subtypes of the type,
+ * so that filtering a large points-to set becomes a set intersection,
+ * which is bit-parallel for the bit-set-based points-to sets,
+ * instead of checking subtyping for every object in the set.
+ * <p>
+ * As the objects are created during the analysis, the masks are
+ * computed lazily: the objects which have not been checked against
+ * a type are checked when they reach a filter of the type for the
+ * first time.
+ */
+class TypeMasks {
+
+    /**
+     * The points-to sets smaller than this threshold are filtered
+     * object by object, which is cheaper than the set operations.
+     */
+    private static final int MASK_THRESHOLD = 32;
+
+    private final TypeSystem typeSystem;
+
+    private final Supplier<PointsToSet> ptsFactory;
+
+    private final ConcurrentMap<Type, Mask> masks = Maps.newConcurrentMap();
+
+    TypeMasks(TypeSystem typeSystem, Supplier<PointsToSet> ptsFactory) {
+        this.typeSystem = typeSystem;
+        this.ptsFactory = ptsFactory;
+    }
+
+    /**
+     * @return a new points-to set which contains the objects in {@code pts}
+     * whose types are subtypes of {@code type}.
+     */
+    PointsToSet filter(PointsToSet pts, Type type) {
+        if (pts.size() < MASK_THRESHOLD) {
+            PointsToSet result = ptsFactory.get();
+            pts.objects()
+                    .filter(o -> isAssignable(o, type))
+                    .forEach(result::addObject);
+            return result;
+        }
+        Mask mask = masks.computeIfAbsent(type, unused -> new Mask());
+        synchronized (mask) {
+            // adding pts to the checked objects gives the unchecked ones,
+            // which are usually none, without copying pts
+            for (CSObj obj : mask.checked.addAllDiff(pts)) {
+                if (isAssignable(obj, type)) {
+                    mask.accepted.addObject(obj);
+                }
+            }
+            // intersection copies the receiver, so copies the smaller set
+            return pts.size() <= mask.accepted.size() ?
+                    pts.intersect(mask.accepted) :
+                    mask.accepted.intersect(pts);
+        }
+    }
+
+    private boolean isAssignable(CSObj obj, Type type) {
+        return TypeFilter.isAssignable(typeSystem, obj.getObject().getType(), type);
+    }
+
+    private class Mask {
+
+        /**
+         * Objects which have been checked against the type of this mask.
+         */
+        private final PointsToSet checked = ptsFactory.get();
+
+        /**
+         * Objects whose types are subtypes of the type of this mask.
+         */
+        private final PointsToSet accepted = ptsFactory.get();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.solver;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.LValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.SCC;
+import pascal.taie.util.graph.SimpleGraph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Offline variable substitution (Hardekopf and Lin, SAS'07) for the
+ * variables of each method, based on hash-based value numbering (HVN).
+ * <p>
+ * The variables of a method are labeled by value numbers, so that the
+ * variables with the same value number must have the same points-to set
+ * (in the same context): a variable which is defined by a statement other
+ * than {@link Copy}, or which is {@code this} or a parameter, is labeled
+ * by a fresh value number; a variable which is only defined by copies is
+ * labeled by the set of value numbers of its copy sources, and the equal
+ * sets share the same value number. The variables in a cycle of copies
+ * are labeled together.
+ * <p>
+ * Only the variables whose objects are propagated by the solver (see
+ * {@link PropagateTypes}) are labeled. The labeling assumes that objects
+ * flow into a copy-defined variable only via its copies in IR, which
+ * may be broken by plugins (e.g., by adding objects or pointer flow edges
+ * to the variable). Thus, the solver checks the flows into the
+ * copy-defined variables by {@link #isCopyDefined(Var)} and
+ * {@link #isCopy(Var, Var)}, and does not merge (or splits)
+ * the variables whose flows break the assumption.
+ * <p>
+ * The reachable methods are unknown before solving, thus the labeling
+ * is computed for each method when the method becomes reachable
+ * (and is shared by all contexts of the method), instead of for all
+ * methods of the program before solving, which would require building
+ * the IR of every method.
+ */
+final class VariableSubstitution {
+
+    private final Predicate<Var> isPropagated;
+
+    /**
+     * Caches the groups of equivalent variables of each method.
+     */
+    private final Map<JMethod, List<List<Var>>> equivalentVars = Maps.newMap();
+
+    /**
+     * Maps the copy-defined variables in the groups of equivalent variables
+     * to the sources of their copies.
+     */
+    private final Map<Var, Set<Var>> copySources = Maps.newMap();
+
+    /**
+     * Number of variables that are substituted by other variables.
+     */
+    private int substitutedVars = 0;
+
+    VariableSubstitution(Predicate<Var> isPropagated) {
+        this.isPropagated = isPropagated;
+    }
+
+    /**
+     * @return the groups of variables of given method, where the variables
+     * in each group must have the same points-to set. The groups which
+     * contain only one variable are omitted.
+     */
+    List<List<Var>> getEquivalentVars(JMethod method) {
+        return equivalentVars.computeIfAbsent(method, this::computeEquivalentVars);
+    }
+
+    private List<List<Var>> computeEquivalentVars(JMethod method) {
+        IR ir = method.getIR();
+        // collect the copies and other definitions of the variables
+        SimpleGraph<Var> copyGraph = new SimpleGraph<>();
+        Set<Var> indirectVars = Sets.newSet();
+        ir.getParams().forEach(indirectVars::add);
+        if (ir.getThis() != null) {
+            indirectVars.add(ir.getThis());
+        }
+        for (Stmt stmt : ir) {
+            LValue def = stmt.getDef().orElse(null);
+            if (def instanceof Var var && isPropagated.test(var)) {
+                copyGraph.addNode(var);
+                if (stmt instanceof Copy copy
+                        && isPropagated.test(copy.getRValue())) {
+                    copyGraph.addEdge(copy.getRValue(), var);
+                } else {
+                    indirectVars.add(var);
+                }
+            }
+        }
+        // label the variables in topological order of the copy graph;
+        // the components given by SCC are in reverse topological order
+        List<List<Var>> components = new ArrayList<>(
+                new SCC<>(copyGraph).getComponents());
+        Collections.reverse(components);
+        Map<Var, Integer> valueNumbers = Maps.newMap();
+        Map<Set<Integer>, Integer> labels = Maps.newMap();
+        int[] counter = { 0 };
+        for (List<Var> component : components) {
+            Set<Integer> label = Sets.newHybridSet();
+            for (Var var : component) {
+                if (indirectVars.contains(var)) {
+                    label.add(counter[0]++);
+                }
+                for (Var source : copyGraph.getPredsOf(var)) {
+                    Integer vn = valueNumbers.get(source);
+                    if (vn != null) { // source is not in this component
+                        label.add(vn);
+                    }
+                }
+            }
+            int vn;
+            if (label.isEmpty()) {
+                // the variables are never defined
+                vn = counter[0]++;
+            } else if (label.size() == 1) {
+                vn = label.iterator().next();
+            } else {
+                vn = labels.computeIfAbsent(label, __ -> counter[0]++);
+            }
+            component.forEach(var -> valueNumbers.put(var, vn));
+        }
+        // group the variables by value numbers
+        Map<Integer, List<Var>> groups = Maps.newLinkedHashMap();
+        ir.getVars().forEach(var -> {
+            Integer vn = valueNumbers.get(var);
+            if (vn != null) {
+                groups.computeIfAbsent(vn, __ -> new ArrayList<>()).add(var);
+            }
+        });
+        List<List<Var>> result = new ArrayList<>();
+        for (List<Var> group : groups.values()) {
+            if (group.size() > 1) {
+                result.add(List.copyOf(group));
+                substitutedVars += group.size() - 1;
+                for (Var var : group) {
+                    if (!indirectVars.contains(var)) {
+                        copySources.put(var, Set.copyOf(copyGraph.getPredsOf(var)));
+                    }
+                }
+            }
+        }
+        return result.isEmpty() ? List.of() : result;
+    }
+
+    /**
+     * @return {@code true} if given variable is in a group of equivalent
+     * variables, and it is only defined by copies.
+     */
+    boolean isCopyDefined(Var var) {
+        return copySources.containsKey(var);
+    }
+
+    /**
+     * @return {@code true} if {@code target} is a copy-defined variable
+     * and there is a copy from {@code source} to {@code target} in IR.
+     */
+    boolean isCopy(Var source, Var target) {
+        Set<Var> sources = copySources.get(target);
+        return sources != null && sources.contains(source);
+    }
+
+    /**
+     * @return number of variables that are substituted by other variables.
+     */
+    int getSubstitutedVars() {
+        return substitutedVars;
+    }
+}
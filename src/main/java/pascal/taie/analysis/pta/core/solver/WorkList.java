@@ -27,37 +27,109 @@ import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.config.ConfigException;
 import pascal.taie.util.collection.Maps;
+import pascal.taie.util.graph.SCC;
 
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.Queue;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * The order in which the pointer entries are processed is decided by
+ * the strategy of the work list (see {@link #make(String, PointerFlowGraph)}),
+ * while the call edges are always processed in FIFO order.
  */
 final class WorkList {
 
     /**
      * Pointer entries to be processed.
      */
-    private final Map<Pointer, PointsToSet> pointerEntries = Maps.newLinkedHashMap();
+    private final Map<Pointer, PointsToSet> pointerEntries = Maps.newMap();
+
+    /**
+     * Decides the order of the pointers in {@link #pointerEntries}.
+     * Each pending pointer appears in this queue exactly once.
+     */
+    private final PointerQueue pointerQueue;
 
     /**
      * Call edges to be processed.
      */
     private final Queue<Edge<CSCallSite, CSMethod>> callEdges = new ArrayDeque<>();
 
+    /**
+     * Number of pointer entries polled from this work list.
+     */
+    private long pops = 0;
+
+    /**
+     * Number of points-to sets merged into existing pointer entries.
+     */
+    private long merges = 0;
+
+    private WorkList(PointerQueue pointerQueue) {
+        this.pointerQueue = pointerQueue;
+    }
+
+    /**
+     * Creates a work list with given strategy. The supported strategies are:
+     * <ul>
+     *     <li>{@code fifo}: processes pointers in the order they are added.
+     *     <li>{@code lrf}: processes least recently fired pointers first,
+     *     i.e., the pointers that have not been processed for the longest
+     *     time (or never been processed) are processed first.
+     *     <li>{@code size}: processes pointers with smaller points-to sets
+     *     first, so that small sets are settled before large sets
+     *     are propagated.
+     *     <li>{@code topo}: processes pointers in rounds, and in each
+     *     round, processes pointers in the topological order of the
+     *     strongly connected components of the pointer flow graph.
+     *     The order is recomputed at the beginning of a round if
+     *     the pointer flow graph has grown by half since last computation,
+     *     and newly-added pointers are processed last until then.
+     * </ul>
+     */
+    static WorkList make(String strategy, PointerFlowGraph pfg) {
+        return new WorkList(switch (strategy) {
+            case "fifo" -> new FIFOQueue();
+            case "lrf" -> new LRFQueue();
+            case "size" -> new SizeQueue();
+            case "topo" -> new TopoQueue(pfg);
+            default -> throw new ConfigException(
+                    "Unknown work list strategy: " + strategy);
+        });
+    }
+
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
         PointsToSet set = pointerEntries.get(pointer);
         if (set != null) {
             set.addAll(pointsToSet);
+            ++merges;
         } else {
             pointerEntries.put(pointer, pointsToSet.copy());
+            pointerQueue.add(pointer);
         }
     }
 
+    /**
+     * @return the pending points-to set of given pointer, or {@code null}
+     * if the pointer is not in this work list.
+     */
+    @Nullable
+    PointsToSet getPendingSet(Pointer pointer) {
+        return pointerEntries.get(pointer);
+    }
+
     void addEntry(Edge<CSCallSite, CSMethod> edge) {
         callEdges.add(edge);
     }
@@ -68,19 +140,66 @@ final class WorkList {
             // the work list must be processed prior to the pointer entries
             return new CallEdgeEntry(callEdges.poll());
         } else if (!pointerEntries.isEmpty()) {
-            var it = pointerEntries.entrySet().iterator();
-            var e = it.next();
-            it.remove();
-            return new PointerEntry(e.getKey(), e.getValue());
+            return pollPointerEntry();
         } else {
             throw new NoSuchElementException();
         }
     }
 
+    private PointerEntry pollPointerEntry() {
+        Pointer pointer = pointerQueue.poll();
+        ++pops;
+        return new PointerEntry(pointer, pointerEntries.remove(pointer));
+    }
+
+    /**
+     * @return {@code true} if this work list contains call edges
+     * to be processed.
+     */
+    boolean hasCallEdges() {
+        return !callEdges.isEmpty();
+    }
+
+    Edge<CSCallSite, CSMethod> pollCallEdge() {
+        Edge<CSCallSite, CSMethod> edge = callEdges.poll();
+        if (edge == null) {
+            throw new NoSuchElementException();
+        }
+        return edge;
+    }
+
+    /**
+     * Retrieves and removes all pointer entries in this work list.
+     * The entries are returned in the order decided by the strategy
+     * of this work list.
+     */
+    List<PointerEntry> pollPointerEntries() {
+        List<PointerEntry> entries = new ArrayList<>(pointerEntries.size());
+        while (!pointerEntries.isEmpty()) {
+            entries.add(pollPointerEntry());
+        }
+        return entries;
+    }
+
     boolean isEmpty() {
         return pointerEntries.isEmpty() && callEdges.isEmpty();
     }
 
+    /**
+     * @return number of pointer entries polled from this work list.
+     */
+    long getPops() {
+        return pops;
+    }
+
+    /**
+     * @return number of points-to sets merged into the pending
+     * entries of this work list.
+     */
+    long getMerges() {
+        return merges;
+    }
+
     interface Entry {
     }
 
@@ -91,4 +210,200 @@ final class WorkList {
     record CallEdgeEntry(Edge<CSCallSite, CSMethod> edge)
             implements Entry {
     }
+
+    /**
+     * Queue of pending pointers. Since a pointer is added to the queue
+     * only when it is not pending, implementations need not handle
+     * duplicate pointers.
+     */
+    private interface PointerQueue {
+
+        void add(Pointer pointer);
+
+        Pointer poll();
+    }
+
+    private static class FIFOQueue implements PointerQueue {
+
+        private final Queue<Pointer> queue = new ArrayDeque<>();
+
+        @Override
+        public void add(Pointer pointer) {
+            queue.add(pointer);
+        }
+
+        @Override
+        public Pointer poll() {
+            return queue.poll();
+        }
+    }
+
+    /**
+     * Priority queue of pointers. The priority of each pointer is
+     * recorded (by pointer index) when the pointer is added, and smaller
+     * value means higher priority. Ties are broken by pointer index
+     * to make the order deterministic.
+     */
+    private abstract static class PriorityPointerQueue implements PointerQueue {
+
+        protected long[] priorities = new long[1024];
+
+        private final PriorityQueue<Pointer> queue = new PriorityQueue<>(
+                Comparator.<Pointer>comparingLong(p -> priorities[p.getIndex()])
+                        .thenComparingInt(Pointer::getIndex));
+
+        @Override
+        public void add(Pointer pointer) {
+            int index = pointer.getIndex();
+            if (index >= priorities.length) {
+                priorities = Arrays.copyOf(priorities,
+                        Math.max(index + 1, priorities.length * 2));
+            }
+            priorities[index] = getPriority(pointer);
+            queue.add(pointer);
+        }
+
+        @Override
+        public Pointer poll() {
+            return queue.poll();
+        }
+
+        protected abstract long getPriority(Pointer pointer);
+    }
+
+    private static class LRFQueue extends PriorityPointerQueue {
+
+        /**
+         * Maps pointer index to the time (i.e., number of pointers polled
+         * so far) when the pointer was polled last time.
+         * 0 means the pointer has never been polled.
+         */
+        private long[] lastFired = new long[1024];
+
+        private long clock = 0;
+
+        @Override
+        protected long getPriority(Pointer pointer) {
+            int index = pointer.getIndex();
+            return index < lastFired.length ? lastFired[index] : 0;
+        }
+
+        @Override
+        public Pointer poll() {
+            Pointer pointer = super.poll();
+            int index = pointer.getIndex();
+            if (index >= lastFired.length) {
+                lastFired = Arrays.copyOf(lastFired,
+                        Math.max(index + 1, lastFired.length * 2));
+            }
+            lastFired[index] = ++clock;
+            return pointer;
+        }
+    }
+
+    private static class SizeQueue extends PriorityPointerQueue {
+
+        @Override
+        protected long getPriority(Pointer pointer) {
+            // the size is recorded when the pointer is added, and it is not
+            // updated if the points-to set changes while the pointer is
+            // pending, e.g., when the set is shared by merged pointers and
+            // another one of them is processed, or when merged pointers
+            // are split. Such a pointer is processed in a slightly
+            // different order, but the queue stays consistent.
+            PointsToSet pts = pointer.getPointsToSet();
+            return pts == null ? 0 : pts.size();
+        }
+    }
+
+    /**
+     * Processes pointers round by round, and the pointers of each round
+     * in topological order of the SCCs of PFG.
+     * <p>
+     * Computing SCCs costs time linear to the size of PFG, thus the ranks
+     * are recomputed only when PFG has grown by {@link #GROWTH_FACTOR}
+     * since last computation, so that the total cost of computing ranks
+     * is linear to the size of final PFG. In between, the pointers
+     * that are not ranked yet are processed last in each round.
+     */
+    private static class TopoQueue extends PriorityPointerQueue {
+
+        private static final double GROWTH_FACTOR = 1.5;
+
+        private final PointerFlowGraph pfg;
+
+        /**
+         * Maps pointer index to the topological rank of the SCC
+         * containing the pointer.
+         */
+        private int[] ranks = new int[0];
+
+        /**
+         * Number of PFG edges when {@link #ranks} is computed.
+         */
+        private long rankedEdges = -1;
+
+        /**
+         * Pointers added during current round, which are processed
+         * in next round.
+         */
+        private final Queue<Pointer> nextRound = new ArrayDeque<>();
+
+        private int currentRoundSize = 0;
+
+        private TopoQueue(PointerFlowGraph pfg) {
+            this.pfg = pfg;
+        }
+
+        @Override
+        public void add(Pointer pointer) {
+            nextRound.add(pointer);
+        }
+
+        @Override
+        public Pointer poll() {
+            if (currentRoundSize == 0) {
+                // starts a new round
+                if (needComputeRanks()) {
+                    computeRanks();
+                }
+                currentRoundSize = nextRound.size();
+                while (!nextRound.isEmpty()) {
+                    super.add(nextRound.poll());
+                }
+            }
+            --currentRoundSize;
+            return super.poll();
+        }
+
+        @Override
+        protected long getPriority(Pointer pointer) {
+            int index = pointer.getIndex();
+            // pointers which do not exist when the ranks are computed
+            // are processed last
+            return index < ranks.length ? ranks[index] : Integer.MAX_VALUE;
+        }
+
+        private boolean needComputeRanks() {
+            long edges = pfg.getNumberOfAddedEdges();
+            return rankedEdges < 0 ?
+                    edges > 0 : edges > rankedEdges * GROWTH_FACTOR;
+        }
+
+        private void computeRanks() {
+            rankedEdges = pfg.getNumberOfAddedEdges();
+            ranks = new int[pfg.pointers()
+                    .mapToInt(Pointer::getIndex).max().orElse(-1) + 1];
+            Arrays.fill(ranks, Integer.MAX_VALUE);
+            // Tarjan's algorithm outputs SCCs in reverse topological order
+            List<List<Pointer>> components = new SCC<>(pfg).getComponents();
+            int rank = components.size();
+            for (List<Pointer> component : components) {
+                --rank;
+                for (Pointer pointer : component) {
+                    ranks[pointer.getIndex()] = rank;
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,199 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.core.solver.Solver;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Detects the changes of reachable methods across analysis runs.
+ * <p>
+ * At the end of the analysis, this plugin saves a snapshot, which maps
+ * the signatures of the reachable methods to the hashes of their bodies,
+ * to the file given by option {@code method-snapshot}. In the next
+ * run, the reachable methods are compared with the previous snapshot,
+ * and the methods whose bodies are changed, as well as the ones which
+ * are added to or removed from the reachable methods, are reported.
+ * The hashes do not depend on line numbers, thus moving the code of
+ * a method without changing it does not count as a change.
+ * <p>
+ * This plugin only reports the changes. It does not make pointer analysis
+ * incremental: the points-to sets, pointer flow graph and call graph are
+ * neither persisted nor reused, and the analysis is always solved
+ * from scratch.
+ */
+public class ChangeDetector implements Plugin {
+
+    private static final Logger logger = LogManager.getLogger(ChangeDetector.class);
+
+    private static final String SEPARATOR = "\t";
+
+    private File snapshotFile;
+
+    /**
+     * Method body hashes of the previous snapshot.
+     */
+    private Map<String, String> prevHashes;
+
+    /**
+     * Method body hashes of current analysis.
+     */
+    private final Map<String, String> hashes = Maps.newLinkedHashMap();
+
+    private final Set<String> changedMethods = new TreeSet<>();
+
+    private final Set<String> addedMethods = new TreeSet<>();
+
+    @Override
+    public void setSolver(Solver solver) {
+        snapshotFile = new File(solver.getOptions().getString("method-snapshot"));
+    }
+
+    @Override
+    public void onStart() {
+        prevHashes = loadSnapshot(snapshotFile);
+    }
+
+    @Override
+    public void onNewMethod(JMethod method) {
+        String signature = method.getSignature();
+        String hash = hash(method.getIR());
+        hashes.put(signature, hash);
+        if (prevHashes != null) {
+            String prevHash = prevHashes.get(signature);
+            if (prevHash == null) {
+                addedMethods.add(signature);
+            } else if (!prevHash.equals(hash)) {
+                changedMethods.add(signature);
+            }
+        }
+    }
+
+    @Override
+    public void onFinish() {
+        if (prevHashes != null) {
+            Set<String> removedMethods = prevHashes.keySet()
+                    .stream()
+                    .filter(m -> !hashes.containsKey(m))
+                    .collect(Collectors.toCollection(TreeSet::new));
+            logger.info("Compared with previous snapshot: {} reachable methods," +
+                            " {} changed, {} added, {} removed",
+                    hashes.size(), changedMethods.size(),
+                    addedMethods.size(), removedMethods.size());
+            changedMethods.forEach(m -> logger.info("Changed method: {}", m));
+            addedMethods.forEach(m -> logger.debug("Added method: {}", m));
+            removedMethods.forEach(m -> logger.debug("Removed method: {}", m));
+        }
+        saveSnapshot(snapshotFile, hashes);
+    }
+
+    /**
+     * @return the signatures and body hashes of the methods in given
+     * snapshot file, or {@code null} if the file does not exist.
+     */
+    private static Map<String, String> loadSnapshot(File file) {
+        if (!file.exists()) {
+            logger.info("Snapshot not found in {}, all methods are new",
+                    file.getAbsolutePath());
+            return null;
+        }
+        Map<String, String> result = Maps.newMap();
+        try {
+            for (String line : Files.readAllLines(file.toPath())) {
+                int i = line.lastIndexOf(SEPARATOR);
+                if (i > 0) {
+                    result.put(line.substring(0, i), line.substring(i + 1));
+                }
+            }
+            return result;
+        } catch (IOException e) {
+            logger.warn("Failed to read snapshot from {}, caused by {}",
+                    file.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    private static void saveSnapshot(File file, Map<String, String> hashes) {
+        try (PrintStream out = new PrintStream(new FileOutputStream(file))) {
+            logger.info("Saving snapshot of {} reachable methods to {}",
+                    hashes.size(), file.getAbsolutePath());
+            hashes.forEach((m, hash) -> out.println(m + SEPARATOR + hash));
+        } catch (FileNotFoundException e) {
+            logger.warn("Failed to write snapshot to {}, caused by {}",
+                    file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * @return the hash of given method body. Line numbers are excluded.
+     */
+    private static String hash(IR ir) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AnalysisException("MD5 is not supported", e);
+        }
+        for (Var var : ir.getVars()) {
+            update(digest, var.getType() + " " + var.getName());
+        }
+        for (Stmt stmt : ir) {
+            // Invoke.toString() contains the line number of the call site
+            update(digest, stmt instanceof Invoke invoke
+                    ? invoke.getResult() + " = " + invoke.getInvokeExp()
+                    : stmt.toString());
+        }
+        ir.getExceptionEntries().forEach(entry -> update(digest,
+                entry.start().getIndex() + " " + entry.end().getIndex() + " "
+                        + entry.handler().getIndex() + " " + entry.catchType()));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+}
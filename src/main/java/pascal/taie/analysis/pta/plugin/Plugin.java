@@ -41,6 +41,14 @@ import pascal.taie.language.classes.JMethod;
  * It is supposed to provide a mechanism for extending functionalities
  * of the analysis, so its implementations may have side effects
  * on pointer analysis.
+ * <p>
+ * Threading contract: all callbacks of this interface are invoked by
+ * the solver thread (i.e., the thread that calls {@link Solver#solve()}),
+ * even if the solver propagates points-to sets with multiple worker
+ * threads (option {@code solver:parallel}), thus plugins need not
+ * be thread-safe. However, the pointer filters added via
+ * {@link Solver#addPointerFilter} may be evaluated by the worker threads
+ * concurrently, and they should be free of side effects.
  */
 public interface Plugin {
 
@@ -0,0 +1,472 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Manager of the binary decision diagrams (BDDs) of {@link BDDPointsToSet}.
+ * <p>
+ * A set of object indexes is represented by a reduced ordered BDD over
+ * the {@link #VARS} bits of the indexes, from the highest bit to the lowest
+ * one, and each node of the BDDs is identified by an {@code int}. The nodes
+ * are hash-consed, i.e., a node is created only if there is no node with
+ * the same variable and children, thus equal sets are represented by
+ * the same node, and the sets share the nodes of their common parts.
+ * <p>
+ * The nodes are immutable. The nodes which are not reachable from any
+ * live {@link BDDPointsToSet} are reclaimed when the number of nodes
+ * reaches a threshold, thus this manager tracks the sets by weak references.
+ * The methods of this class are not synchronized, and the callers must hold
+ * the lock of this manager, so that the manager can be shared by the sets
+ * of a parallel solver.
+ */
+final class BDDManager {
+
+    /**
+     * Number of variables, i.e., the bits of non-negative {@code int} indexes.
+     */
+    static final int VARS = 31;
+
+    /**
+     * Terminal node of the empty set.
+     */
+    static final int FALSE = 0;
+
+    /**
+     * Terminal node of the set of all indexes with given higher bits.
+     */
+    static final int TRUE = 1;
+
+    private static final int OR = 0;
+
+    private static final int AND = 1;
+
+    private static final int DIFF = 2;
+
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    /**
+     * Minimum number of nodes at which the unreachable nodes are reclaimed.
+     */
+    private static final int MIN_GC_THRESHOLD = 1 << 20;
+
+    /**
+     * Number of ints of each node in {@link #nodeTable}.
+     */
+    private static final int NODE_INTS = 4;
+
+    /**
+     * Fields of the nodes, which are stored together so that a node
+     * is in one cache line. The fields of node {@code n} are its variable
+     * (which is {@link #VARS} for terminal nodes and -1 for free nodes),
+     * its low child, its high child, and the next node in the same bucket
+     * of the unique table (or the next free node), from
+     * {@code n * NODE_INTS}.
+     */
+    private int[] nodeTable;
+
+    /**
+     * Number of indexes of the set of each node, which is a set of the
+     * lower bits of the indexes, or -1 if it has not been computed.
+     */
+    private long[] counts;
+
+    /**
+     * Buckets of the unique table, each of which is the first node
+     * in the bucket, or -1 if the bucket is empty.
+     */
+    private int[] buckets;
+
+    /**
+     * Number of used slots of the node arrays, including free nodes.
+     */
+    private int slots = 2;
+
+    private int freeList = -1;
+
+    /**
+     * Number of nodes in use.
+     */
+    private int nodes = 2;
+
+    private int gcThreshold = MIN_GC_THRESHOLD;
+
+    /**
+     * Cache of the results of operations, which is indexed by
+     * the hash of the operation and the operands.
+     */
+    private int[] cacheOps;
+
+    private int[] cacheLefts;
+
+    private int[] cacheRights;
+
+    private int[] cacheResults;
+
+    private final List<WeakReference<BDDPointsToSet>> sets = new ArrayList<>();
+
+    /**
+     * Number of tracked sets after the cleared references were removed.
+     */
+    private int trackedSets = 0;
+
+    BDDManager() {
+        nodeTable = new int[INITIAL_CAPACITY * NODE_INTS];
+        counts = new long[INITIAL_CAPACITY];
+        Arrays.fill(counts, -1);
+        nodeTable[FALSE * NODE_INTS] = nodeTable[TRUE * NODE_INTS] = VARS;
+        counts[FALSE] = 0;
+        counts[TRUE] = 1;
+        buckets = new int[INITIAL_CAPACITY];
+        Arrays.fill(buckets, -1);
+        allocateCache(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Tracks a set so that its nodes are not reclaimed while it is alive.
+     */
+    void register(BDDPointsToSet set) {
+        if (sets.size() >= 2 * Math.max(trackedSets, 1024)) {
+            sets.removeIf(ref -> ref.get() == null);
+            trackedSets = sets.size();
+        }
+        sets.add(new WeakReference<>(set));
+    }
+
+    /**
+     * Reclaims the nodes which are not reachable from the live sets if
+     * the number of nodes reaches the threshold. This method must be called
+     * only when the nodes being computed are reachable from the live sets,
+     * e.g., at the beginning of the operations of the sets.
+     */
+    void collectIfNeeded() {
+        if (nodes < gcThreshold) {
+            return;
+        }
+        BitSet marked = new BitSet(slots);
+        sets.removeIf(ref -> {
+            BDDPointsToSet set = ref.get();
+            if (set == null) {
+                return true;
+            }
+            mark(set.root, marked);
+            return false;
+        });
+        trackedSets = sets.size();
+        Arrays.fill(buckets, -1);
+        for (int n = TRUE + 1; n < slots; ++n) {
+            int i = n * NODE_INTS;
+            if (nodeTable[i] < 0) {
+                continue;
+            }
+            if (marked.get(n)) {
+                int b = hash(nodeTable[i], nodeTable[i + 1], nodeTable[i + 2])
+                        & (buckets.length - 1);
+                nodeTable[i + 3] = buckets[b];
+                buckets[b] = n;
+            } else {
+                nodeTable[i] = -1;
+                counts[n] = -1;
+                nodeTable[i + 3] = freeList;
+                freeList = n;
+                --nodes;
+            }
+        }
+        // the cached results may be reclaimed
+        Arrays.fill(cacheOps, -1);
+        gcThreshold = Math.max(MIN_GC_THRESHOLD, nodes * 2);
+    }
+
+    private void mark(int n, BitSet marked) {
+        if (n > TRUE && !marked.get(n)) {
+            marked.set(n);
+            mark(low(n), marked);
+            mark(high(n), marked);
+        }
+    }
+
+    /**
+     * @return the number of nodes in use. This method is for testing.
+     */
+    int getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * @return the node of the set of given node and index.
+     */
+    int add(int n, int index) {
+        return contains(n, index) ? n : add(n, 0, index);
+    }
+
+    private int add(int n, int var, int index) {
+        if (var == VARS) {
+            return TRUE;
+        }
+        int low = n, high = n;
+        if (var(n) == var) {
+            low = low(n);
+            high = high(n);
+        }
+        return (index & bit(var)) == 0 ?
+                make(var, add(low, var + 1, index), high) :
+                make(var, low, add(high, var + 1, index));
+    }
+
+    /**
+     * @param indexes indexes sorted in ascending order, without duplicates.
+     * @return the node of the set containing given indexes.
+     */
+    int build(int[] indexes, int from, int to) {
+        return build(indexes, from, to, 0);
+    }
+
+    private int build(int[] indexes, int from, int to, int var) {
+        if (from == to) {
+            return FALSE;
+        } else if (var == VARS) {
+            return TRUE;
+        }
+        int mid = from;
+        while (mid < to && (indexes[mid] & bit(var)) == 0) {
+            ++mid;
+        }
+        return make(var, build(indexes, from, mid, var + 1),
+                build(indexes, mid, to, var + 1));
+    }
+
+    int or(int a, int b) {
+        return apply(OR, a, b);
+    }
+
+    int and(int a, int b) {
+        return apply(AND, a, b);
+    }
+
+    /**
+     * @return the node of the indexes in {@code a} but not in {@code b}.
+     */
+    int diff(int a, int b) {
+        return apply(DIFF, a, b);
+    }
+
+    boolean contains(int n, int index) {
+        while (n > TRUE) {
+            n = (index & bit(var(n))) == 0 ? low(n) : high(n);
+        }
+        return n == TRUE;
+    }
+
+    int size(int n) {
+        return (int) (count(n) << var(n));
+    }
+
+    /**
+     * @return the indexes in given set in ascending order.
+     */
+    int[] toIndexes(int n) {
+        int[] indexes = new int[size(n)];
+        collect(n, 0, 0, indexes, 0);
+        return indexes;
+    }
+
+    /**
+     * Stores the indexes of the set of node {@code n}, which are prefixed
+     * by {@code prefix} whose lower {@code VARS - var} bits are zero,
+     * into {@code indexes} from {@code i}.
+     *
+     * @return the position after the stored indexes.
+     */
+    private int collect(int n, int var, int prefix, int[] indexes, int i) {
+        if (n == FALSE) {
+            return i;
+        } else if (var == VARS) {
+            indexes[i] = prefix;
+            return i + 1;
+        } else if (var(n) > var) {
+            // the variable is absent in the path, thus it can be either 0 or 1
+            i = collect(n, var + 1, prefix, indexes, i);
+            return collect(n, var + 1, prefix | bit(var), indexes, i);
+        } else {
+            i = collect(low(n), var + 1, prefix, indexes, i);
+            return collect(high(n), var + 1, prefix | bit(var), indexes, i);
+        }
+    }
+
+    private long count(int n) {
+        long count = counts[n];
+        if (count < 0) {
+            int low = low(n), high = high(n);
+            count = (count(low) << (var(low) - var(n) - 1))
+                    + (count(high) << (var(high) - var(n) - 1));
+            counts[n] = count;
+        }
+        return count;
+    }
+
+    private int apply(int op, int a, int b) {
+        switch (op) {
+            case OR -> {
+                if (a == b || b == FALSE) {
+                    return a;
+                } else if (a == FALSE) {
+                    return b;
+                } else if (a == TRUE || b == TRUE) {
+                    return TRUE;
+                }
+            }
+            case AND -> {
+                if (a == b || b == TRUE) {
+                    return a;
+                } else if (a == FALSE || b == FALSE) {
+                    return FALSE;
+                } else if (a == TRUE) {
+                    return b;
+                }
+            }
+            default -> {
+                if (a == b || a == FALSE || b == TRUE) {
+                    return FALSE;
+                } else if (b == FALSE) {
+                    return a;
+                }
+            }
+        }
+        if (op != DIFF && a > b) { // OR and AND are commutative
+            int t = a;
+            a = b;
+            b = t;
+        }
+        int c = hash(op, a, b) & (cacheOps.length - 1);
+        if (cacheOps[c] == op && cacheLefts[c] == a && cacheRights[c] == b) {
+            return cacheResults[c];
+        }
+        int aVar = var(a), bVar = var(b);
+        int var = Math.min(aVar, bVar);
+        int aLow = aVar == var ? low(a) : a;
+        int aHigh = aVar == var ? high(a) : a;
+        int bLow = bVar == var ? low(b) : b;
+        int bHigh = bVar == var ? high(b) : b;
+        int result = make(var, apply(op, aLow, bLow), apply(op, aHigh, bHigh));
+        // the cache may be reallocated by the recursive calls
+        c = hash(op, a, b) & (cacheOps.length - 1);
+        cacheOps[c] = op;
+        cacheLefts[c] = a;
+        cacheRights[c] = b;
+        cacheResults[c] = result;
+        return result;
+    }
+
+    /**
+     * @return the node with given variable and children.
+     */
+    private int make(int var, int low, int high) {
+        if (low == high) {
+            return low;
+        }
+        int b = hash(var, low, high) & (buckets.length - 1);
+        for (int n = buckets[b]; n != -1; n = nodeTable[n * NODE_INTS + 3]) {
+            int i = n * NODE_INTS;
+            if (nodeTable[i] == var && nodeTable[i + 1] == low
+                    && nodeTable[i + 2] == high) {
+                return n;
+            }
+        }
+        int n;
+        if (freeList != -1) {
+            n = freeList;
+            freeList = nodeTable[n * NODE_INTS + 3];
+        } else {
+            if (slots == counts.length) {
+                grow();
+                b = hash(var, low, high) & (buckets.length - 1);
+            }
+            n = slots++;
+        }
+        int i = n * NODE_INTS;
+        nodeTable[i] = var;
+        nodeTable[i + 1] = low;
+        nodeTable[i + 2] = high;
+        nodeTable[i + 3] = buckets[b];
+        buckets[b] = n;
+        ++nodes;
+        return n;
+    }
+
+    private void grow() {
+        int capacity = counts.length * 2;
+        nodeTable = Arrays.copyOf(nodeTable, capacity * NODE_INTS);
+        int oldCapacity = counts.length;
+        counts = Arrays.copyOf(counts, capacity);
+        Arrays.fill(counts, oldCapacity, capacity, -1);
+        buckets = new int[capacity];
+        Arrays.fill(buckets, -1);
+        for (int n = TRUE + 1; n < slots; ++n) {
+            int i = n * NODE_INTS;
+            if (nodeTable[i] >= 0) {
+                int b = hash(nodeTable[i], nodeTable[i + 1], nodeTable[i + 2])
+                        & (capacity - 1);
+                nodeTable[i + 3] = buckets[b];
+                buckets[b] = n;
+            }
+        }
+        allocateCache(capacity);
+    }
+
+    private int var(int n) {
+        return nodeTable[n * NODE_INTS];
+    }
+
+    private int low(int n) {
+        return nodeTable[n * NODE_INTS + 1];
+    }
+
+    private int high(int n) {
+        return nodeTable[n * NODE_INTS + 2];
+    }
+
+    private void allocateCache(int size) {
+        cacheOps = new int[size];
+        Arrays.fill(cacheOps, -1);
+        cacheLefts = new int[size];
+        cacheRights = new int[size];
+        cacheResults = new int[size];
+    }
+
+    private static int bit(int var) {
+        return 1 << (VARS - 1 - var);
+    }
+
+    private static int hash(int x, int y, int z) {
+        int h = (x * 0x9E3779B9 + y) * 0x9E3779B9 + z;
+        // the finalizer of MurmurHash3, as the callers take the lower bits
+        h = (h ^ (h >>> 16)) * 0x85EBCA6B;
+        h = (h ^ (h >>> 13)) * 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+}
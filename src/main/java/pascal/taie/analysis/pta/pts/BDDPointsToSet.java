@@ -0,0 +1,265 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.Indexer;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set which is represented by a binary decision diagram (BDD)
+ * over the bits of the indexes of the objects.
+ * <p>
+ * The BDDs of the sets made by the same factory are stored in a shared
+ * {@link BDDManager}, which hash-conses their nodes. Thus, equal points-to
+ * sets are represented by the same node, copying a set takes constant time,
+ * and the sets share the storage of the objects whose indexes have
+ * the same higher bits. This suits heavily context-sensitive analyses,
+ * where many pointers point to the same objects, or to the objects of
+ * the same allocation sites in similar contexts. On the other hand,
+ * a BDD takes more space than a bit set for the sets of unrelated
+ * objects, and the operations of the sets are serialized by the manager.
+ */
+class BDDPointsToSet implements PointsToSet {
+
+    private final BDDManager manager;
+
+    private final Indexer<CSObj> indexer;
+
+    /**
+     * Root node of the BDD of this set, which is guarded by {@link #manager}.
+     */
+    int root;
+
+    BDDPointsToSet(BDDManager manager, Indexer<CSObj> indexer) {
+        this(manager, indexer, BDDManager.FALSE);
+    }
+
+    private BDDPointsToSet(BDDManager manager, Indexer<CSObj> indexer, int root) {
+        this.manager = manager;
+        this.indexer = indexer;
+        synchronized (manager) {
+            this.root = root;
+            manager.register(this);
+        }
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        int index = indexer.getIndex(obj);
+        synchronized (manager) {
+            manager.collectIfNeeded();
+            int oldRoot = root;
+            root = manager.add(root, index);
+            return root != oldRoot;
+        }
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        int[] indexes = getIndexesOf(pts);
+        synchronized (manager) {
+            manager.collectIfNeeded();
+            int oldRoot = root;
+            root = manager.or(root, getRootOf(pts, indexes));
+            return root != oldRoot;
+        }
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        int[] indexes = getIndexesOf(pts);
+        synchronized (manager) {
+            manager.collectIfNeeded();
+            int diff = manager.diff(getRootOf(pts, indexes), root);
+            root = manager.or(root, diff);
+            return new BDDPointsToSet(manager, indexer, diff);
+        }
+    }
+
+    @Override
+    public void removeIf(Predicate<CSObj> filter) {
+        int[] indexes;
+        synchronized (manager) {
+            indexes = manager.toIndexes(root);
+        }
+        int kept = 0;
+        for (int index : indexes) {
+            if (!filter.test(indexer.getObject(index))) {
+                indexes[kept++] = index;
+            }
+        }
+        if (kept < indexes.length) {
+            synchronized (manager) {
+                manager.collectIfNeeded();
+                root = manager.build(indexes, 0, kept);
+            }
+        }
+    }
+
+    @Override
+    public PointsToSet intersect(PointsToSet pts) {
+        if (pts instanceof BDDPointsToSet other && other.manager == manager) {
+            synchronized (manager) {
+                manager.collectIfNeeded();
+                return new BDDPointsToSet(manager, indexer,
+                        manager.and(root, other.root));
+            }
+        }
+        return PointsToSet.super.intersect(pts);
+    }
+
+    @Override
+    public PointsToSet subtract(PointsToSet pts) {
+        if (pts instanceof BDDPointsToSet other && other.manager == manager) {
+            synchronized (manager) {
+                manager.collectIfNeeded();
+                return new BDDPointsToSet(manager, indexer,
+                        manager.diff(root, other.root));
+            }
+        }
+        return PointsToSet.super.subtract(pts);
+    }
+
+    /**
+     * @return the indexes of the objects in given set in ascending order,
+     * or {@code null} if the set is represented by the BDD of this manager.
+     */
+    private int[] getIndexesOf(PointsToSet pts) {
+        if (pts instanceof BDDPointsToSet other && other.manager == manager) {
+            return null;
+        }
+        int[] indexes = new int[pts.size()];
+        int i = 0;
+        for (CSObj obj : pts) {
+            indexes[i++] = indexer.getIndex(obj);
+        }
+        Arrays.sort(indexes);
+        return indexes;
+    }
+
+    /**
+     * @return the root node of given set, whose indexes are given by
+     * {@link #getIndexesOf(PointsToSet)}.
+     */
+    private int getRootOf(PointsToSet pts, int[] indexes) {
+        return indexes == null ?
+                ((BDDPointsToSet) pts).root :
+                manager.build(indexes, 0, indexes.length);
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        int index = indexer.getIndex(obj);
+        synchronized (manager) {
+            return manager.contains(root, index);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        synchronized (manager) {
+            return root == BDDManager.FALSE;
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (manager) {
+            return manager.size(root);
+        }
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<CSObj> iterator() {
+                return BDDPointsToSet.this.iterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof CSObj obj && BDDPointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public int size() {
+                return BDDPointsToSet.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return getObjects().stream();
+    }
+
+    /**
+     * @return an iterator over the objects in the order of their indexes.
+     * The iterator is not affected by the later modifications of this set.
+     */
+    @Override
+    public Iterator<CSObj> iterator() {
+        int[] indexes;
+        synchronized (manager) {
+            indexes = manager.toIndexes(root);
+        }
+        return new Iterator<>() {
+
+            private int i = 0;
+
+            @Override
+            public boolean hasNext() {
+                return i < indexes.length;
+            }
+
+            @Override
+            public CSObj next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return indexer.getObject(indexes[i++]);
+            }
+        };
+    }
+
+    @Override
+    public PointsToSet copy() {
+        synchronized (manager) {
+            return new BDDPointsToSet(manager, indexer, root);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getObjects().toString();
+    }
+}
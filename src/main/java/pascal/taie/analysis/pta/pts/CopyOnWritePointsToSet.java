@@ -0,0 +1,230 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.Canonicalizer;
+
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set which shares its content with other sets until
+ * it is modified, i.e., copy-on-write.
+ * <p>
+ * The content of a set is either owned by the set exclusively, or
+ * frozen and shared by multiple sets. Frozen content is never modified,
+ * and the set copies it before the first modification. Thus, {@link #copy()}
+ * takes constant time, and an empty set which receives all objects of
+ * another set shares the content of that set, which is common for
+ * the pointers in copy chains. Similarly, a set which becomes equal to
+ * another set by merging it shares the content of that set.
+ * <p>
+ * Other equal sets are made to share their contents by
+ * {@link PointsToSetFactory#canonicalize(Iterable)}, which hashes the
+ * sets and is called once after the solver finishes.
+ */
+class CopyOnWritePointsToSet implements PointsToSet {
+
+    private Content content;
+
+    CopyOnWritePointsToSet(PointsToSet set) {
+        this(new Content(set));
+    }
+
+    private CopyOnWritePointsToSet(Content content) {
+        this.content = content;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        if (content.frozen && content.set.contains(obj)) {
+            return false;
+        }
+        return getExclusiveSet().addObject(obj);
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        if (pts.isEmpty()) {
+            return false;
+        }
+        if (isEmpty() && pts instanceof CopyOnWritePointsToSet other) {
+            content = other.share();
+            return true;
+        }
+        boolean changed = getExclusiveSet().addAll(unwrap(pts));
+        adoptIfEqual(pts);
+        return changed;
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        if (isEmpty() && pts instanceof CopyOnWritePointsToSet other) {
+            if (pts.isEmpty()) {
+                return other.copy();
+            }
+            content = other.share();
+            return new CopyOnWritePointsToSet(content);
+        }
+        PointsToSet diff = getExclusiveSet().addAllDiff(unwrap(pts));
+        adoptIfEqual(pts);
+        return new CopyOnWritePointsToSet(diff);
+    }
+
+    @Override
+    public void removeIf(Predicate<CSObj> filter) {
+        if (!content.frozen || content.set.objects().anyMatch(filter)) {
+            getExclusiveSet().removeIf(filter);
+        }
+    }
+
+    @Override
+    public PointsToSet intersect(PointsToSet pts) {
+        return new CopyOnWritePointsToSet(content.set.intersect(unwrap(pts)));
+    }
+
+    @Override
+    public PointsToSet subtract(PointsToSet pts) {
+        return new CopyOnWritePointsToSet(content.set.subtract(unwrap(pts)));
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        return content.set.contains(obj);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return content.set.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return content.set.size();
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return content.set.getObjects();
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return content.set.objects();
+    }
+
+    @Override
+    public PointsToSet copy() {
+        return new CopyOnWritePointsToSet(share());
+    }
+
+    @Override
+    public String toString() {
+        return content.set.toString();
+    }
+
+    /**
+     * Replaces the content of this set by the equal content
+     * in {@code canonicalizer}, so that equal sets share storage.
+     */
+    void canonicalize(Canonicalizer<Content> canonicalizer) {
+        content = canonicalizer.get(share());
+    }
+
+    /**
+     * @return the underlying set which is used to store the objects.
+     * The sets whose contents are canonicalized share the same underlying set.
+     */
+    PointsToSet getStorage() {
+        return content.set;
+    }
+
+    /**
+     * Shares the content of {@code pts} if this set equals to it after
+     * merging {@code pts}, so that the equal sets created by propagation
+     * share storage without hashing. As this set contains {@code pts}
+     * after the merge, the sets are equal iff they have the same size.
+     */
+    private void adoptIfEqual(PointsToSet pts) {
+        if (pts instanceof CopyOnWritePointsToSet other
+                && other.content != content
+                && other.size() == size()) {
+            content = other.share();
+        }
+    }
+
+    /**
+     * Freezes the content of this set so that it can be shared.
+     */
+    private Content share() {
+        content.frozen = true;
+        return content;
+    }
+
+    /**
+     * @return the underlying set which can be modified by this set.
+     */
+    private PointsToSet getExclusiveSet() {
+        if (content.frozen) {
+            content = new Content(content.set.copy());
+        }
+        return content.set;
+    }
+
+    private static PointsToSet unwrap(PointsToSet pts) {
+        return pts instanceof CopyOnWritePointsToSet other ?
+                other.content.set : pts;
+    }
+
+    /**
+     * Content of copy-on-write points-to sets. Frozen contents are
+     * compared by their objects, so that they can be canonicalized.
+     */
+    static final class Content {
+
+        private final PointsToSet set;
+
+        private boolean frozen;
+
+        private Content(PointsToSet set) {
+            this.set = set;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            return o instanceof Content other
+                    && set.size() == other.set.size()
+                    && set.getObjects().equals(other.set.getObjects());
+        }
+
+        @Override
+        public int hashCode() {
+            return set.getObjects().hashCode();
+        }
+    }
+}
@@ -64,6 +64,26 @@ abstract class DelegatePointsToSet implements PointsToSet {
         set.removeIf(filter);
     }
 
+    @Override
+    public PointsToSet intersect(PointsToSet pts) {
+        if (pts instanceof DelegatePointsToSet other) {
+            SetEx<CSObj> result = set.copy();
+            result.retainAll(other.set);
+            return newSet(result);
+        }
+        return PointsToSet.super.intersect(pts);
+    }
+
+    @Override
+    public PointsToSet subtract(PointsToSet pts) {
+        if (pts instanceof DelegatePointsToSet other) {
+            SetEx<CSObj> result = set.copy();
+            result.removeAll(other.set);
+            return newSet(result);
+        }
+        return PointsToSet.super.subtract(pts);
+    }
+
     @Override
     public boolean contains(CSObj obj) {
         return set.contains(obj);
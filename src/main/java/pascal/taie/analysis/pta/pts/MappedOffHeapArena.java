@@ -0,0 +1,285 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.SPARSE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * {@link OffHeapArena} whose chunks are memory-mapped files in
+ * a spill directory. The operating system keeps the recently accessed
+ * pages of the chunks in memory and writes the cold pages back to disk
+ * (and faults them in again on access) under memory pressure, so that
+ * the points-to sets stored in this arena are not limited by RAM.
+ * <p>
+ * The chunk files are opened with {@code DELETE_ON_CLOSE}, thus no file
+ * is left in the spill directory after the analysis. The files are kept
+ * open so that the unloaded chunks can be mapped again.
+ * <p>
+ * The chunks are divided into regions of 1 MB, and this arena records
+ * the last phase in which each region was written. At the end of a phase,
+ * only the regions which were modified since they were flushed and have
+ * not been written for {@link #COLD_PHASES} phases are written back,
+ * so that the hot regions are not written to disk again and again.
+ * <p>
+ * If a memory limit is given, this arena also evicts chunks by itself:
+ * when mapping a chunk would make the mapped chunks exceed the limit,
+ * the least recently accessed chunks are written back and unmapped,
+ * and they are mapped again when they are accessed later.
+ */
+class MappedOffHeapArena extends OffHeapArena {
+
+    private final Path spillDir;
+
+    /**
+     * Maximum number of bytes of the mapped chunks,
+     * or -1 if there is no limit.
+     */
+    private final long memoryLimit;
+
+    /**
+     * A region consists of {@code 2^REGION_SHIFT} {@code int}s, i.e., 1 MB.
+     */
+    private static final int REGION_SHIFT = 18;
+
+    /**
+     * A region becomes cold if it has not been written for this number
+     * of phases (including the phase that just finished).
+     */
+    private static final int COLD_PHASES = 1;
+
+    private final List<FileChannel> channels = new ArrayList<>();
+
+    /**
+     * Mapped buffers of the chunks. The element of an unloaded chunk is null.
+     */
+    private final List<MappedByteBuffer> mappedChunks = new ArrayList<>();
+
+    private int chunkBytes;
+
+    private int mappedCount;
+
+    /**
+     * Current phase, starting from 1.
+     */
+    private int phase = 1;
+
+    /**
+     * Last phase in which each region was written, or 0 if the region
+     * has never been written. The regions of chunk {@code c} start at
+     * {@code c * regionsPerChunk}. This array is replaced before a new
+     * chunk is published, so the writers of the chunk see the new array.
+     * The phases are written without synchronization, and a write which
+     * races with a replacement or sees a stale phase only makes the region
+     * flushed earlier.
+     */
+    private int[] writePhases = new int[0];
+
+    /**
+     * Last phase in which each region was flushed, or 0 if the region
+     * has never been flushed.
+     */
+    private int[] flushPhases = new int[0];
+
+    private int regionsPerChunk;
+
+    /**
+     * Incremented whenever a chunk is mapped, so that the chunks which
+     * have not been accessed since earlier mappings have smaller ticks.
+     */
+    private int tick;
+
+    /**
+     * Tick of the last access to each chunk. Like {@link #writePhases},
+     * the ticks are written without synchronization, and a lost update
+     * only makes the chunk evicted earlier.
+     */
+    private int[] accessTicks = new int[0];
+
+    /**
+     * @param spillDir    directory of the chunk files
+     * @param memoryLimit maximum number of bytes of the mapped chunks,
+     *                    or -1 if there is no limit. At least one chunk
+     *                    is mapped regardless of the limit.
+     */
+    MappedOffHeapArena(Path spillDir, long memoryLimit) {
+        try {
+            this.spillDir = Files.createDirectories(spillDir);
+        } catch (IOException e) {
+            throw new AnalysisException(
+                    "Failed to create spill directory: " + spillDir, e);
+        }
+        this.memoryLimit = memoryLimit;
+    }
+
+    @Override
+    protected ByteBuffer newChunk(int index, int bytes) {
+        Path file = null;
+        try {
+            file = Files.createTempFile(spillDir, "pts-chunk-" + index + "-", ".bin");
+            FileChannel channel = FileChannel.open(
+                    file, READ, WRITE, SPARSE, DELETE_ON_CLOSE);
+            channels.add(channel);
+            chunkBytes = bytes;
+            regionsPerChunk = (bytes / Integer.BYTES) >>> REGION_SHIFT;
+            int regions = channels.size() * regionsPerChunk;
+            flushPhases = Arrays.copyOf(flushPhases, regions);
+            writePhases = Arrays.copyOf(writePhases, regions);
+            accessTicks = Arrays.copyOf(accessTicks, channels.size());
+            mappedChunks.add(null);
+            return map(index);
+        } catch (IOException e) {
+            throw new AnalysisException(
+                    "Failed to map spill file: " + file, e);
+        }
+    }
+
+    @Override
+    protected ByteBuffer loadChunk(int index) {
+        try {
+            return map(index);
+        } catch (IOException e) {
+            throw new AnalysisException(
+                    "Failed to map spill file of chunk " + index, e);
+        }
+    }
+
+    /**
+     * Maps the file of a chunk, after evicting other chunks
+     * if the mapped chunks would exceed the memory limit.
+     */
+    private MappedByteBuffer map(int index) throws IOException {
+        if (memoryLimit >= 0) {
+            while (mappedCount > 0 &&
+                    (long) (mappedCount + 1) * chunkBytes > memoryLimit) {
+                evictLeastRecentlyAccessed();
+            }
+        }
+        MappedByteBuffer chunk = channels.get(index).map(
+                FileChannel.MapMode.READ_WRITE, 0, chunkBytes);
+        mappedChunks.set(index, chunk);
+        ++mappedCount;
+        accessTicks[index] = ++tick;
+        return chunk;
+    }
+
+    private void evictLeastRecentlyAccessed() {
+        int victim = -1;
+        for (int c = 0; c < mappedChunks.size(); ++c) {
+            if (mappedChunks.get(c) != null &&
+                    (victim == -1 || accessTicks[c] < accessTicks[victim])) {
+                victim = c;
+            }
+        }
+        // the buffer may still be used by the threads which are accessing
+        // the chunk, and their writes go to the same file pages
+        mappedChunks.get(victim).force();
+        int base = victim * regionsPerChunk;
+        for (int r = base; r < base + regionsPerChunk; ++r) {
+            flushPhases[r] = phase;
+        }
+        mappedChunks.set(victim, null);
+        --mappedCount;
+        unloadChunk(victim);
+    }
+
+    @Override
+    int get(long handle, int i) {
+        int value = super.get(handle, i);
+        accessTicks[(int) (handle >>> 32)] = tick;
+        return value;
+    }
+
+    @Override
+    void set(long handle, int i, int value) {
+        super.set(handle, i, value);
+        int chunk = (int) (handle >>> 32);
+        int offset = (int) handle + i;
+        writePhases[chunk * regionsPerChunk
+                + (offset >>> REGION_SHIFT)] = phase;
+        accessTicks[chunk] = tick;
+    }
+
+    @Override
+    void copy(long src, int srcPos, long dest, int destPos, int length) {
+        if (length == 0) {
+            return;
+        }
+        super.copy(src, srcPos, dest, destPos, length);
+        int[] phases = writePhases;
+        int chunk = (int) (dest >>> 32);
+        int base = chunk * regionsPerChunk;
+        int offset = (int) dest + destPos;
+        int last = base + ((offset + length - 1) >>> REGION_SHIFT);
+        for (int r = base + (offset >>> REGION_SHIFT); r <= last; ++r) {
+            phases[r] = phase;
+        }
+        int[] ticks = accessTicks;
+        ticks[(int) (src >>> 32)] = tick;
+        ticks[chunk] = tick;
+    }
+
+    /**
+     * Writes the modified regions which have become cold back to the spill
+     * files, and starts the next phase. The written pages are clean,
+     * so that the operating system can evict them without waiting for
+     * disk writes when the memory is short.
+     */
+    @Override
+    synchronized void flush() {
+        int[] phases = writePhases;
+        int regionBytes = Integer.BYTES << REGION_SHIFT;
+        for (int r = 0; r < phases.length; ++r) {
+            int written = phases[r];
+            MappedByteBuffer chunk = mappedChunks.get(r / regionsPerChunk);
+            if (chunk != null && written > flushPhases[r]
+                    && written <= phase - COLD_PHASES) {
+                chunk.force(r % regionsPerChunk * regionBytes, regionBytes);
+                flushPhases[r] = phase;
+            }
+        }
+        ++phase;
+    }
+
+    /**
+     * @return the number of chunks which are mapped now.
+     */
+    synchronized int getMappedChunks() {
+        return mappedCount;
+    }
+}
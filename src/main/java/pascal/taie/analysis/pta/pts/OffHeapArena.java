@@ -0,0 +1,221 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Off-heap storage of {@code int} arrays. The storage consists of large
+ * direct buffers (chunks), and each array is stored in a block of
+ * a chunk. Blocks are allocated in power-of-two sizes, and the freed
+ * blocks are reused by later allocations of the same size.
+ * <p>
+ * A block is referred to by a {@code long} handle which packs
+ * the index of its chunk and its offset in the chunk, thus the clients
+ * do not need to hold any on-heap object for a block.
+ * <p>
+ * The allocation and free methods are thread-safe, and the blocks can be
+ * read and written concurrently as long as they are different blocks.
+ */
+class OffHeapArena {
+
+    /**
+     * Number of {@code int}s in a chunk, i.e., 64 MB per chunk.
+     */
+    private static final int CHUNK_INTS = 1 << 24;
+
+    private static final int MIN_SIZE_CLASS = 2;
+
+    private static final int MAX_SIZE_CLASS = Integer.numberOfTrailingZeros(CHUNK_INTS);
+
+    /**
+     * Chunks of this arena. The element of an unloaded chunk is null.
+     */
+    private final List<IntBuffer> chunks = new ArrayList<>();
+
+    /**
+     * Chunks are copied to this array on creation (and on loading and
+     * unloading), so that the readers do not need to lock the list of chunks.
+     */
+    private volatile IntBuffer[] chunkArray = new IntBuffer[0];
+
+    /**
+     * Number of {@code int}s used in the last chunk.
+     */
+    private int used = CHUNK_INTS;
+
+    /**
+     * Stacks of free blocks, indexed by size classes.
+     */
+    private final long[][] freeBlocks = new long[MAX_SIZE_CLASS + 1][];
+
+    private final int[] freeCounts = new int[MAX_SIZE_CLASS + 1];
+
+    /**
+     * @return the capacity of the blocks that can hold {@code size} ints.
+     */
+    static int capacityFor(int size) {
+        return 1 << sizeClassOf(size);
+    }
+
+    private static int sizeClassOf(int size) {
+        int sizeClass = Math.max(MIN_SIZE_CLASS,
+                32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1));
+        if (sizeClass > MAX_SIZE_CLASS) {
+            throw new IllegalArgumentException(
+                    "Block size " + size + " exceeds the limit " + CHUNK_INTS);
+        }
+        return sizeClass;
+    }
+
+    /**
+     * Allocates a block which can hold at least {@code size} ints.
+     *
+     * @return the handle of the block. The capacity of the block is
+     * {@link #capacityFor(int) capacityFor(size)}.
+     */
+    synchronized long allocate(int size) {
+        int sizeClass = sizeClassOf(size);
+        if (freeCounts[sizeClass] > 0) {
+            return freeBlocks[sizeClass][--freeCounts[sizeClass]];
+        }
+        int capacity = 1 << sizeClass;
+        if (used + capacity > CHUNK_INTS) {
+            addChunk();
+        }
+        long handle = ((long) (chunks.size() - 1) << 32) | used;
+        used += capacity;
+        return handle;
+    }
+
+    /**
+     * Frees a block, which should have been allocated with {@code size}.
+     */
+    synchronized void free(long handle, int size) {
+        int sizeClass = sizeClassOf(size);
+        long[] stack = freeBlocks[sizeClass];
+        if (stack == null) {
+            stack = freeBlocks[sizeClass] = new long[16];
+        } else if (freeCounts[sizeClass] == stack.length) {
+            stack = freeBlocks[sizeClass] = Arrays.copyOf(stack, stack.length << 1);
+        }
+        stack[freeCounts[sizeClass]++] = handle;
+    }
+
+    private void addChunk() {
+        IntBuffer chunk = newChunk(chunks.size(), CHUNK_INTS * Integer.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+        chunks.add(chunk);
+        chunkArray = chunks.toArray(new IntBuffer[0]);
+        used = 0;
+    }
+
+    /**
+     * Creates the buffer of a new chunk.
+     *
+     * @param index index of the new chunk
+     * @param bytes size of the new chunk
+     */
+    protected ByteBuffer newChunk(int index, int bytes) {
+        return ByteBuffer.allocateDirect(bytes);
+    }
+
+    /**
+     * Loads the buffer of a chunk which has been unloaded by
+     * {@link #unloadChunk(int)}. This arena never unloads chunks,
+     * so this method should not be called.
+     *
+     * @param index index of the chunk
+     */
+    protected ByteBuffer loadChunk(int index) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Releases the buffer of a chunk. The chunk is loaded again by
+     * {@link #loadChunk(int)} when it is accessed later. The readers and
+     * writers which are accessing the chunk may still use the released
+     * buffer, thus the subclasses must keep the contents written via the
+     * released buffer visible to the buffer loaded later.
+     */
+    protected synchronized void unloadChunk(int index) {
+        chunks.set(index, null);
+        chunkArray = chunks.toArray(new IntBuffer[0]);
+    }
+
+    private synchronized IntBuffer reloadChunk(int index) {
+        IntBuffer chunk = chunks.get(index);
+        if (chunk == null) {
+            chunk = loadChunk(index)
+                    .order(ByteOrder.nativeOrder())
+                    .asIntBuffer();
+            chunks.set(index, chunk);
+            chunkArray = chunks.toArray(new IntBuffer[0]);
+        }
+        return chunk;
+    }
+
+    private IntBuffer getChunk(int index) {
+        IntBuffer chunk = chunkArray[index];
+        return chunk != null ? chunk : reloadChunk(index);
+    }
+
+    /**
+     * Writes the modified contents of the chunks to their backing storage.
+     * This arena has no backing storage, so this method does nothing.
+     */
+    void flush() {
+    }
+
+    int get(long handle, int i) {
+        return getChunk((int) (handle >>> 32)).get((int) handle + i);
+    }
+
+    void set(long handle, int i, int value) {
+        getChunk((int) (handle >>> 32)).put((int) handle + i, value);
+    }
+
+    /**
+     * Copies {@code length} ints from a block to another block.
+     * The two ranges must not overlap.
+     */
+    void copy(long src, int srcPos, long dest, int destPos, int length) {
+        IntBuffer srcChunk = getChunk((int) (src >>> 32));
+        IntBuffer destChunk = getChunk((int) (dest >>> 32));
+        destChunk.put((int) dest + destPos, srcChunk,
+                (int) src + srcPos, length);
+    }
+
+    /**
+     * @return the number of bytes of the off-heap memory reserved by this arena.
+     */
+    synchronized long getReservedBytes() {
+        return (long) chunks.size() * CHUNK_INTS * Integer.BYTES;
+    }
+}
@@ -0,0 +1,602 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.Indexer;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set which stores the indexes of its objects
+ * in an {@link OffHeapArena}, so that the objects in the set
+ * do not occupy Java heap.
+ * <p>
+ * A small set is stored as a sorted array of at most {@link #ARRAY_MAX}
+ * indexes. When it grows beyond that, it is converted to a sparse bitmap,
+ * i.e., a sorted array of pages, each of which consists of a key and
+ * the bits of the {@code 2^}{@link #PAGE_SHIFT} indexes of the key.
+ * Thus, adding an object shifts at most {@link #ARRAY_MAX} indexes or
+ * the pages, which are far fewer than the objects of a large set,
+ * and two bitmaps are merged page by page without decoding them.
+ * <p>
+ * This set is designed for the long-living points-to sets of pointers.
+ * The short-living sets derived from it, i.e., the results of
+ * {@link #addAllDiff(PointsToSet)} and {@link #copy()}, are on-heap
+ * sets made by {@code heapSetFactory}, as the blocks of this set
+ * can only be freed when it grows.
+ */
+class OffHeapPointsToSet implements PointsToSet {
+
+    private static final long NO_BLOCK = -1;
+
+    /**
+     * Maximum number of indexes stored in the array form.
+     */
+    private static final int ARRAY_MAX = 16;
+
+    /**
+     * Each page holds the bits of {@code 2^PAGE_SHIFT} indexes.
+     */
+    private static final int PAGE_SHIFT = 6;
+
+    private static final int PAGE_WORDS = (1 << PAGE_SHIFT) / Integer.SIZE;
+
+    /**
+     * Number of {@code int}s of a page, i.e., the key
+     * ({@code index >>> PAGE_SHIFT}) followed by the words.
+     */
+    private static final int PAGE_INTS = 1 + PAGE_WORDS;
+
+    private final OffHeapArena arena;
+
+    private final Indexer<CSObj> indexer;
+
+    private final Supplier<PointsToSet> heapSetFactory;
+
+    /**
+     * Handle of the block which stores the sorted indexes
+     * (array form) or the sorted pages (bitmap form).
+     */
+    private long block = NO_BLOCK;
+
+    private int capacity = 0;
+
+    private int size = 0;
+
+    /**
+     * Number of pages, or -1 if this set is in the array form.
+     */
+    private int pages = -1;
+
+    OffHeapPointsToSet(OffHeapArena arena, Indexer<CSObj> indexer,
+                       Supplier<PointsToSet> heapSetFactory) {
+        this.arena = arena;
+        this.indexer = indexer;
+        this.heapSetFactory = heapSetFactory;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        int index = indexer.getIndex(obj);
+        return pages >= 0 ? setBit(pageOf(index >>> PAGE_SHIFT), index)
+                : addToArray(index);
+    }
+
+    private boolean addToArray(int index) {
+        int pos = searchArray(index);
+        if (pos >= 0) {
+            return false;
+        }
+        if (size == ARRAY_MAX) {
+            toBitmap();
+            return setBit(pageOf(index >>> PAGE_SHIFT), index);
+        }
+        pos = -pos - 1;
+        if (size == capacity) {
+            long newBlock = arena.allocate(size + 1);
+            if (pos > 0) {
+                arena.copy(block, 0, newBlock, 0, pos);
+            }
+            if (pos < size) {
+                arena.copy(block, pos, newBlock, pos + 1, size - pos);
+            }
+            replaceBlock(newBlock, size + 1);
+        } else {
+            for (int i = size; i > pos; --i) {
+                arena.set(block, i, arena.get(block, i - 1));
+            }
+        }
+        arena.set(block, pos, index);
+        ++size;
+        return true;
+    }
+
+    /**
+     * @return the position of the page of {@code key}. If this set has
+     * no such page, inserts an empty page.
+     */
+    private int pageOf(int key) {
+        int page = searchPage(key);
+        if (page >= 0) {
+            return page;
+        }
+        page = -page - 1;
+        int used = pages * PAGE_INTS;
+        int pos = page * PAGE_INTS;
+        if (used + PAGE_INTS > capacity) {
+            long newBlock = arena.allocate(used + PAGE_INTS);
+            if (pos > 0) {
+                arena.copy(block, 0, newBlock, 0, pos);
+            }
+            if (pos < used) {
+                arena.copy(block, pos, newBlock, pos + PAGE_INTS, used - pos);
+            }
+            replaceBlock(newBlock, used + PAGE_INTS);
+        } else {
+            for (int i = used - 1; i >= pos; --i) {
+                arena.set(block, i + PAGE_INTS, arena.get(block, i));
+            }
+        }
+        arena.set(block, pos, key);
+        for (int w = 1; w <= PAGE_WORDS; ++w) {
+            arena.set(block, pos + w, 0);
+        }
+        ++pages;
+        return page;
+    }
+
+    /**
+     * Sets the bit of {@code index} in the page at {@code page}.
+     *
+     * @return true if the bit was not set.
+     */
+    private boolean setBit(int page, int index) {
+        int pos = wordPos(page, (index >>> 5) & (PAGE_WORDS - 1));
+        int word = arena.get(block, pos);
+        int mask = 1 << index;
+        if ((word & mask) != 0) {
+            return false;
+        }
+        arena.set(block, pos, word | mask);
+        ++size;
+        return true;
+    }
+
+    /**
+     * Converts this set from the array form to the bitmap form.
+     */
+    private void toBitmap() {
+        int keys = 0;
+        int lastKey = -1;
+        for (int i = 0; i < size; ++i) {
+            int key = arena.get(block, i) >>> PAGE_SHIFT;
+            if (key != lastKey) {
+                ++keys;
+                lastKey = key;
+            }
+        }
+        long bitmap = arena.allocate(keys * PAGE_INTS);
+        int page = -1;
+        lastKey = -1;
+        for (int i = 0; i < size; ++i) {
+            int index = arena.get(block, i);
+            int key = index >>> PAGE_SHIFT;
+            if (key != lastKey) {
+                int pos = ++page * PAGE_INTS;
+                arena.set(bitmap, pos, key);
+                for (int w = 1; w <= PAGE_WORDS; ++w) {
+                    arena.set(bitmap, pos + w, 0);
+                }
+                lastKey = key;
+            }
+            int pos = page * PAGE_INTS + 1 + ((index >>> 5) & (PAGE_WORDS - 1));
+            arena.set(bitmap, pos, arena.get(bitmap, pos) | (1 << index));
+        }
+        replaceBlock(bitmap, keys * PAGE_INTS);
+        pages = keys;
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        return merge(pts, null);
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        PointsToSet diff = heapSetFactory.get();
+        merge(pts, diff);
+        return diff;
+    }
+
+    /**
+     * Adds the objects in {@code pts} to this set.
+     *
+     * @param diff if it is not null, the objects that are absent
+     *             in this set are added to it
+     * @return true if this set changed.
+     */
+    private boolean merge(PointsToSet pts, PointsToSet diff) {
+        if (pts instanceof OffHeapPointsToSet other && other.pages >= 0
+                && other != this) {
+            if (pages < 0) {
+                toBitmap();
+            }
+            return mergePages(other, diff);
+        }
+        boolean changed = false;
+        // the objects of bit sets and off-heap sets are iterated in the order
+        // of their indexes, so consecutive objects usually fall in the same page
+        int lastKey = -1;
+        int lastPage = -1;
+        for (CSObj obj : pts) {
+            int index = indexer.getIndex(obj);
+            boolean added;
+            if (pages < 0) {
+                added = addToArray(index);
+            } else {
+                int key = index >>> PAGE_SHIFT;
+                if (key != lastKey) {
+                    lastKey = key;
+                    lastPage = pageOf(key);
+                }
+                added = setBit(lastPage, index);
+            }
+            if (added) {
+                changed = true;
+                if (diff != null) {
+                    diff.addObject(obj);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Merges the pages of {@code other} to the pages of this set.
+     * Both sets must be in the bitmap form.
+     */
+    private boolean mergePages(OffHeapPointsToSet other, PointsToSet diff) {
+        // count the pages of other that are absent in this set
+        int newPages = 0;
+        for (int i = 0, j = 0; j < other.pages; ) {
+            int key = other.keyAt(j);
+            int thisKey = i < pages ? keyAt(i) : Integer.MAX_VALUE;
+            if (key <= thisKey) {
+                if (key < thisKey) {
+                    ++newPages;
+                } else {
+                    ++i;
+                }
+                ++j;
+            } else {
+                i = skipPages(i, key);
+            }
+        }
+        // merge into a new block if there are new pages, otherwise in place
+        int newCount = pages + newPages;
+        long dest = newPages == 0 ? block : arena.allocate(newCount * PAGE_INTS);
+        int oldSize = size;
+        int i = 0, k = 0;
+        for (int j = 0; j < other.pages; ++j) {
+            int otherPos = j * PAGE_INTS;
+            int key = other.arena.get(other.block, otherPos);
+            // move the pages that are only in this set
+            int next = skipPages(i, key);
+            if (dest != block && next > i) {
+                arena.copy(block, i * PAGE_INTS, dest, k * PAGE_INTS,
+                        (next - i) * PAGE_INTS);
+            }
+            k += next - i;
+            i = next;
+            boolean isShared = i < pages && keyAt(i) == key;
+            int pos = i * PAGE_INTS;
+            int destPos = k++ * PAGE_INTS;
+            if (dest != block) {
+                arena.set(dest, destPos, key);
+            }
+            for (int w = 1; w <= PAGE_WORDS; ++w) {
+                int word = isShared ? arena.get(block, pos + w) : 0;
+                int bits = other.arena.get(other.block, otherPos + w) & ~word;
+                if (bits != 0 || dest != block) {
+                    arena.set(dest, destPos + w, word | bits);
+                }
+                if (bits != 0) {
+                    size += Integer.bitCount(bits);
+                    if (diff != null) {
+                        int base = (key << PAGE_SHIFT) | ((w - 1) << 5);
+                        for (; bits != 0; bits &= bits - 1) {
+                            diff.addObject(indexer.getObject(
+                                    base | Integer.numberOfTrailingZeros(bits)));
+                        }
+                    }
+                }
+            }
+            if (isShared) {
+                ++i;
+            }
+        }
+        if (dest != block) {
+            if (i < pages) {
+                arena.copy(block, i * PAGE_INTS, dest, k * PAGE_INTS,
+                        (pages - i) * PAGE_INTS);
+            }
+            replaceBlock(dest, newCount * PAGE_INTS);
+            pages = newCount;
+        }
+        return size != oldSize;
+    }
+
+    /**
+     * @return the position of the first page from {@code page}
+     * whose key is not less than {@code key}.
+     */
+    private int skipPages(int page, int key) {
+        while (page < pages && keyAt(page) < key) {
+            ++page;
+        }
+        return page;
+    }
+
+    private int keyAt(int page) {
+        return arena.get(block, page * PAGE_INTS);
+    }
+
+    private static int wordPos(int page, int w) {
+        return page * PAGE_INTS + 1 + w;
+    }
+
+    private void replaceBlock(long newBlock, int newSize) {
+        if (block != NO_BLOCK) {
+            arena.free(block, capacity);
+        }
+        block = newBlock;
+        capacity = OffHeapArena.capacityFor(newSize);
+    }
+
+    @Override
+    public void removeIf(Predicate<CSObj> filter) {
+        if (pages < 0) {
+            int newSize = 0;
+            for (int i = 0; i < size; ++i) {
+                int index = arena.get(block, i);
+                if (!filter.test(indexer.getObject(index))) {
+                    arena.set(block, newSize++, index);
+                }
+            }
+            size = newSize;
+            return;
+        }
+        int kept = 0;
+        size = 0;
+        for (int page = 0; page < pages; ++page) {
+            int key = keyAt(page);
+            int count = 0;
+            for (int w = 0; w < PAGE_WORDS; ++w) {
+                int pos = wordPos(page, w);
+                int word = arena.get(block, pos);
+                int base = (key << PAGE_SHIFT) | (w << 5);
+                for (int bits = word; bits != 0; bits &= bits - 1) {
+                    int bit = Integer.numberOfTrailingZeros(bits);
+                    if (filter.test(indexer.getObject(base | bit))) {
+                        word &= ~(1 << bit);
+                    }
+                }
+                // the page is moved to position kept, where kept <= page
+                arena.set(block, wordPos(kept, w), word);
+                count += Integer.bitCount(word);
+            }
+            if (count > 0) {
+                arena.set(block, kept * PAGE_INTS, key);
+                ++kept;
+                size += count;
+            }
+        }
+        pages = kept;
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        int index = indexer.getIndex(obj);
+        if (pages < 0) {
+            return searchArray(index) >= 0;
+        }
+        int page = searchPage(index >>> PAGE_SHIFT);
+        return page >= 0 && (arena.get(block,
+                wordPos(page, (index >>> 5) & (PAGE_WORDS - 1))) & (1 << index)) != 0;
+    }
+
+    /**
+     * Binary search for {@code index} in the array form.
+     *
+     * @return position of the index if it is in this set;
+     * otherwise, {@code -(insertion point) - 1}.
+     */
+    private int searchArray(int index) {
+        int low = 0, high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = arena.get(block, mid);
+            if (value < index) {
+                low = mid + 1;
+            } else if (value > index) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Binary search for the page of {@code key} in the bitmap form.
+     *
+     * @return position of the page if it exists;
+     * otherwise, {@code -(insertion point) - 1}.
+     */
+    private int searchPage(int key) {
+        int low = 0, high = pages - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = keyAt(mid);
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof CSObj obj && OffHeapPointsToSet.this.contains(obj);
+            }
+
+            @Override
+            @Nonnull
+            public Iterator<CSObj> iterator() {
+                return OffHeapPointsToSet.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return getObjects().stream();
+    }
+
+    @Override
+    public Iterator<CSObj> iterator() {
+        return pages < 0 ? new ArrayIterator() : new PageIterator();
+    }
+
+    @Override
+    public PointsToSet copy() {
+        PointsToSet copy = heapSetFactory.get();
+        copy.addAll(this);
+        return copy;
+    }
+
+    /**
+     * @return the number of pages of this set, or -1 if this set is
+     * in the array form. This method is for testing.
+     */
+    int getPageCount() {
+        return pages;
+    }
+
+    @Override
+    public String toString() {
+        return getObjects().toString();
+    }
+
+    private class ArrayIterator implements Iterator<CSObj> {
+
+        private int cursor = 0;
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size;
+        }
+
+        @Override
+        public CSObj next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return indexer.getObject(arena.get(block, cursor++));
+        }
+    }
+
+    private class PageIterator implements Iterator<CSObj> {
+
+        private int page = 0;
+
+        /**
+         * Next word to read in current page.
+         */
+        private int w = 0;
+
+        /**
+         * Remaining bits of current word.
+         */
+        private int bits = 0;
+
+        private int base;
+
+        @Override
+        public boolean hasNext() {
+            while (bits == 0) {
+                if (w == PAGE_WORDS) {
+                    ++page;
+                    w = 0;
+                }
+                if (page >= pages) {
+                    return false;
+                }
+                base = (keyAt(page) << PAGE_SHIFT) | (w << 5);
+                bits = arena.get(block, wordPos(page, w++));
+            }
+            return true;
+        }
+
+        @Override
+        public CSObj next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int bit = Integer.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            return indexer.getObject(base | bit);
+        }
+    }
+}
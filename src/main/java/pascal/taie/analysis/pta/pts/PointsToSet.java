@@ -68,6 +68,26 @@ public interface PointsToSet extends Iterable<CSObj>, Copyable<PointsToSet> {
      */
     void removeIf(Predicate<CSObj> filter);
 
+    /**
+     * @return a new set which contains the objects that are in
+     * both this set and {@code pts}.
+     */
+    default PointsToSet intersect(PointsToSet pts) {
+        PointsToSet result = copy();
+        result.removeIf(o -> !pts.contains(o));
+        return result;
+    }
+
+    /**
+     * @return a new set which contains the objects that are in
+     * this set but not in {@code pts}.
+     */
+    default PointsToSet subtract(PointsToSet pts) {
+        PointsToSet result = copy();
+        result.removeIf(pts::contains);
+        return result;
+    }
+
     /**
      * @return true if this set contains given object, otherwise false.
      */
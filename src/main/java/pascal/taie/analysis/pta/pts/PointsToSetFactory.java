@@ -23,8 +23,14 @@
 package pascal.taie.analysis.pta.pts;
 
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.Canonicalizer;
 import pascal.taie.util.Indexer;
+import pascal.taie.util.collection.Sets;
 
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.Set;
 import java.util.function.Supplier;
 
 /**
@@ -34,14 +40,117 @@ public class PointsToSetFactory {
 
     private final Supplier<PointsToSet> factory;
 
+    private final boolean isSharing;
+
+    /**
+     * Factory of the points-to sets of pointers.
+     */
+    private final Supplier<PointsToSet> pointerSetFactory;
+
+    /**
+     * Storage of off-heap points-to sets, which is null
+     * if the points-to sets are not stored off heap.
+     */
+    @Nullable
+    private final OffHeapArena arena;
+
     public PointsToSetFactory(Indexer<CSObj> objIndexer) {
-        factory = () -> new HybridBitPointsToSet(objIndexer, true);
+        this(objIndexer, "sparse-bit", false, null, -1);
+    }
+
+    /**
+     * @param objIndexer     indexer of the objects in points-to sets
+     * @param representation representation of the points-to sets, i.e.,
+     *                       {@code sparse-bit}, {@code regular-bit}, {@code hash},
+     *                       {@code roaring}, {@code bdd}, or {@code off-heap}
+     * @param isSharing      whether the points-to sets share their contents
+     *                       until they are modified, i.e., copy-on-write
+     * @param spillDir       directory of the files which back the off-heap
+     *                       points-to sets, or null if the sets are kept
+     *                       in memory. It is only allowed for {@code off-heap}
+     *                       representation.
+     * @param spillMemory    maximum megabytes of the spilled points-to sets
+     *                       which are mapped in memory, or -1 if there is
+     *                       no limit. It only works with {@code spillDir}.
+     */
+    public PointsToSetFactory(Indexer<CSObj> objIndexer,
+                              String representation, boolean isSharing,
+                              @Nullable String spillDir, int spillMemory) {
+        Supplier<PointsToSet> setFactory = switch (representation) {
+            case "sparse-bit", "off-heap" -> () -> new HybridBitPointsToSet(objIndexer, true);
+            case "regular-bit" -> () -> new HybridBitPointsToSet(objIndexer, false);
+            case "hash" -> HybridHashPointsToSet::new;
+            case "roaring" -> () -> new RoaringPointsToSet(objIndexer);
+            case "bdd" -> {
+                BDDManager manager = new BDDManager();
+                yield () -> new BDDPointsToSet(manager, objIndexer);
+            }
+            default -> throw new ConfigException(
+                    "Unknown points-to set representation: " + representation);
+        };
+        this.factory = isSharing ?
+                () -> new CopyOnWritePointsToSet(setFactory.get()) :
+                setFactory;
+        this.isSharing = isSharing;
+        if (spillMemory >= 0 && spillDir == null) {
+            throw new ConfigException(
+                    "Memory of spilled points-to sets is given without spill directory");
+        }
+        if (representation.equals("off-heap")) {
+            if (isSharing) {
+                throw new ConfigException(
+                        "Off-heap points-to sets do not support sharing");
+            }
+            OffHeapArena arena = spillDir != null ?
+                    new MappedOffHeapArena(Path.of(spillDir),
+                            spillMemory < 0 ? -1 : (long) spillMemory << 20) :
+                    new OffHeapArena();
+            this.arena = arena;
+            this.pointerSetFactory = () ->
+                    new OffHeapPointsToSet(arena, objIndexer, setFactory);
+        } else {
+            if (spillDir != null) {
+                throw new ConfigException(
+                        "Only off-heap points-to sets can be spilled to disk");
+            }
+            this.arena = null;
+            this.pointerSetFactory = factory;
+        }
     }
 
     public PointsToSet make() {
         return factory.get();
     }
 
+    /**
+     * Makes the points-to set of a pointer, which lives as long as
+     * the pointer. Different from {@link #make()}, the sets made by
+     * this method are stored off heap for {@code off-heap} representation,
+     * and other sets (e.g., the temporary sets) are still on heap.
+     */
+    public PointsToSet makeForPointer() {
+        return pointerSetFactory.get();
+    }
+
+    /**
+     * Invoked when a phase of the solver finishes. The off-heap points-to
+     * sets which have not been updated in recent phases are flushed to
+     * their spill files (if any) at this point.
+     */
+    public void onPhaseFinish() {
+        if (arena != null) {
+            arena.flush();
+        }
+    }
+
+    /**
+     * @return the number of bytes of the off-heap memory reserved
+     * for points-to sets.
+     */
+    public long getOffHeapBytes() {
+        return arena != null ? arena.getReservedBytes() : 0;
+    }
+
     /**
      * Convenient method for making one-element points-to set.
      */
@@ -50,4 +159,54 @@ public class PointsToSetFactory {
         set.addObject(obj);
         return set;
     }
+
+    /**
+     * Makes the equal sets in given points-to sets share storage.
+     * This method modifies the sets only when sharing is enabled,
+     * and it should be called after the sets are stable, e.g., when
+     * the pointer analysis finishes, otherwise the shared sets
+     * will be copied again on modification.
+     *
+     * @return the statistics of the storage of given sets.
+     */
+    public SharingStatistics canonicalize(Iterable<PointsToSet> sets) {
+        Canonicalizer<CopyOnWritePointsToSet.Content> canonicalizer =
+                isSharing ? new Canonicalizer<>() : null;
+        Set<PointsToSet> visited = Sets.newSet();
+        Set<PointsToSet> storagesBefore = Sets.newSet();
+        Set<PointsToSet> storagesAfter = Sets.newSet();
+        long objects = 0;
+        for (PointsToSet set : sets) {
+            if (!visited.add(set)) {
+                continue;
+            }
+            objects += set.size();
+            if (set instanceof CopyOnWritePointsToSet cowSet) {
+                storagesBefore.add(cowSet.getStorage());
+                cowSet.canonicalize(canonicalizer);
+                storagesAfter.add(cowSet.getStorage());
+            } else {
+                storagesBefore.add(set);
+                storagesAfter.add(set);
+            }
+        }
+        long storedObjects = storagesAfter.stream()
+                .mapToLong(PointsToSet::size)
+                .sum();
+        return new SharingStatistics(visited.size(), storagesBefore.size(),
+                storagesAfter.size(), objects, storedObjects);
+    }
+
+    /**
+     * Statistics of the storage of points-to sets.
+     *
+     * @param sets           number of points-to sets
+     * @param storagesBefore number of underlying sets before canonicalization
+     * @param storagesAfter  number of underlying sets after canonicalization
+     * @param objects        total size of the points-to sets
+     * @param storedObjects  total size of the underlying sets
+     */
+    public record SharingStatistics(int sets, int storagesBefore, int storagesAfter,
+                                    long objects, long storedObjects) {
+    }
 }
@@ -0,0 +1,885 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.Indexer;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set which stores the indexes of the objects in a compressed
+ * bitmap, in the style of Roaring bitmaps.
+ * <p>
+ * The index space is split into chunks of 2^16 indexes, and the indexes in
+ * each non-empty chunk are stored in a container, which is either a sorted
+ * array of the lower 16 bits of the indexes (when the chunk has at most
+ * {@link #ARRAY_MAX} indexes), a bitmap of 2^16 bits, or a sorted array of
+ * runs of consecutive indexes. Thus, a small points-to set takes two bytes
+ * per object, and a large one takes at most one bit per index in the chunks
+ * it touches, instead of one bit per index up to the largest index, or four
+ * bytes per run if its objects are allocated consecutively (e.g., the objects
+ * of the same allocation site in different heap contexts). The containers are
+ * merged container by container, word by word for bitmaps, and by merging
+ * sorted arrays otherwise. The run containers are converted to the other
+ * containers before they are modified, and a container is converted to
+ * a run container after a merge if the run container is smaller.
+ */
+class RoaringPointsToSet implements PointsToSet {
+
+    /**
+     * Maximum number of indexes in an array container. An array container
+     * of this size takes the same space as a bitmap container.
+     */
+    private static final int ARRAY_MAX = 4096;
+
+    /**
+     * Number of words of a bitmap container.
+     */
+    private static final int BITMAP_WORDS = (1 << 16) / Long.SIZE;
+
+    private static final int[] EMPTY_KEYS = {};
+
+    private static final Object[] EMPTY_CONTAINERS = {};
+
+    private final Indexer<CSObj> indexer;
+
+    /**
+     * Higher 16 bits of the indexes in each container, in ascending order.
+     */
+    private int[] keys = EMPTY_KEYS;
+
+    /**
+     * Containers, each of which is a {@code char[]} (array container),
+     * a {@code long[]} (bitmap container), or an {@code int[]} (run container).
+     * Each run of a run container packs the start index of the run
+     * in the higher 16 bits and the length of the run minus one
+     * in the lower 16 bits.
+     */
+    private Object[] containers = EMPTY_CONTAINERS;
+
+    /**
+     * Number of indexes in each container.
+     */
+    private int[] cards = EMPTY_KEYS;
+
+    /**
+     * Number of containers.
+     */
+    private int nContainers = 0;
+
+    /**
+     * Number of objects in this set.
+     */
+    private int size = 0;
+
+    RoaringPointsToSet(Indexer<CSObj> indexer) {
+        this.indexer = indexer;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        int index = indexer.getIndex(obj);
+        int key = index >>> 16;
+        char low = (char) index;
+        int pos = Arrays.binarySearch(keys, 0, nContainers, key);
+        if (pos < 0) {
+            char[] array = new char[4];
+            array[0] = low;
+            insertContainer(-pos - 1, key, array, 1);
+            ++size;
+            return true;
+        }
+        Object container = containers[pos];
+        if (container instanceof int[] runs) {
+            if (containsLow(runs, low)) {
+                return false;
+            }
+            container = fromRuns(runs, cards[pos]);
+            containers[pos] = container;
+        }
+        if (container instanceof long[] bitmap) {
+            if (!setBit(bitmap, low)) {
+                return false;
+            }
+        } else {
+            char[] array = (char[]) container;
+            int card = cards[pos];
+            int i = Arrays.binarySearch(array, 0, card, low);
+            if (i >= 0) {
+                return false;
+            }
+            if (card == ARRAY_MAX) {
+                long[] bitmap = toBitmap(array, card);
+                setBit(bitmap, low);
+                containers[pos] = bitmap;
+            } else {
+                i = -i - 1;
+                if (card == array.length) {
+                    array = Arrays.copyOf(array, Math.min(ARRAY_MAX, card * 2));
+                    containers[pos] = array;
+                }
+                System.arraycopy(array, i, array, i + 1, card - i);
+                array[i] = low;
+            }
+        }
+        ++cards[pos];
+        ++size;
+        return true;
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        if (pts instanceof RoaringPointsToSet other) {
+            return union(other, null);
+        }
+        boolean changed = false;
+        for (CSObj obj : pts) {
+            changed |= addObject(obj);
+        }
+        return changed;
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        RoaringPointsToSet diff = new RoaringPointsToSet(indexer);
+        if (pts instanceof RoaringPointsToSet other) {
+            union(other, diff);
+        } else {
+            for (CSObj obj : pts) {
+                if (addObject(obj)) {
+                    diff.addObject(obj);
+                }
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Adds the indexes in {@code other} to this set. If {@code diff} is not
+     * null, the indexes which are not in this set are added to {@code diff}
+     * as well. {@code diff} must be empty, so that the containers can
+     * be appended to it in the order of their keys.
+     *
+     * @return {@code true} if this set changed.
+     */
+    private boolean union(RoaringPointsToSet other, RoaringPointsToSet diff) {
+        int oldSize = size;
+        int pos = 0;
+        for (int j = 0; j < other.nContainers; ++j) {
+            int key = other.keys[j];
+            Object otherContainer = other.containers[j];
+            int otherCard = other.cards[j];
+            pos = Arrays.binarySearch(keys, pos, nContainers, key);
+            if (pos < 0) {
+                pos = -pos - 1;
+                insertContainer(pos, key, optimize(
+                        copyContainer(otherContainer, otherCard), otherCard), otherCard);
+                size += otherCard;
+                if (diff != null) {
+                    diff.appendContainer(key,
+                            copyContainer(otherContainer, otherCard), otherCard);
+                }
+            } else {
+                if (containers[pos] instanceof int[] runs) {
+                    containers[pos] = fromRuns(runs, cards[pos]);
+                }
+                unionContainer(pos, materialize(otherContainer, otherCard),
+                        otherCard, diff);
+                containers[pos] = optimize(containers[pos], cards[pos]);
+            }
+            ++pos;
+        }
+        return size != oldSize;
+    }
+
+    /**
+     * Adds the indexes in given container to the container at {@code pos}.
+     * Neither of the containers is a run container.
+     */
+    private void unionContainer(int pos, Object otherContainer, int otherCard,
+                                RoaringPointsToSet diff) {
+        int key = keys[pos];
+        Object container = containers[pos];
+        int card = cards[pos];
+        if (container instanceof long[] bitmap) {
+            if (otherContainer instanceof long[] otherBitmap) {
+                long[] diffBitmap = diff != null ? new long[BITMAP_WORDS] : null;
+                int added = 0;
+                for (int w = 0; w < BITMAP_WORDS; ++w) {
+                    long bits = otherBitmap[w] & ~bitmap[w];
+                    if (bits != 0) {
+                        bitmap[w] |= bits;
+                        added += Long.bitCount(bits);
+                        if (diffBitmap != null) {
+                            diffBitmap[w] = bits;
+                        }
+                    }
+                }
+                if (added > 0) {
+                    cards[pos] += added;
+                    size += added;
+                    if (diff != null) {
+                        diff.appendContainer(key, toContainer(diffBitmap, added), added);
+                    }
+                }
+            } else {
+                char[] otherArray = (char[]) otherContainer;
+                char[] diffArray = diff != null ? new char[otherCard] : null;
+                int added = 0;
+                for (int i = 0; i < otherCard; ++i) {
+                    char low = otherArray[i];
+                    if (setBit(bitmap, low)) {
+                        if (diffArray != null) {
+                            diffArray[added] = low;
+                        }
+                        ++added;
+                    }
+                }
+                if (added > 0) {
+                    cards[pos] += added;
+                    size += added;
+                    if (diff != null) {
+                        diff.appendContainer(key, diffArray, added);
+                    }
+                }
+            }
+        } else {
+            char[] array = (char[]) container;
+            if (otherContainer instanceof long[] otherBitmap) {
+                long[] diffBitmap = otherBitmap.clone();
+                for (int i = 0; i < card; ++i) {
+                    char low = array[i];
+                    diffBitmap[low >>> 6] &= ~(1L << low);
+                }
+                int added = otherCard - countBits(otherBitmap, array, card);
+                if (added > 0) {
+                    long[] bitmap = otherBitmap.clone();
+                    for (int i = 0; i < card; ++i) {
+                        setBit(bitmap, array[i]);
+                    }
+                    containers[pos] = bitmap;
+                    cards[pos] += added;
+                    size += added;
+                    if (diff != null) {
+                        diff.appendContainer(key, toContainer(diffBitmap, added), added);
+                    }
+                }
+            } else {
+                char[] otherArray = (char[]) otherContainer;
+                // the indexes in other array but not in this array
+                char[] addedArray = new char[otherCard];
+                int added = 0;
+                for (int i = 0, j = 0; j < otherCard; ++j) {
+                    char low = otherArray[j];
+                    while (i < card && array[i] < low) {
+                        ++i;
+                    }
+                    if (i == card || array[i] != low) {
+                        addedArray[added++] = low;
+                    }
+                }
+                if (added > 0) {
+                    int newCard = card + added;
+                    if (newCard <= ARRAY_MAX) {
+                        containers[pos] = mergeArrays(array, card, addedArray, added);
+                    } else {
+                        long[] bitmap = toBitmap(array, card);
+                        for (int i = 0; i < added; ++i) {
+                            setBit(bitmap, addedArray[i]);
+                        }
+                        containers[pos] = bitmap;
+                    }
+                    cards[pos] = newCard;
+                    size += added;
+                    if (diff != null) {
+                        diff.appendContainer(key, addedArray, added);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void removeIf(Predicate<CSObj> filter) {
+        int n = 0;
+        size = 0;
+        for (int pos = 0; pos < nContainers; ++pos) {
+            int high = keys[pos] << 16;
+            Object container = materialize(containers[pos], cards[pos]);
+            int card = cards[pos];
+            if (container instanceof long[] bitmap) {
+                for (int w = 0; w < BITMAP_WORDS; ++w) {
+                    long word = bitmap[w];
+                    while (word != 0) {
+                        int bit = Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                        if (filter.test(indexer.getObject(high | (w << 6) | bit))) {
+                            bitmap[w] &= ~(1L << bit);
+                            --card;
+                        }
+                    }
+                }
+                container = toContainer(bitmap, card);
+            } else {
+                char[] array = (char[]) container;
+                int kept = 0;
+                for (int i = 0; i < card; ++i) {
+                    if (!filter.test(indexer.getObject(high | array[i]))) {
+                        array[kept++] = array[i];
+                    }
+                }
+                card = kept;
+            }
+            if (card > 0) {
+                keys[n] = keys[pos];
+                containers[n] = optimize(container, card);
+                cards[n] = card;
+                ++n;
+                size += card;
+            }
+        }
+        Arrays.fill(containers, n, nContainers, null);
+        nContainers = n;
+    }
+
+    @Override
+    public PointsToSet intersect(PointsToSet pts) {
+        return pts instanceof RoaringPointsToSet other ?
+                combine(other, true) : PointsToSet.super.intersect(pts);
+    }
+
+    @Override
+    public PointsToSet subtract(PointsToSet pts) {
+        return pts instanceof RoaringPointsToSet other ?
+                combine(other, false) : PointsToSet.super.subtract(pts);
+    }
+
+    /**
+     * @param intersect if {@code true}, computes the intersection of this
+     *                  set and {@code other}, otherwise, computes the
+     *                  objects in this set but not in {@code other}.
+     * @return a new set containing the result.
+     */
+    private RoaringPointsToSet combine(RoaringPointsToSet other, boolean intersect) {
+        RoaringPointsToSet result = new RoaringPointsToSet(indexer);
+        int j = 0;
+        for (int pos = 0; pos < nContainers; ++pos) {
+            int key = keys[pos];
+            while (j < other.nContainers && other.keys[j] < key) {
+                ++j;
+            }
+            int card = cards[pos];
+            if (j < other.nContainers && other.keys[j] == key) {
+                Object container = combineContainers(
+                        materialize(containers[pos], card), card,
+                        materialize(other.containers[j], other.cards[j]),
+                        other.cards[j], intersect);
+                int resultCard = container instanceof long[] bitmap ?
+                        countBits(bitmap) : ((char[]) container).length;
+                if (resultCard > 0) {
+                    result.appendContainer(key,
+                            optimize(container, resultCard), resultCard);
+                }
+            } else if (!intersect) {
+                result.appendContainer(key,
+                        copyContainer(containers[pos], card), card);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Combines two containers, neither of which is a run container.
+     *
+     * @return a new container which is a bitmap container if it has more
+     * than {@link #ARRAY_MAX} indexes, or an array container whose length
+     * is the number of its indexes.
+     * @see #combine(RoaringPointsToSet, boolean)
+     */
+    private static Object combineContainers(Object container, int card,
+                                            Object otherContainer, int otherCard,
+                                            boolean intersect) {
+        if (container instanceof char[] array) {
+            char[] result = new char[card];
+            int n = 0;
+            for (int i = 0; i < card; ++i) {
+                if (containsLow(otherContainer, otherCard, array[i]) == intersect) {
+                    result[n++] = array[i];
+                }
+            }
+            return Arrays.copyOf(result, n);
+        }
+        long[] bitmap = (long[]) container;
+        if (otherContainer instanceof char[] otherArray) {
+            if (intersect) {
+                char[] result = new char[otherCard];
+                int n = 0;
+                for (int i = 0; i < otherCard; ++i) {
+                    char low = otherArray[i];
+                    if ((bitmap[low >>> 6] & (1L << low)) != 0) {
+                        result[n++] = low;
+                    }
+                }
+                return Arrays.copyOf(result, n);
+            } else {
+                long[] result = bitmap.clone();
+                for (int i = 0; i < otherCard; ++i) {
+                    char low = otherArray[i];
+                    result[low >>> 6] &= ~(1L << low);
+                }
+                return toContainer(result, countBits(result));
+            }
+        }
+        long[] otherBitmap = (long[]) otherContainer;
+        long[] result = new long[BITMAP_WORDS];
+        int resultCard = 0;
+        for (int w = 0; w < BITMAP_WORDS; ++w) {
+            result[w] = intersect ?
+                    bitmap[w] & otherBitmap[w] :
+                    bitmap[w] & ~otherBitmap[w];
+            resultCard += Long.bitCount(result[w]);
+        }
+        return toContainer(result, resultCard);
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        int index = indexer.getIndex(obj);
+        int pos = Arrays.binarySearch(keys, 0, nContainers, index >>> 16);
+        if (pos < 0) {
+            return false;
+        }
+        char low = (char) index;
+        Object container = containers[pos];
+        return containsLow(containers[pos], cards[pos], low);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<CSObj> iterator() {
+                return RoaringPointsToSet.this.iterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof CSObj obj && RoaringPointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return getObjects().stream();
+    }
+
+    @Override
+    public Iterator<CSObj> iterator() {
+        return new ObjectIterator();
+    }
+
+    @Override
+    public PointsToSet copy() {
+        RoaringPointsToSet copy = new RoaringPointsToSet(indexer);
+        copy.keys = Arrays.copyOf(keys, nContainers);
+        copy.cards = Arrays.copyOf(cards, nContainers);
+        copy.containers = new Object[nContainers];
+        for (int pos = 0; pos < nContainers; ++pos) {
+            copy.containers[pos] = copyContainer(containers[pos], cards[pos]);
+        }
+        copy.nContainers = nContainers;
+        copy.size = size;
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return getObjects().toString();
+    }
+
+    /**
+     * @return the kind of the container of the indexes whose higher 16 bits
+     * are {@code key}, i.e., {@code "array"}, {@code "bitmap"}, or
+     * {@code "run"}, or {@code null} if this set has no such indexes.
+     * This method is for testing.
+     */
+    String getContainerKind(int key) {
+        int pos = Arrays.binarySearch(keys, 0, nContainers, key);
+        if (pos < 0) {
+            return null;
+        }
+        Object container = containers[pos];
+        return container instanceof long[] ? "bitmap" :
+                container instanceof int[] ? "run" : "array";
+    }
+
+    private void insertContainer(int pos, int key, Object container, int card) {
+        if (nContainers == keys.length) {
+            int newLength = Math.max(4, nContainers * 2);
+            keys = Arrays.copyOf(keys, newLength);
+            containers = Arrays.copyOf(containers, newLength);
+            cards = Arrays.copyOf(cards, newLength);
+        }
+        int moved = nContainers - pos;
+        System.arraycopy(keys, pos, keys, pos + 1, moved);
+        System.arraycopy(containers, pos, containers, pos + 1, moved);
+        System.arraycopy(cards, pos, cards, pos + 1, moved);
+        keys[pos] = key;
+        containers[pos] = container;
+        cards[pos] = card;
+        ++nContainers;
+    }
+
+    /**
+     * Appends a container whose key is larger than the keys of
+     * all containers of this set.
+     */
+    private void appendContainer(int key, Object container, int card) {
+        insertContainer(nContainers, key, container, card);
+        size += card;
+    }
+
+    /**
+     * Sets a bit in given bitmap.
+     *
+     * @return {@code true} if the bit was not set.
+     */
+    private static boolean setBit(long[] bitmap, char low) {
+        int w = low >>> 6;
+        long mask = 1L << low;
+        if ((bitmap[w] & mask) != 0) {
+            return false;
+        }
+        bitmap[w] |= mask;
+        return true;
+    }
+
+    private static boolean containsLow(Object container, int card, char low) {
+        if (container instanceof long[] bitmap) {
+            return (bitmap[low >>> 6] & (1L << low)) != 0;
+        } else if (container instanceof int[] runs) {
+            return containsLow(runs, low);
+        } else {
+            return Arrays.binarySearch((char[]) container, 0, card, low) >= 0;
+        }
+    }
+
+    private static boolean containsLow(int[] runs, char low) {
+        int lo = 0, hi = runs.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int start = runs[mid] >>> 16;
+            if (low < start) {
+                hi = mid - 1;
+            } else if (low > start + (runs[mid] & 0xFFFF)) {
+                lo = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int countBits(long[] bitmap) {
+        int count = 0;
+        for (long word : bitmap) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of indexes in given array which are set in given bitmap.
+     */
+    private static int countBits(long[] bitmap, char[] array, int card) {
+        int count = 0;
+        for (int i = 0; i < card; ++i) {
+            char low = array[i];
+            if ((bitmap[low >>> 6] & (1L << low)) != 0) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private static long[] toBitmap(char[] array, int card) {
+        long[] bitmap = new long[BITMAP_WORDS];
+        for (int i = 0; i < card; ++i) {
+            setBit(bitmap, array[i]);
+        }
+        return bitmap;
+    }
+
+    /**
+     * @return given bitmap, or an array container with the same indexes
+     * if the bitmap has at most {@link #ARRAY_MAX} indexes.
+     */
+    private static Object toContainer(long[] bitmap, int card) {
+        if (card > ARRAY_MAX) {
+            return bitmap;
+        }
+        char[] array = new char[card];
+        int i = 0;
+        for (int w = 0; w < BITMAP_WORDS; ++w) {
+            long word = bitmap[w];
+            while (word != 0) {
+                array[i++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return array;
+    }
+
+    private static Object copyContainer(Object container, int card) {
+        if (container instanceof long[] bitmap) {
+            return bitmap.clone();
+        } else if (container instanceof int[] runs) {
+            return runs.clone();
+        } else {
+            return Arrays.copyOf((char[]) container, card);
+        }
+    }
+
+    /**
+     * @return given container if it is not a run container, otherwise,
+     * a new array or bitmap container with the same indexes.
+     */
+    private static Object materialize(Object container, int card) {
+        return container instanceof int[] runs ? fromRuns(runs, card) : container;
+    }
+
+    /**
+     * Converts a run container to an array container whose length is
+     * {@code card}, or a bitmap container if {@code card} exceeds
+     * {@link #ARRAY_MAX}.
+     */
+    private static Object fromRuns(int[] runs, int card) {
+        if (card > ARRAY_MAX) {
+            long[] bitmap = new long[BITMAP_WORDS];
+            for (int run : runs) {
+                int start = run >>> 16;
+                int end = start + (run & 0xFFFF);
+                int firstWord = start >>> 6, lastWord = end >>> 6;
+                long firstMask = -1L << start;
+                long lastMask = -1L >>> (63 - (end & 63));
+                if (firstWord == lastWord) {
+                    bitmap[firstWord] |= firstMask & lastMask;
+                } else {
+                    bitmap[firstWord] |= firstMask;
+                    Arrays.fill(bitmap, firstWord + 1, lastWord, -1L);
+                    bitmap[lastWord] |= lastMask;
+                }
+            }
+            return bitmap;
+        } else {
+            char[] array = new char[card];
+            int i = 0;
+            for (int run : runs) {
+                int start = run >>> 16;
+                int end = start + (run & 0xFFFF);
+                for (int low = start; low <= end; ++low) {
+                    array[i++] = (char) low;
+                }
+            }
+            return array;
+        }
+    }
+
+    /**
+     * @return a run container with the same indexes as given array or
+     * bitmap container if the run container is smaller, otherwise,
+     * the given container. A run container takes four bytes per run,
+     * an array container takes two bytes per index, and a bitmap
+     * container takes 8 KB.
+     */
+    private static Object optimize(Object container, int card) {
+        if (container instanceof int[]) {
+            return container;
+        }
+        char[] lows;
+        if (container instanceof long[] bitmap) {
+            lows = new char[card];
+            int i = 0;
+            for (int w = 0; w < BITMAP_WORDS; ++w) {
+                long word = bitmap[w];
+                while (word != 0) {
+                    lows[i++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        } else {
+            lows = (char[]) container;
+        }
+        int nRuns = 0;
+        for (int i = 0; i < card; ++i) {
+            if (i == 0 || lows[i] != lows[i - 1] + 1) {
+                ++nRuns;
+            }
+        }
+        int bytes = card <= ARRAY_MAX ? card * Character.BYTES : BITMAP_WORDS * Long.BYTES;
+        if (nRuns * Integer.BYTES >= bytes) {
+            return container;
+        }
+        int[] runs = new int[nRuns];
+        int n = 0, start = lows[0];
+        for (int i = 1; i <= card; ++i) {
+            if (i == card || lows[i] != lows[i - 1] + 1) {
+                runs[n++] = (start << 16) | (lows[i - 1] - start);
+                if (i < card) {
+                    start = lows[i];
+                }
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Merges two disjoint sorted arrays.
+     */
+    private static char[] mergeArrays(char[] a, int aCard, char[] b, int bCard) {
+        char[] result = new char[aCard + bCard];
+        int i = 0, j = 0, k = 0;
+        while (i < aCard && j < bCard) {
+            result[k++] = a[i] < b[j] ? a[i++] : b[j++];
+        }
+        System.arraycopy(a, i, result, k, aCard - i);
+        System.arraycopy(b, j, result, k + aCard - i, bCard - j);
+        return result;
+    }
+
+    /**
+     * Iterates over the objects in the order of their indexes.
+     */
+    private class ObjectIterator implements Iterator<CSObj> {
+
+        /**
+         * Position of current container.
+         */
+        private int pos = 0;
+
+        /**
+         * Position in current array container, index of current word
+         * in current bitmap container, or position of current run in
+         * current run container.
+         */
+        private int i = 0;
+
+        /**
+         * Remaining bits of current word in current bitmap container.
+         */
+        private long word;
+
+        /**
+         * Offset of next index in current run of current run container,
+         * whose position is {@link #i}.
+         */
+        private int offset = 0;
+
+        private int next = -1;
+
+        private ObjectIterator() {
+            if (nContainers > 0 && containers[0] instanceof long[] bitmap) {
+                word = bitmap[0];
+            }
+            advance();
+        }
+
+        /**
+         * Finds the next index and stores it in {@link #next},
+         * or sets {@link #next} to -1 if all indexes have been iterated.
+         */
+        private void advance() {
+            while (pos < nContainers) {
+                Object container = containers[pos];
+                int high = keys[pos] << 16;
+                if (container instanceof long[] bitmap) {
+                    while (word == 0 && i < BITMAP_WORDS - 1) {
+                        word = bitmap[++i];
+                    }
+                    if (word != 0) {
+                        next = high | (i << 6) | Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                        return;
+                    }
+                } else if (container instanceof int[] runs) {
+                    if (i < runs.length) {
+                        next = high | ((runs[i] >>> 16) + offset);
+                        if (offset++ == (runs[i] & 0xFFFF)) {
+                            ++i;
+                            offset = 0;
+                        }
+                        return;
+                    }
+                } else if (i < cards[pos]) {
+                    next = high | ((char[]) container)[i++];
+                    return;
+                }
+                // move to next container
+                ++pos;
+                i = 0;
+                if (pos < nContainers && containers[pos] instanceof long[] bitmap) {
+                    word = bitmap[0];
+                }
+            }
+            next = -1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != -1;
+        }
+
+        @Override
+        public CSObj next() {
+            if (next == -1) {
+                throw new NoSuchElementException();
+            }
+            CSObj obj = indexer.getObject(next);
+            advance();
+            return obj;
+        }
+    }
+}
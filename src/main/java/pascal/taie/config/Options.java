@@ -222,6 +222,18 @@ public class Options implements Serializable {
         return worldCacheMode;
     }
 
+    @JsonProperty
+    @Option(names = "--world-cache-size",
+            description = "Maximum total size (in MB) of the world caches," +
+                    " the least recently used caches are evicted when it is" +
+                    " exceeded (default: ${DEFAULT-VALUE}, -1 means no limit)",
+            defaultValue = "-1")
+    private int worldCacheSize = -1;
+
+    public int getWorldCacheSize() {
+        return worldCacheSize;
+    }
+
     @JsonProperty
     @Option(names = "-scope",
             description = "Scope for method/class analyses (default: ${DEFAULT-VALUE}," +
@@ -510,6 +522,7 @@ public class Options implements Serializable {
                 ", outputDir='" + outputDir + '\'' +
                 ", preBuildIR=" + preBuildIR +
                 ", worldCacheMode=" + worldCacheMode +
+                ", worldCacheSize=" + worldCacheSize +
                 ", scope=" + scope +
                 ", nativeModel=" + nativeModel +
                 ", planFile=" + planFile +
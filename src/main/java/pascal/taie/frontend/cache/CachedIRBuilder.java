@@ -25,30 +25,144 @@ package pascal.taie.frontend.cache;
 
 import pascal.taie.ir.IR;
 import pascal.taie.ir.IRBuilder;
+import pascal.taie.ir.proginfo.MemberRef;
 import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.ClassMember;
 import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JClassLoader;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * The {@link pascal.taie.ir.IRBuilder} is for keeping the {@link IR}s of all methods to
  * prevent cyclic references with too long a path which may make
  * the serialization fail or {@link java.lang.StackOverflowError}.
+ * <p>
+ * The IRs can also be stored in a separate IR cache file
+ * (see {@link #save(IRBuilder, ClassHierarchy, File)}), which consists of
+ * one record for each class. In this case, the IRs of a class are loaded
+ * from the file when the IR of any method of the class is requested
+ * for the first time, so that the IRs of unreachable methods are never
+ * loaded into memory.
  */
 public class CachedIRBuilder implements IRBuilder {
 
+    /**
+     * IRs that have been built or loaded, but not yet requested.
+     */
     private final Map<String, IR> methodSig2IR;
 
+    /**
+     * Path of IR cache file. It is {@code null} if all IRs are kept in
+     * {@link #methodSig2IR}.
+     */
+    private final String irCacheFile;
+
+    /**
+     * Maps class names to the records of IR cache file that have not
+     * been loaded.
+     */
+    private final Map<String, Record> class2Record;
+
+    /**
+     * The objects which are referenced by the IRs in IR cache file,
+     * and shared with the world, e.g., classes, methods and types.
+     * The IR cache file refers to them by their indexes in this list.
+     */
+    private final List<Object> sharedObjects;
+
+    private transient FileChannel channel;
+
     public CachedIRBuilder(IRBuilder irBuilder, ClassHierarchy hierarchy) {
         irBuilder.buildAll(hierarchy);
         methodSig2IR = hierarchy.allClasses()
                 .map(JClass::getDeclaredMethods)
                 .flatMap(Collection::stream)
-                .filter(m -> !m.isAbstract() || m.isNative())
+                .filter(CachedIRBuilder::hasIR)
                 .collect(Collectors.toMap(JMethod::getSignature, JMethod::getIR));
+        irCacheFile = null;
+        class2Record = Map.of();
+        sharedObjects = List.of();
+    }
+
+    private CachedIRBuilder(String irCacheFile, Map<String, Record> class2Record,
+                            List<Object> sharedObjects) {
+        this.methodSig2IR = Maps.newMap();
+        this.irCacheFile = irCacheFile;
+        this.class2Record = class2Record;
+        this.sharedObjects = sharedObjects;
+    }
+
+    /**
+     * Saves the IRs of all methods in given class hierarchy to IR cache file.
+     *
+     * @return a {@link CachedIRBuilder} which loads IRs from the IR cache file.
+     * The returned builder should be serialized together with the world.
+     */
+    public static CachedIRBuilder save(
+            IRBuilder irBuilder, ClassHierarchy hierarchy, File irCacheFile)
+            throws IOException {
+        irBuilder.buildAll(hierarchy);
+        Map<Object, Integer> sharedIndexes = new IdentityHashMap<>();
+        List<Object> sharedObjects = new ArrayList<>();
+        Map<String, Record> class2Record = Maps.newMap();
+        try (FileChannel out = FileChannel.open(irCacheFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long offset = 0;
+            for (JClass jclass : hierarchy.allClasses().toList()) {
+                Map<String, IR> irs = Maps.newLinkedHashMap();
+                jclass.getDeclaredMethods()
+                        .stream()
+                        .filter(CachedIRBuilder::hasIR)
+                        .forEach(m -> irs.put(m.getSignature(), m.getIR()));
+                if (irs.isEmpty()) {
+                    continue;
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new SharedObjectOutputStream(
+                        new DeflaterOutputStream(bytes), sharedIndexes, sharedObjects)) {
+                    oos.writeObject(irs);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                int length = buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                class2Record.put(jclass.getName(), new Record(offset, length));
+                offset += length;
+            }
+        }
+        return new CachedIRBuilder(irCacheFile.getAbsolutePath(),
+                class2Record, sharedObjects);
+    }
+
+    private static boolean hasIR(JMethod method) {
+        return !method.isAbstract() || method.isNative();
     }
 
     /**
@@ -56,8 +170,43 @@ public class CachedIRBuilder implements IRBuilder {
      * so remove the IR from the map after returning it.
      */
     @Override
-    public IR buildIR(JMethod method) {
-        return methodSig2IR.remove(method.getSignature());
+    public synchronized IR buildIR(JMethod method) {
+        IR ir = methodSig2IR.remove(method.getSignature());
+        if (ir == null && irCacheFile != null) {
+            Record record = class2Record.remove(
+                    method.getDeclaringClass().getName());
+            if (record != null) {
+                methodSig2IR.putAll(load(record));
+                ir = methodSig2IR.remove(method.getSignature());
+            }
+        }
+        return ir;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, IR> load(Record record) {
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(Path.of(irCacheFile),
+                        StandardOpenOption.READ);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(record.length());
+            long position = record.offset();
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, position);
+                if (n < 0) {
+                    throw new IOException("Unexpected end of " + irCacheFile);
+                }
+                position += n;
+            }
+            try (ObjectInputStream ois = new SharedObjectInputStream(
+                    new InflaterInputStream(new ByteArrayInputStream(buffer.array())),
+                    sharedObjects)) {
+                return (Map<String, IR>) ois.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new AnalysisException("Failed to load IR from " + irCacheFile, e);
+        }
     }
 
     @Override
@@ -65,7 +214,90 @@ public class CachedIRBuilder implements IRBuilder {
         hierarchy.allClasses()
                 .map(JClass::getDeclaredMethods)
                 .flatMap(Collection::stream)
-                .filter(m -> !m.isAbstract() || m.isNative())
+                .filter(CachedIRBuilder::hasIR)
                 .forEach(JMethod::getIR);
     }
+
+    /**
+     * Object stream which writes the world whose IRs have been saved
+     * to an IR cache file by {@link #save(IRBuilder, ClassHierarchy, File)}.
+     * The world writes the builder given by this stream instead of
+     * collecting the IRs of all methods.
+     */
+    public interface IRCacheStream {
+
+        /**
+         * @return the builder which loads IRs from the IR cache file.
+         */
+        CachedIRBuilder getIRBuilder();
+    }
+
+    /**
+     * Position of the IRs of a class in IR cache file.
+     */
+    private record Record(long offset, int length) implements Serializable {
+    }
+
+    /**
+     * Reference to an object in {@link #sharedObjects}.
+     */
+    private record SharedRef(int index) implements Serializable {
+    }
+
+    /**
+     * @return {@code true} if given object is referenced by IRs,
+     * and should be shared with the world.
+     */
+    private static boolean isShared(Object obj) {
+        return obj instanceof JClass
+                || obj instanceof ClassMember
+                || obj instanceof JClassLoader
+                || obj instanceof Type
+                || obj instanceof MemberRef;
+    }
+
+    private static class SharedObjectOutputStream extends ObjectOutputStream {
+
+        private final Map<Object, Integer> sharedIndexes;
+
+        private final List<Object> sharedObjects;
+
+        private SharedObjectOutputStream(
+                OutputStream out, Map<Object, Integer> sharedIndexes,
+                List<Object> sharedObjects) throws IOException {
+            super(out);
+            this.sharedIndexes = sharedIndexes;
+            this.sharedObjects = sharedObjects;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (isShared(obj)) {
+                return new SharedRef(sharedIndexes.computeIfAbsent(obj, o -> {
+                    sharedObjects.add(o);
+                    return sharedObjects.size() - 1;
+                }));
+            }
+            return obj;
+        }
+    }
+
+    private static class SharedObjectInputStream extends ObjectInputStream {
+
+        private final List<Object> sharedObjects;
+
+        private SharedObjectInputStream(
+                InputStream in, List<Object> sharedObjects) throws IOException {
+            super(in);
+            this.sharedObjects = sharedObjects;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+            return obj instanceof SharedRef ref
+                    ? sharedObjects.get(ref.index()) : obj;
+        }
+    }
 }
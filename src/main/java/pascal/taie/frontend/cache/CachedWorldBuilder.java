@@ -29,16 +29,35 @@ import pascal.taie.WorldBuilder;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.Options;
 import pascal.taie.util.Timer;
+import pascal.taie.util.collection.Maps;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * A {@link WorldBuilder} that loads the cached world if it exists, or delegates to the
@@ -50,6 +69,33 @@ public class CachedWorldBuilder implements WorldBuilder {
 
     private static final String CACHE_DIR = "cache";
 
+    private static final String CACHE_PREFIX = "world-cache-";
+
+    private static final String CACHE_SUFFIX = ".bin";
+
+    private static final String IR_CACHE_SUFFIX = "-ir.bin";
+
+    /**
+     * File in cache directory which records the digests of the files
+     * in class paths, so that unchanged files are not digested again.
+     */
+    private static final String DIGESTS_FILE = "class-path-digests.txt";
+
+    /**
+     * Magic number at the beginning of the world cache file.
+     */
+    private static final int CACHE_MAGIC = 0x54414945; // "TAIE"
+
+    /**
+     * Version of the format of world cache file. It should be increased
+     * whenever the format is changed, so that the stale caches are rebuilt.
+     */
+    private static final int CACHE_FORMAT_VERSION = 2;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final long STACK_SIZE = 1L << 30;
+
     private final WorldBuilder delegate;
 
     public CachedWorldBuilder(WorldBuilder delegate) {
@@ -66,25 +112,39 @@ public class CachedWorldBuilder implements WorldBuilder {
         }
         File worldCacheFile = getWorldCacheFile(options);
         if (loadCache(options, worldCacheFile)) {
+            worldCacheFile.setLastModified(System.currentTimeMillis());
             return;
         }
         runWorldBuilder(options, analyses);
         saveCache(worldCacheFile);
+        evictCaches(worldCacheFile, options.getWorldCacheSize());
     }
 
     private boolean loadCache(Options options, File worldCacheFile) {
-        if (!worldCacheFile.exists()) {
+        if (!worldCacheFile.exists() || !getIRCacheFile(worldCacheFile).exists()) {
             logger.info("World cache not found in {}", worldCacheFile);
             return false;
         }
         logger.info("Loading the world cache from {}", worldCacheFile);
         Timer timer = new Timer("Load the world cache");
         timer.start();
-        ObjectInputStream ois = null;
-        try {
-            ois = new ObjectInputStream(
-                    new BufferedInputStream(new FileInputStream(worldCacheFile)));
-            World world = (World) ois.readObject();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(worldCacheFile.toPath())))) {
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != CACHE_MAGIC || version != CACHE_FORMAT_VERSION) {
+                logger.warn("Ignore world cache {} as its format (version {})" +
+                                " is not supported, expected version {}",
+                        worldCacheFile, version, CACHE_FORMAT_VERSION);
+                return false;
+            }
+            World world = runWithLargeStack(() -> {
+                try (ObjectInputStream ois = new ObjectInputStream(
+                        new BufferedInputStream(new InflaterInputStream(in),
+                                BUFFER_SIZE))) {
+                    return (World) ois.readObject();
+                }
+            });
             World.set(world);
             world.setOptions(options);
             return true;
@@ -92,13 +152,6 @@ public class CachedWorldBuilder implements WorldBuilder {
             logger.error("Failed to load world cache from {} due to {}",
                     worldCacheFile, e);
         } finally {
-            if (ois != null) {
-                try {
-                    ois.close();
-                } catch (Exception e) {
-                    logger.error("Failed to close input stream", e);
-                }
-            }
             timer.stop();
             logger.info(timer);
         }
@@ -118,26 +171,113 @@ public class CachedWorldBuilder implements WorldBuilder {
         logger.info("Saving the world cache to {}", worldCacheFile);
         Timer timer = new Timer("Save the world cache");
         timer.start();
-        ObjectOutputStream oos = null;
-        try {
-            oos = new ObjectOutputStream(
-                    new BufferedOutputStream(new FileOutputStream(worldCacheFile)));
-            oos.writeObject(World.get());
-            oos.close();
+        File irCacheFile = getIRCacheFile(worldCacheFile);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(worldCacheFile.toPath())))) {
+            World world = World.get();
+            CachedIRBuilder irBuilder = CachedIRBuilder.save(world.getIRBuilder(),
+                    world.getClassHierarchy(), irCacheFile);
+            out.writeInt(CACHE_MAGIC);
+            out.writeInt(CACHE_FORMAT_VERSION);
+            runWithLargeStack(() -> {
+                Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                try (ObjectOutputStream oos = new WorldOutputStream(
+                        new DeflaterOutputStream(out, deflater, BUFFER_SIZE),
+                        irBuilder)) {
+                    oos.writeObject(World.get());
+                } finally {
+                    deflater.end();
+                }
+                return null;
+            });
         } catch (Exception e) {
             logger.error("Failed to save world cache from {} due to {}",
                     worldCacheFile, e);
+            worldCacheFile.delete();
+            irCacheFile.delete();
+        } catch (Error e) {
+            // do not leave a partial cache which would be loaded next time
+            worldCacheFile.delete();
+            irCacheFile.delete();
+            throw e;
         } finally {
-            if (oos != null) {
-                try {
-                    oos.close();
-                } catch (Exception e) {
-                    logger.error("Failed to close output stream", e);
-                }
-            }
             timer.stop();
             logger.info(timer);
         }
+        logger.info("Size of the world cache: {} MB (IR: {} MB)",
+                worldCacheFile.length() / (1024 * 1024),
+                irCacheFile.length() / (1024 * 1024));
+    }
+
+    /**
+     * Runs given task in a thread with a large stack, as (de)serializing
+     * the deep object graph of the world may overflow the default stack.
+     * Any exception or error thrown by the task is rethrown in
+     * the calling thread.
+     */
+    private static <T> T runWithLargeStack(Callable<T> task) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Throwable> throwable = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.set(task.call());
+            } catch (Throwable t) {
+                throwable.set(t);
+            }
+        }, "world-cache", STACK_SIZE);
+        thread.start();
+        thread.join();
+        Throwable t = throwable.get();
+        if (t instanceof Exception e) {
+            throw e;
+        } else if (t instanceof Error e) {
+            throw e;
+        } else if (t != null) {
+            throw new RuntimeException(t);
+        }
+        return result.get();
+    }
+
+    /**
+     * {@link ObjectOutputStream} for writing the world to the cache.
+     * <p>
+     * It writes equal strings only once. Java serialization writes the
+     * repeated occurrences of the same object as back-references, thus
+     * replacing the strings by their canonical instances makes the cache
+     * act as a string table. The deserialized world shares the strings
+     * as well.
+     * <p>
+     * It also supplies the given {@link CachedIRBuilder}, which loads IRs
+     * from IR cache file on demand, to {@link World} in serialization,
+     * so that the IRs are neither collected nor written to the world cache.
+     */
+    private static class WorldOutputStream extends ObjectOutputStream
+            implements CachedIRBuilder.IRCacheStream {
+
+        private final Map<String, String> strings = Maps.newMap();
+
+        private final CachedIRBuilder irBuilder;
+
+        private WorldOutputStream(OutputStream out, CachedIRBuilder irBuilder)
+                throws IOException {
+            super(out);
+            this.irBuilder = irBuilder;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj instanceof String s) {
+                return strings.computeIfAbsent(s, Function.identity());
+            } else {
+                return obj;
+            }
+        }
+
+        @Override
+        public CachedIRBuilder getIRBuilder() {
+            return irBuilder;
+        }
     }
 
     public static File getWorldCacheFile(Options options) {
@@ -145,31 +285,223 @@ public class CachedWorldBuilder implements WorldBuilder {
         if (!cacheDir.exists()) {
             cacheDir.mkdirs();
         }
-        return new File(cacheDir,
-                "world-cache-" + getWorldCacheHash(options) + ".bin").getAbsoluteFile();
-    }
-
-    private static int getWorldCacheHash(Options options) {
-        int result = options.getMainClass() != null
-                ? options.getMainClass().hashCode() : 0;
-        result = 31 * result + (options.getInputClasses() != null
-                ? options.getInputClasses().hashCode() : 0);
-        result = 31 * result + options.getJavaVersion();
-        result = 31 * result + (options.isPrependJVM() ? 1 : 0);
-        result = 31 * result + (options.isAllowPhantom() ? 1 : 0);
-        result = 31 * result + (options.getWorldBuilderClass() != null
-                ? options.getWorldBuilderClass().getName().hashCode() : 0);
-        // add the timestamp to the cache key calculation
-        List<String> paths = new ArrayList<>();
-        paths.addAll(options.getClassPath());
-        paths.addAll(options.getAppClassPath());
-        for (String path : paths) {
-            File file = new File(path);
-            if (file.exists()) {
-                result = 31 * result + (int) file.lastModified();
+        File digestsFile = new File(cacheDir, DIGESTS_FILE);
+        Map<String, FileDigest> fileDigests = loadFileDigests(digestsFile);
+        String key = getWorldCacheKey(options, fileDigests);
+        saveFileDigests(digestsFile, fileDigests);
+        return new File(cacheDir, CACHE_PREFIX + key + CACHE_SUFFIX)
+                .getAbsoluteFile();
+    }
+
+    /**
+     * @return the file which stores the IRs of the world cached in
+     * given world cache file.
+     */
+    public static File getIRCacheFile(File worldCacheFile) {
+        String name = worldCacheFile.getName();
+        return new File(worldCacheFile.getParentFile(),
+                name.substring(0, name.length() - CACHE_SUFFIX.length())
+                        + IR_CACHE_SUFFIX);
+    }
+
+    /**
+     * @return the key of the world cache for given options. The key is the
+     * SHA-256 digest of the options that affect the world, and the contents
+     * of the files in class paths, thus touching the files does not
+     * invalidate the cache, while any change of their contents does.
+     * The digests of files are reused from (and added to) {@code fileDigests}
+     * if their sizes and last modified times are unchanged.
+     */
+    private static String getWorldCacheKey(
+            Options options, Map<String, FileDigest> fileDigests) {
+        MessageDigest digest = newSHA256();
+        update(digest, options.getMainClass());
+        update(digest, String.valueOf(options.getInputClasses()));
+        update(digest, String.valueOf(options.getJavaVersion()));
+        update(digest, String.valueOf(options.isPrependJVM()));
+        update(digest, String.valueOf(options.isAllowPhantom()));
+        update(digest, options.getWorldBuilderClass() != null
+                ? options.getWorldBuilderClass().getName() : null);
+        for (String path : options.getClassPath()) {
+            update(digest, "cp:" + path);
+            update(digest, hashContents(Path.of(path), fileDigests));
+        }
+        for (String path : options.getAppClassPath()) {
+            update(digest, "acp:" + path);
+            update(digest, hashContents(Path.of(path), fileDigests));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return the SHA-256 digest of the contents of given path. For a
+     * directory, the relative paths and contents of all files in it are
+     * digested in the order of their paths. If the path does not exist,
+     * returns {@code null}. For a file (e.g., a jar), the digest recorded
+     * in {@code fileDigests} is returned if the size and last modified time
+     * of the file are unchanged, and otherwise it is computed and recorded.
+     */
+    private static String hashContents(
+            Path path, Map<String, FileDigest> fileDigests) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        MessageDigest digest = newSHA256();
+        try {
+            if (Files.isRegularFile(path)) {
+                String file = path.toAbsolutePath().toString();
+                long size = Files.size(path);
+                long lastModified = Files.getLastModifiedTime(path).toMillis();
+                FileDigest fileDigest = fileDigests.get(file);
+                if (fileDigest == null || fileDigest.size() != size
+                        || fileDigest.lastModified() != lastModified) {
+                    digestFile(digest, path);
+                    fileDigest = new FileDigest(size, lastModified,
+                            HexFormat.of().formatHex(digest.digest()));
+                    fileDigests.put(file, fileDigest);
+                }
+                return fileDigest.digest();
+            } else if (Files.isDirectory(path)) {
+                List<Path> files;
+                try (Stream<Path> paths = Files.walk(path)) {
+                    files = paths.filter(Files::isRegularFile)
+                            .sorted()
+                            .toList();
+                }
+                for (Path file : files) {
+                    update(digest, path.relativize(file).toString());
+                    digestFile(digest, file);
+                }
+            } else {
+                digestFile(digest, path);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read {} for computing world cache key, caused by {}",
+                    path, e);
+            return null;
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Digest of a file, which is valid as long as the size and
+     * last modified time of the file are unchanged.
+     */
+    private record FileDigest(long size, long lastModified, String digest) {
+    }
+
+    /**
+     * Loads the digests of files from given file, in which each line
+     * consists of the digest, size, last modified time and path of a file.
+     *
+     * @return a map from the paths of files to their digests.
+     */
+    private static Map<String, FileDigest> loadFileDigests(File digestsFile) {
+        Map<String, FileDigest> fileDigests = Maps.newLinkedHashMap();
+        if (digestsFile.exists()) {
+            try {
+                for (String line : Files.readAllLines(digestsFile.toPath())) {
+                    String[] parts = line.split("\t", 4);
+                    if (parts.length == 4) {
+                        fileDigests.put(parts[3], new FileDigest(
+                                Long.parseLong(parts[1]),
+                                Long.parseLong(parts[2]),
+                                parts[0]));
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                logger.warn("Failed to load digests of class path files from {}," +
+                        " caused by {}", digestsFile, e);
+                fileDigests.clear();
             }
         }
-        result = Math.abs(result);
-        return result;
+        return fileDigests;
+    }
+
+    /**
+     * Saves the digests of the files which still exist to given file.
+     */
+    private static void saveFileDigests(
+            File digestsFile, Map<String, FileDigest> fileDigests) {
+        List<String> lines = fileDigests.entrySet()
+                .stream()
+                .filter(e -> Files.exists(Path.of(e.getKey())))
+                .map(e -> String.join("\t", e.getValue().digest(),
+                        Long.toString(e.getValue().size()),
+                        Long.toString(e.getValue().lastModified()),
+                        e.getKey()))
+                .toList();
+        try {
+            Files.write(digestsFile.toPath(), lines);
+        } catch (IOException e) {
+            logger.warn("Failed to save digests of class path files to {}," +
+                    " caused by {}", digestsFile, e);
+        }
+    }
+
+    private static void digestFile(MessageDigest digest, Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(String.valueOf(s).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest newSHA256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Evicts the least recently used world caches, until the total size of
+     * the world caches in the directory of given cache file does not exceed
+     * the limit. The given cache file is never evicted.
+     *
+     * @param maxSize the maximum total size (in MB) of the world caches,
+     *                or -1 for no limit
+     */
+    private static void evictCaches(File worldCacheFile, long maxSize) {
+        if (maxSize < 0) {
+            return;
+        }
+        File[] caches = worldCacheFile.getParentFile().listFiles((dir, name) ->
+                name.startsWith(CACHE_PREFIX) && name.endsWith(CACHE_SUFFIX)
+                        && !name.endsWith(IR_CACHE_SUFFIX));
+        if (caches == null) {
+            return;
+        }
+        long totalSize = 0;
+        for (File cache : caches) {
+            totalSize += getCacheSize(cache);
+        }
+        long limit = maxSize * 1024 * 1024;
+        // the last modified time of each cache is updated when it is
+        // loaded, thus it indicates the last time the cache was used
+        Arrays.sort(caches, Comparator.comparingLong(File::lastModified));
+        for (File cache : caches) {
+            if (totalSize <= limit) {
+                break;
+            }
+            if (!cache.equals(worldCacheFile)) {
+                logger.info("Evicting world cache {}", cache);
+                totalSize -= getCacheSize(cache);
+                cache.delete();
+                getIRCacheFile(cache).delete();
+            }
+        }
+    }
+
+    private static long getCacheSize(File worldCacheFile) {
+        return worldCacheFile.length() + getIRCacheFile(worldCacheFile).length();
     }
 }
@@ -29,8 +29,11 @@ import pascal.taie.util.collection.Maps;
 import soot.Scene;
 import soot.SootClass;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 class SootClassLoader implements JClassLoader {
 
@@ -42,7 +45,7 @@ class SootClassLoader implements JClassLoader {
 
     private transient Converter converter;
 
-    private final Map<String, JClass> classes = Maps.newMap(1024);
+    private final Map<String, JClass> classes = Maps.newConcurrentMap(1024);
 
     SootClassLoader(Scene scene, ClassHierarchy hierarchy, boolean allowPhantom) {
         this.scene = scene;
@@ -54,6 +57,20 @@ class SootClassLoader implements JClassLoader {
     public JClass loadClass(String name) {
         JClass jclass = classes.get(name);
         if (jclass == null && scene != null) {
+            jclass = loadNewClass(name);
+        }
+        // TODO: add warning for missing classes
+        return jclass;
+    }
+
+    /**
+     * Loads the class that has not been loaded. This method is synchronized
+     * as it may be called by the threads of {@link #loadClasses(Collection)}
+     * (for the classes that are not given to that method).
+     */
+    private synchronized JClass loadNewClass(String name) {
+        JClass jclass = classes.get(name);
+        if (jclass == null) {
             SootClass sootClass = scene.getSootClassUnsafe(name, false);
             if (sootClass != null && (!sootClass.isPhantom() || allowPhantom)) {
                 // TODO: handle phantom class more comprehensively
@@ -68,10 +85,37 @@ class SootClassLoader implements JClassLoader {
                 hierarchy.addClass(jclass);
             }
         }
-        // TODO: add warning for missing classes
         return jclass;
     }
 
+    /**
+     * Loads given classes in parallel. All classes are created at first,
+     * so that building a class only needs to look up (but not build)
+     * the classes it refers to, and thus the classes can be built
+     * independently. After that, the classes are added to the class
+     * hierarchy sequentially in the given order, which keeps the indexes
+     * of the classes deterministic.
+     */
+    void loadClasses(Collection<SootClass> sootClasses) {
+        List<SootClass> newSootClasses = new ArrayList<>();
+        List<JClass> newClasses = new ArrayList<>();
+        for (SootClass sootClass : sootClasses) {
+            String name = sootClass.getName();
+            if (!classes.containsKey(name)
+                    && (!sootClass.isPhantom() || allowPhantom)) {
+                JClass jclass = new JClass(this, name, sootClass.moduleName);
+                classes.put(name, jclass);
+                newSootClasses.add(sootClass);
+                newClasses.add(jclass);
+            }
+        }
+        IntStream.range(0, newClasses.size())
+                .parallel()
+                .forEach(i -> new SootClassBuilder(converter, newSootClasses.get(i))
+                        .build(newClasses.get(i)));
+        newClasses.forEach(hierarchy::addClass);
+    }
+
     @Override
     public Collection<JClass> getLoadedClasses() {
         return classes.values();
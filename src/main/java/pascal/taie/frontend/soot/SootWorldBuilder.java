@@ -25,6 +25,7 @@ package pascal.taie.frontend.soot;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.AbstractWorldBuilder;
@@ -38,6 +39,7 @@ import pascal.taie.language.classes.ClassHierarchyImpl;
 import pascal.taie.language.classes.StringReps;
 import pascal.taie.language.type.TypeSystem;
 import pascal.taie.language.type.TypeSystemImpl;
+import pascal.taie.util.Timer;
 import soot.G;
 import soot.PackManager;
 import soot.Scene;
@@ -80,7 +82,8 @@ public class SootWorldBuilder extends AbstractWorldBuilder {
         }
         // add input classes
         args.addAll(getInputClasses(options));
-        runSoot(args.toArray(new String[0]));
+        Timer.runAndCount(() -> runSoot(args.toArray(new String[0])),
+                "Run Soot frontend");
     }
 
     private static void initSoot(Options options, List<AnalysisConfig> analyses,
@@ -212,7 +215,7 @@ public class SootWorldBuilder extends AbstractWorldBuilder {
         Converter converter = new Converter(loader, typeSystem);
         loader.setConverter(converter);
         // build classes in hierarchy
-        buildClasses(hierarchy, scene);
+        Timer.runAndCount(() -> buildClasses(loader, scene), "Build classes");
         // set main method
         if (options.getMainClass() != null) {
             if (scene.hasMainClass()) {
@@ -234,7 +237,9 @@ public class SootWorldBuilder extends AbstractWorldBuilder {
                 .filter(Objects::nonNull)
                 .toList());
         // initialize IR builder
-        world.setNativeModel(getNativeModel(typeSystem, hierarchy, options));
+        world.setNativeModel(Timer.runAndCount(
+                () -> getNativeModel(typeSystem, hierarchy, options),
+                "Build native model", Level.INFO));
         IRBuilder irBuilder = new IRBuilder(converter);
         world.setIRBuilder(irBuilder);
         if (options.isPreBuildIR()) {
@@ -242,10 +247,8 @@ public class SootWorldBuilder extends AbstractWorldBuilder {
         }
     }
 
-    protected static void buildClasses(ClassHierarchy hierarchy, Scene scene) {
-        // TODO: parallelize?
-        new ArrayList<>(scene.getClasses()).forEach(c ->
-                hierarchy.getDefaultClassLoader().loadClass(c.getName()));
+    private static void buildClasses(SootClassLoader loader, Scene scene) {
+        loader.loadClasses(new ArrayList<>(scene.getClasses()));
     }
 
     private static void runSoot(String[] args) {
@@ -29,6 +29,8 @@ import pascal.taie.util.Indexer;
 
 import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 /**
@@ -153,6 +155,21 @@ public interface ClassHierarchy extends Indexer<JClass> {
     @Nullable
     JMethod dispatch(JClass receiverClass, MethodRef methodRef);
 
+    /**
+     * Dispatches a method reference on the types of given receivers in bulk,
+     * e.g., the new objects pointed to by the receiver variable of a call site.
+     * Compared to {@link #dispatch(Type, MethodRef)} for each receiver,
+     * the method reference is resolved only once, and the consecutive
+     * receivers of the same type are dispatched only once.
+     *
+     * @param typeGetter returns the type of each receiver.
+     * @param consumer   consumes each receiver and its target method,
+     *                   which is null if the target cannot be found.
+     */
+    <T> void dispatchAll(MethodRef methodRef, Iterable<T> receivers,
+                         Function<? super T, Type> typeGetter,
+                         BiConsumer<? super T, JMethod> consumer);
+
     /**
      * @return the direct subinterfaces of given interface.
      */
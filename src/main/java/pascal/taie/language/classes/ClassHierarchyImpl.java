@@ -84,13 +84,26 @@ public class ClassHierarchyImpl implements ClassHierarchy {
     /**
      * Cache results of method dispatch.
      */
-    private final TwoKeyMap<JClass, Subsignature, JMethod> dispatchTable = Maps.newTwoKeyMap();
+    private final TwoKeyMap<JClass, Subsignature, JMethod> dispatchTable =
+            Maps.newTwoKeyMap(Maps.newConcurrentMap(), Maps::newConcurrentMap);
 
     /**
      * Cache results of {@link #getAllSubclassesOf(JClass)}.
      */
     private final Map<JClass, Set<JClass>> allSubclasses = Maps.newConcurrentMap();
 
+    /**
+     * Interval numbering of the class tree for {@link #isSubclass}.
+     * It is built lazily, and reset when new classes are added.
+     */
+    private transient volatile ClassIntervals classIntervals;
+
+    /**
+     * Bit matrix of implemented interfaces for {@link #isSubclass}.
+     * It is built lazily, and reset when new classes are added.
+     */
+    private transient volatile InterfaceBitMatrix interfaceMatrix;
+
     @Override
     public void setDefaultClassLoader(JClassLoader loader) {
         this.defaultLoader = loader;
@@ -150,6 +163,8 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         // invalidate global hierarchy information
         // TODO - make this elegant
         allSubclasses.clear();
+        classIntervals = null;
+        interfaceMatrix = null;
     }
 
     @Override
@@ -398,9 +413,43 @@ public class ClassHierarchyImpl implements ClassHierarchy {
             return true;
         } else if (superclass == getObjectClass()) {
             return true;
+        } else if (superclass.isInterface()) {
+            InterfaceBitMatrix matrix = getInterfaceMatrix();
+            return matrix.covers(superclass, subclass) ?
+                    matrix.isSubclass(superclass, subclass) :
+                    getAllSubclassesOf(superclass).contains(subclass);
         } else {
-            return getAllSubclassesOf(superclass).contains(subclass);
+            return getClassIntervals().isSubclass(superclass, subclass);
+        }
+    }
+
+    private ClassIntervals getClassIntervals() {
+        ClassIntervals intervals = classIntervals;
+        if (intervals == null) {
+            synchronized (this) {
+                intervals = classIntervals;
+                if (intervals == null) {
+                    intervals = new ClassIntervals(
+                            classes, this::getDirectSubclassesOf);
+                    classIntervals = intervals;
+                }
+            }
+        }
+        return intervals;
+    }
+
+    private InterfaceBitMatrix getInterfaceMatrix() {
+        InterfaceBitMatrix matrix = interfaceMatrix;
+        if (matrix == null) {
+            synchronized (this) {
+                matrix = interfaceMatrix;
+                if (matrix == null) {
+                    matrix = new InterfaceBitMatrix(classes);
+                    interfaceMatrix = matrix;
+                }
+            }
         }
+        return matrix;
     }
 
     /**
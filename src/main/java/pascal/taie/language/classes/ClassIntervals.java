@@ -0,0 +1,118 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.language.classes;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Pre/post-order numbering of the class tree, i.e., the non-interface
+ * classes connected by superclass relations. With the numbering, checking
+ * whether a class is a subclass of another class takes constant time:
+ * class C is a subclass of class D iff the interval [pre(C), post(C)]
+ * is nested in the interval [pre(D), post(D)].
+ * <p>
+ * The numbering is a snapshot of the class hierarchy, thus it must be
+ * rebuilt when new classes are added to the hierarchy.
+ */
+final class ClassIntervals {
+
+    private final int[] pre;
+
+    private final int[] post;
+
+    /**
+     * @param classes            all classes in the hierarchy, where the index
+     *                           of each class is its position in the list
+     * @param directSubclassesOf function that returns the direct subclasses
+     *                           of a class
+     */
+    ClassIntervals(List<JClass> classes,
+                   Function<JClass, Collection<JClass>> directSubclassesOf) {
+        pre = new int[classes.size()];
+        post = new int[classes.size()];
+        Arrays.fill(pre, -1);
+        int counter = 0;
+        Deque<Iterator<JClass>> stack = new ArrayDeque<>();
+        Deque<JClass> path = new ArrayDeque<>();
+        for (JClass root : classes) {
+            if (root.isInterface() || !isRoot(root, classes)) {
+                continue;
+            }
+            // traverse the tree iteratively, as the class tree can be deep
+            pre[root.getIndex()] = counter++;
+            path.push(root);
+            stack.push(directSubclassesOf.apply(root).iterator());
+            while (!stack.isEmpty()) {
+                Iterator<JClass> subclasses = stack.peek();
+                if (subclasses.hasNext()) {
+                    JClass subclass = subclasses.next();
+                    if (contains(classes, subclass) && pre[subclass.getIndex()] == -1) {
+                        pre[subclass.getIndex()] = counter++;
+                        path.push(subclass);
+                        stack.push(directSubclassesOf.apply(subclass).iterator());
+                    }
+                } else {
+                    stack.pop();
+                    post[path.pop().getIndex()] = counter++;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if {@code jclass} is not a subclass of any other class
+     * in the hierarchy.
+     */
+    private static boolean isRoot(JClass jclass, List<JClass> classes) {
+        JClass superclass = jclass.getSuperClass();
+        return superclass == null
+                || superclass.isInterface()
+                || !contains(classes, superclass);
+    }
+
+    private static boolean contains(List<JClass> classes, JClass jclass) {
+        int index = jclass.getIndex();
+        return index >= 0 && index < classes.size()
+                && classes.get(index) == jclass;
+    }
+
+    /**
+     * @return true if both classes are numbered, and {@code subclass}
+     * is a subclass of {@code superclass}.
+     */
+    boolean isSubclass(JClass superclass, JClass subclass) {
+        int sup = superclass.getIndex(), sub = subclass.getIndex();
+        if (sup < 0 || sup >= pre.length || sub < 0 || sub >= pre.length
+                || pre[sup] == -1 || pre[sub] == -1) {
+            return false;
+        }
+        return pre[sup] <= pre[sub] && post[sub] <= post[sup];
+    }
+}
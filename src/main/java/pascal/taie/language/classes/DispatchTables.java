@@ -0,0 +1,218 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Dispatch tables (i.e., virtual method tables and interface method tables)
+ * of the classes in the hierarchy. Each subsignature is given a dense id,
+ * and the table of each class maps the ids to the methods dispatched on
+ * the class, so that a dispatch takes one lookup of an int in a small
+ * array after the id of the subsignature is obtained.
+ * <p>
+ * The table of a class is built lazily from the table of its superclass,
+ * the non-abstract methods declared in the class, and the non-abstract
+ * methods of its superinterfaces, following method selection of
+ * JVM Spec. (11 Ed.), 5.4.3.3. As the table of a class only depends on
+ * its supertypes, the tables stay valid when new classes are added to
+ * the hierarchy.
+ */
+final class DispatchTables {
+
+    private final Map<Subsignature, Integer> ids = Maps.newConcurrentMap();
+
+    private final AtomicInteger idCounter = new AtomicInteger();
+
+    /**
+     * Table of each class, indexed by the index of the class.
+     */
+    private volatile Table[] tables = new Table[0];
+
+    /**
+     * @return the id of given subsignature.
+     */
+    int getId(Subsignature subsignature) {
+        Integer id = ids.get(subsignature);
+        if (id == null) {
+            id = ids.computeIfAbsent(subsignature,
+                    s -> idCounter.getAndIncrement());
+        }
+        return id;
+    }
+
+    /**
+     * @return the method which is dispatched on {@code jclass} for the
+     * subsignature of given id, or null if no such method exists.
+     */
+    @Nullable
+    JMethod dispatch(JClass jclass, int id) {
+        return getTable(jclass).get(id);
+    }
+
+    private Table getTable(JClass jclass) {
+        int index = jclass.getIndex();
+        Table[] tables = this.tables;
+        if (index >= 0 && index < tables.length) {
+            Table table = tables[index];
+            if (table != null) {
+                return table;
+            }
+        }
+        return buildTable(jclass);
+    }
+
+    private synchronized Table buildTable(JClass jclass) {
+        int index = jclass.getIndex();
+        if (index >= 0 && index < tables.length && tables[index] != null) {
+            return tables[index];
+        }
+        // 1. methods of the superclass, whose table already contains
+        // the methods of its superclasses and superinterfaces
+        Map<Integer, JMethod> entries = Maps.newHybridMap();
+        JClass superclass = jclass.getSuperClass();
+        if (superclass != null) {
+            getTable(superclass).forEach(entries::put);
+        }
+        // 2. methods declared in the class
+        for (JMethod method : jclass.getDeclaredMethods()) {
+            if (!method.isAbstract()) {
+                entries.put(getId(method.getSubsignature()), method);
+            }
+        }
+        // 3. methods of the superinterfaces, which are selected only if
+        // no class in the superclass chain declares the method. The methods
+        // of the interfaces of this class take precedence over the ones
+        // inherited from the interfaces of the superclass.
+        Map<Integer, JMethod> ifaceMethods = Maps.newHybridMap();
+        Set<JClass> visited = Sets.newHybridSet();
+        jclass.getInterfaces().forEach(iface ->
+                collectInterfaceMethods(iface, visited, ifaceMethods));
+        ifaceMethods.forEach((id, method) -> {
+            JMethod selected = entries.get(id);
+            if (selected == null || isFromInterface(selected, jclass)) {
+                entries.put(id, method);
+            }
+        });
+        Table table = new Table(entries);
+        if (index >= 0) {
+            Table[] newTables = index < tables.length ? tables :
+                    Arrays.copyOf(tables, Math.max(index + 1, tables.length * 2));
+            newTables[index] = table;
+            tables = newTables;
+        }
+        return table;
+    }
+
+    /**
+     * Collects the non-abstract methods of {@code iface} and its
+     * superinterfaces in depth-first order, where the first method
+     * of each subsignature is kept.
+     */
+    private void collectInterfaceMethods(
+            JClass iface, Set<JClass> visited, Map<Integer, JMethod> result) {
+        if (iface == null || !visited.add(iface)) {
+            return;
+        }
+        for (JMethod method : iface.getDeclaredMethods()) {
+            if (!method.isAbstract()) {
+                result.putIfAbsent(getId(method.getSubsignature()), method);
+            }
+        }
+        iface.getInterfaces().forEach(superIface ->
+                collectInterfaceMethods(superIface, visited, result));
+    }
+
+    /**
+     * @return true if {@code method} in the table of the superclass of
+     * {@code jclass} is selected from the superinterfaces instead of
+     * the superclass chain, thus it can be overridden by the methods
+     * of the interfaces of {@code jclass}.
+     */
+    private static boolean isFromInterface(JMethod method, JClass jclass) {
+        JClass declaringClass = method.getDeclaringClass();
+        return declaringClass.isInterface() && declaringClass != jclass;
+    }
+
+    /**
+     * Open-addressing hash table from subsignature ids to methods.
+     */
+    private static final class Table {
+
+        private static final int NO_ID = -1;
+
+        private final int[] ids;
+
+        private final JMethod[] methods;
+
+        private Table(Map<Integer, JMethod> entries) {
+            // keeps the load factor at most 0.5
+            int capacity = Integer.highestOneBit(
+                    Math.max(entries.size(), 1) * 2 - 1) << 1;
+            ids = new int[capacity];
+            Arrays.fill(ids, NO_ID);
+            methods = new JMethod[capacity];
+            int mask = capacity - 1;
+            entries.forEach((id, method) -> {
+                int i = hash(id, mask);
+                while (ids[i] != NO_ID) {
+                    i = (i + 1) & mask;
+                }
+                ids[i] = id;
+                methods[i] = method;
+            });
+        }
+
+        private static int hash(int id, int mask) {
+            int h = id * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        @Nullable
+        private JMethod get(int id) {
+            int mask = ids.length - 1;
+            for (int i = hash(id, mask); ids[i] != NO_ID; i = (i + 1) & mask) {
+                if (ids[i] == id) {
+                    return methods[i];
+                }
+            }
+            return null;
+        }
+
+        private void forEach(BiConsumer<Integer, JMethod> action) {
+            for (int i = 0; i < ids.length; ++i) {
+                if (ids[i] != NO_ID) {
+                    action.accept(ids[i], methods[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Bit matrix of the interfaces implemented by the classes, i.e.,
+ * the row of each class (or interface) has the bits of all interfaces
+ * which it implements (or extends) directly or transitively, including
+ * itself. With the matrix, checking whether a class is a subclass of
+ * an interface takes constant time.
+ * <p>
+ * Most classes implement no interfaces other than the ones of their
+ * superclasses, thus they share the rows of their superclasses,
+ * and the matrix takes far less memory than one bit per pair of
+ * classes and interfaces.
+ * <p>
+ * Similar to {@link ClassIntervals}, the matrix is a snapshot of
+ * the class hierarchy, thus it must be rebuilt when new classes
+ * are added to the hierarchy.
+ */
+final class InterfaceBitMatrix {
+
+    private static final long[] EMPTY_ROW = {};
+
+    /**
+     * Column of each interface, or -1 for the classes.
+     */
+    private final int[] columns;
+
+    /**
+     * Row of each class, which is shared by the classes with the same
+     * implemented interfaces.
+     */
+    private final long[][] rows;
+
+    /**
+     * @param classes all classes in the hierarchy, where the index
+     *                of each class is its position in the list
+     */
+    InterfaceBitMatrix(List<JClass> classes) {
+        columns = new int[classes.size()];
+        int nInterfaces = 0;
+        for (int i = 0; i < classes.size(); ++i) {
+            columns[i] = classes.get(i).isInterface() ? nInterfaces++ : -1;
+        }
+        rows = new long[classes.size()][];
+        // computes the rows of supertypes before the rows of their subtypes
+        // iteratively, as the class tree can be deep
+        Deque<JClass> stack = new ArrayDeque<>();
+        boolean[] visiting = new boolean[classes.size()];
+        for (JClass jclass : classes) {
+            if (rows[jclass.getIndex()] != null) {
+                continue;
+            }
+            stack.push(jclass);
+            visiting[jclass.getIndex()] = true;
+            while (!stack.isEmpty()) {
+                JClass c = stack.peek();
+                JClass next = supertypesOf(c)
+                        .filter(s -> contains(classes, s)
+                                && rows[s.getIndex()] == null
+                                // ignores cyclic inheritance of malformed classes
+                                && !visiting[s.getIndex()])
+                        .findFirst()
+                        .orElse(null);
+                if (next != null) {
+                    stack.push(next);
+                    visiting[next.getIndex()] = true;
+                } else {
+                    rows[c.getIndex()] = computeRow(c, classes);
+                    stack.pop();
+                }
+            }
+        }
+    }
+
+    private static Stream<JClass> supertypesOf(JClass jclass) {
+        return Stream.concat(Stream.of(jclass.getSuperClass()),
+                        jclass.getInterfaces().stream())
+                .filter(s -> s != null);
+    }
+
+    /**
+     * Computes the row of given class from the rows of its supertypes.
+     * The row is shared with a supertype if the class has no other
+     * interfaces than the ones of that supertype.
+     */
+    private long[] computeRow(JClass jclass, List<JClass> classes) {
+        long[] row = EMPTY_ROW;
+        boolean isShared = true;
+        for (JClass supertype : (Iterable<JClass>) supertypesOf(jclass)::iterator) {
+            long[] superRow = contains(classes, supertype) ?
+                    rows[supertype.getIndex()] : null;
+            if (superRow == null || superRow == row) {
+                continue;
+            }
+            if (row == EMPTY_ROW) {
+                row = superRow;
+            } else if (!isSubset(superRow, row)) {
+                if (isShared) {
+                    row = Arrays.copyOf(row, Math.max(row.length, superRow.length));
+                    isShared = false;
+                } else if (row.length < superRow.length) {
+                    row = Arrays.copyOf(row, superRow.length);
+                }
+                for (int w = 0; w < superRow.length; ++w) {
+                    row[w] |= superRow[w];
+                }
+            }
+        }
+        int column = columns[jclass.getIndex()];
+        if (column >= 0) {
+            int w = column >>> 6;
+            row = Arrays.copyOf(row, Math.max(row.length, w + 1));
+            row[w] |= 1L << column;
+        }
+        return row;
+    }
+
+    private static boolean isSubset(long[] row1, long[] row2) {
+        for (int w = 0; w < row1.length; ++w) {
+            long bits = row1[w];
+            if (bits != 0 && (w >= row2.length || (bits & ~row2[w]) != 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(List<JClass> classes, JClass jclass) {
+        int index = jclass.getIndex();
+        return index >= 0 && index < classes.size()
+                && classes.get(index) == jclass;
+    }
+
+    /**
+     * @return true if this matrix has the column of {@code iface}
+     * and the row of {@code jclass}.
+     */
+    boolean covers(JClass iface, JClass jclass) {
+        int i = iface.getIndex(), c = jclass.getIndex();
+        return i >= 0 && i < columns.length && columns[i] >= 0
+                && c >= 0 && c < rows.length;
+    }
+
+    /**
+     * @return true if {@code jclass} implements (or extends) {@code iface}.
+     * This matrix must cover both classes.
+     * @see #covers(JClass, JClass)
+     */
+    boolean isSubclass(JClass iface, JClass jclass) {
+        int column = columns[iface.getIndex()];
+        long[] row = rows[jclass.getIndex()];
+        int w = column >>> 6;
+        return w < row.length && (row[w] & (1L << column)) != 0;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.LongFunction;
+
+/**
+ * Hash map whose keys are primitive {@code long} values. This map uses
+ * open addressing with linear probing, and stores keys and values in
+ * flat arrays, thus it does not box keys or allocate entry objects.
+ * It is suitable for the maps keyed by a pair of {@code int} indexes
+ * (see {@link #key(int, int)}), which would otherwise require nested maps.
+ * <p>
+ * This map does not permit {@code null} values, and it does not
+ * support removal, as the clients only add mappings.
+ *
+ * @param <V> the type of mapped values
+ */
+public final class LongObjectMap<V> implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final String NULL_VALUE_MSG = "LongObjectMap does not permit null values";
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+
+    /**
+     * {@code values[i] == null} means that slot {@code i} is empty.
+     */
+    private Object[] values;
+
+    private int size = 0;
+
+    /**
+     * The number of mappings at which the arrays are enlarged.
+     */
+    private int threshold;
+
+    /**
+     * The cache of {@link #values()}.
+     */
+    private transient Collection<V> valueCollection;
+
+    public LongObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongObjectMap(int initialCapacity) {
+        int capacity = Integer.highestOneBit(
+                Math.max((int) (initialCapacity / LOAD_FACTOR), 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Packs two {@code int} values into a {@code long} key.
+     */
+    public static long key(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return the value to which the key is mapped, or {@code null}
+     * if this map contains no mapping for the key.
+     */
+    @Nullable
+    public V get(long key) {
+        int mask = keys.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            Object value = values[i];
+            if (value == null) {
+                return null;
+            } else if (keys[i] == key) {
+                @SuppressWarnings("unchecked")
+                V v = (V) value;
+                return v;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Associates the value with the key.
+     *
+     * @return the previous value associated with the key, or {@code null}
+     * if there was no mapping for the key.
+     */
+    @Nullable
+    public V put(long key, @Nonnull V value) {
+        Objects.requireNonNull(value, NULL_VALUE_MSG);
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                @SuppressWarnings("unchecked")
+                V oldValue = (V) values[i];
+                values[i] = value;
+                return oldValue;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    /**
+     * If the key is not associated with a value, computes its value
+     * by the mapping function and puts it into this map.
+     *
+     * @return the current (existing or computed) value associated with the key.
+     */
+    public V computeIfAbsent(long key, @Nonnull LongFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = Objects.requireNonNull(
+                    mappingFunction.apply(key), NULL_VALUE_MSG);
+            put(key, value);
+        }
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return an unmodifiable view of the values contained in this map.
+     * The iterators of the view are not fail-fast: if a mapping is put
+     * into this map during an iteration, the iteration may skip or
+     * repeat values instead of throwing
+     * {@link java.util.ConcurrentModificationException}.
+     */
+    public Collection<V> values() {
+        Collection<V> vs = valueCollection;
+        if (vs == null) {
+            vs = new Values();
+            valueCollection = vs;
+        }
+        return vs;
+    }
+
+    private static int index(long key, int mask) {
+        // spreads the bits of both halves of the key
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; ++j) {
+            if (oldValues[j] != null) {
+                int i = index(oldKeys[j], mask);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private final class Values extends AbstractCollection<V> implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        @Nonnull
+        public Iterator<V> iterator() {
+            return new Iterator<>() {
+
+                private int cursor = advance(0);
+
+                private int advance(int i) {
+                    while (i < values.length && values[i] == null) {
+                        ++i;
+                    }
+                    return i;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return cursor < values.length;
+                }
+
+                @Override
+                public V next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    @SuppressWarnings("unchecked")
+                    V value = (V) values[cursor];
+                    cursor = advance(cursor + 1);
+                    return value;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -45,6 +45,28 @@ public class UnionFindSet<E> {
         setCount = entries.size();
     }
 
+    /**
+     * Adds an element to this union-find set as a singleton set.
+     *
+     * @return {@code true} if this union-find set did not already
+     * contain the element.
+     */
+    public boolean add(E elem) {
+        if (entries.containsKey(elem)) {
+            return false;
+        }
+        entries.put(elem, new Entry(elem));
+        ++setCount;
+        return true;
+    }
+
+    /**
+     * @return {@code true} if this union-find set contains given element.
+     */
+    public boolean contains(E elem) {
+        return entries.containsKey(elem);
+    }
+
     /**
      * Unions the sets which e1 and e2 belong to, respectively.
      *
@@ -29,6 +29,9 @@ import pascal.taie.analysis.dataflow.analysis.LiveVarTestFull;
 import pascal.taie.analysis.dataflow.analysis.ReachDefTest;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPTestSuite;
 import pascal.taie.analysis.dataflow.fact.FactTest;
+import pascal.taie.analysis.dataflow.ifds.IFDSSolverTest;
+import pascal.taie.analysis.dataflow.ifds.IFDSTaintAnalysisTest;
+import pascal.taie.analysis.dataflow.solver.WorkListSolverTest;
 
 @Suite
 @SelectClasses({
@@ -37,6 +40,9 @@ import pascal.taie.analysis.dataflow.fact.FactTest;
         LiveVarTestFull.class,
         ReachDefTest.class,
         AvailExpTest.class,
+        WorkListSolverTest.class,
+        IFDSSolverTest.class,
+        IFDSTaintAnalysisTest.class,
 })
 public class DataflowTestSuite {
 }
@@ -29,8 +29,12 @@ import pascal.taie.analysis.Tests;
 public class LiveVarTest {
 
     void testLV(String inputClass) {
+        testLV(inputClass, "strongly:false");
+    }
+
+    void testLV(String inputClass, String opts) {
         Tests.testInput(inputClass, "src/test/resources/dataflow/livevar",
-                LiveVariable.ID, "strongly:false");
+                LiveVariable.ID, opts);
     }
 
     @ParameterizedTest
@@ -46,4 +50,22 @@ public class LiveVarTest {
         testLV(inputClass);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "BranchLoop",
+            "Fibonacci",
+    })
+    void testRoundRobin(String inputClass) {
+        testLV(inputClass, "strongly:false;solver:round-robin");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "BranchLoop",
+            "Fibonacci",
+    })
+    void testReversePostOrder(String inputClass) {
+        testLV(inputClass, "strongly:false;solver:rpo");
+    }
+
 }
@@ -32,4 +32,16 @@ public class ReachDefTest {
         Tests.testInput("ReachDef", "src/test/resources/dataflow/",
                 ReachingDefinition.ID);
     }
+
+    @Test
+    void testRoundRobin() {
+        Tests.testInput("ReachDef", "src/test/resources/dataflow/",
+                ReachingDefinition.ID, "solver:round-robin");
+    }
+
+    @Test
+    void testReversePostOrder() {
+        Tests.testInput("ReachDef", "src/test/resources/dataflow/",
+                ReachingDefinition.ID, "solver:rpo");
+    }
 }
@@ -29,8 +29,12 @@ import pascal.taie.analysis.Tests;
 public class CPTest {
 
     void testCP(String inputClass) {
+        testCP(inputClass, "edge-refine:false");
+    }
+
+    void testCP(String inputClass, String opts) {
         Tests.testInput(inputClass, "src/test/resources/dataflow/constprop/",
-                ConstantPropagation.ID, "edge-refine:false");
+                ConstantPropagation.ID, opts);
     }
 
     @ParameterizedTest
@@ -47,4 +51,21 @@ public class CPTest {
         testCP(inputClass);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Assign",
+            "SimpleConstant",
+            "SimpleBinary",
+            "SimpleBranch",
+            "SimpleChar",
+            "BranchConstant",
+            "Interprocedural",
+            "Loop",
+            "DivisionByZero",
+            "MultiplyByZero",
+    })
+    void testSparse(String inputClass) {
+        testCP(inputClass, "edge-refine:false;sparse:true");
+    }
+
 }
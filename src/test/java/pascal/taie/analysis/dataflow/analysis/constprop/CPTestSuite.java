@@ -30,6 +30,7 @@ import org.junit.platform.suite.api.Suite;
         CPTestFull.class,
         EdgeRefineTest.class,
         InterCPAliasTest.class,
+        SparseCPSolverTest.class,
         MeetValueTest.class,
         ValueTest.class,
 })
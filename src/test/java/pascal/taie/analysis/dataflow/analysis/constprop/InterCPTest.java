@@ -45,9 +45,34 @@ public class InterCPTest {
             "Reference",
             "Fibonacci",
             "MultiIntArgs",
+            "ArgRet",
+            "Call",
+            "CharArgs",
+            "DeadLoop",
+            "FloatArg",
+            "MultiReturn",
+            "PlusPlus",
+            "RedBlackBST",
     })
     void test(String mainClass) {
         testInterCP(mainClass);
     }
 
+    /**
+     * Tests that the parallel solver reaches the same results
+     * as the sequential one.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Example",
+            "Reference",
+            "Fibonacci",
+            "MultiIntArgs",
+    })
+    void testParallel(String mainClass) {
+        Tests.testMain(mainClass, CLASS_PATH, InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false;threads:4",
+                "-a", "cg=algorithm:cha");
+    }
+
 }
@@ -0,0 +1,181 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.jupiter.api.Test;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Goto;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Nop;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.IntType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the results of sparse and dense constant propagation
+ * on randomly generated methods.
+ */
+public class SparseCPSolverTest {
+
+    private static final int PROGRAMS = 3000;
+
+    private static final AnalysisConfig DENSE = AnalysisConfig.of(
+            ConstantPropagation.ID, "edge-refine", false, "sparse", false);
+
+    private static final AnalysisConfig SPARSE = AnalysisConfig.of(
+            ConstantPropagation.ID, "edge-refine", false, "sparse", true);
+
+    @Test
+    void testAddSub() {
+        int applicable = 0;
+        for (int seed = 0; seed < PROGRAMS; ++seed) {
+            IR ir = generate(new Random(seed), 2);
+            assertTrue(SparseCPSolver.isApplicable(ir));
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowResult<Stmt, CPFact> sparse = new SparseCPSolver(
+                    new ConstantPropagation.Analysis(cfg, false)).solve();
+            assertSameResult(seed, ir, sparse);
+            ++applicable;
+        }
+        assertEquals(PROGRAMS, applicable);
+    }
+
+    @Test
+    void testAllArithmetic() {
+        for (int seed = 0; seed < PROGRAMS; ++seed) {
+            IR ir = generate(new Random(seed), ArithmeticExp.Op.values().length);
+            assertSameResult(seed, ir, new ConstantPropagation(SPARSE).analyze(ir));
+        }
+    }
+
+    @Test
+    void testDivisionByZero() {
+        // x = 1; y = 0; x = x / y; nop; return
+        Var p = new Var(null, "p", IntType.INT, 0);
+        Var x = new Var(null, "x", IntType.INT, 1);
+        Var y = new Var(null, "y", IntType.INT, 2);
+        List<Stmt> stmts = List.of(
+                new AssignLiteral(x, IntLiteral.get(1)),
+                new AssignLiteral(y, IntLiteral.get(0)),
+                new Binary(x, new ArithmeticExp(ArithmeticExp.Op.DIV, x, y)),
+                new Nop(),
+                new Return());
+        IR ir = makeIR(List.of(p), List.of(p, x, y), stmts);
+        assertFalse(SparseCPSolver.isApplicable(ir));
+        DataflowResult<Stmt, CPFact> result = new ConstantPropagation(SPARSE).analyze(ir);
+        assertSameResult(0, ir, result);
+        assertTrue(result.getOutFact(stmts.get(3)).get(x).isUndef());
+    }
+
+    private static void assertSameResult(
+            int seed, IR ir, DataflowResult<Stmt, CPFact> sparse) {
+        DataflowResult<Stmt, CPFact> dense = new ConstantPropagation(DENSE).analyze(ir);
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        for (Stmt stmt : cfg) {
+            assertEquals(dense.getInFact(stmt), sparse.getInFact(stmt),
+                    "in fact of " + stmt + " (seed " + seed + ")");
+            assertEquals(dense.getOutFact(stmt), sparse.getOutFact(stmt),
+                    "out fact of " + stmt + " (seed " + seed + ")");
+        }
+    }
+
+    /**
+     * Generates a method with int variables, assignments, arithmetic
+     * expressions over the first {@code nOps} operators, and branches
+     * to random targets, which may create loops and unreachable code.
+     */
+    private static IR generate(Random random, int nOps) {
+        List<Var> vars = new ArrayList<>();
+        Var p = new Var(null, "p", IntType.INT, 0);
+        vars.add(p);
+        for (int i = 0; i < 4; ++i) {
+            vars.add(new Var(null, "v" + i, IntType.INT, vars.size()));
+        }
+        vars.add(new Var(null, "%intconst0", IntType.INT, vars.size(), IntLiteral.get(0)));
+        vars.add(new Var(null, "%intconst1", IntType.INT, vars.size(), IntLiteral.get(2)));
+        int n = 5 + random.nextInt(25);
+        List<Stmt> stmts = new ArrayList<>(n + 1);
+        for (int i = 0; i < n; ++i) {
+            Var lhs = vars.get(random.nextInt(5));
+            Var x = vars.get(random.nextInt(vars.size()));
+            Var y = vars.get(random.nextInt(vars.size()));
+            int kind = random.nextInt(10);
+            Stmt stmt;
+            if (kind < 3) {
+                stmt = new AssignLiteral(lhs, IntLiteral.get(random.nextInt(3)));
+            } else if (kind < 5) {
+                stmt = new Copy(lhs, x);
+            } else if (kind < 7) {
+                ArithmeticExp.Op op = ArithmeticExp.Op.values()[random.nextInt(nOps)];
+                stmt = new Binary(lhs, new ArithmeticExp(op, x, y));
+            } else if (kind < 8) {
+                stmt = new If(new ConditionExp(ConditionExp.Op.EQ, x, y));
+            } else if (kind < 9) {
+                stmt = new Goto();
+            } else {
+                stmt = new Nop();
+            }
+            stmts.add(stmt);
+        }
+        stmts.add(new Return());
+        for (Stmt stmt : stmts) {
+            if (stmt instanceof If ifStmt) {
+                ifStmt.setTarget(stmts.get(random.nextInt(stmts.size())));
+            } else if (stmt instanceof Goto gotoStmt) {
+                gotoStmt.setTarget(stmts.get(random.nextInt(stmts.size())));
+            }
+        }
+        return makeIR(List.of(p), vars, stmts);
+    }
+
+    private static IR makeIR(List<Var> params, List<Var> vars, List<Stmt> stmts) {
+        for (int i = 0; i < stmts.size(); ++i) {
+            stmts.get(i).setIndex(i);
+        }
+        IR ir = new DefaultIR(null, null, params, Set.of(), vars, stmts, List.of());
+        ir.storeResult(CFGBuilder.ID, new CFGBuilder(AnalysisConfig.of(
+                CFGBuilder.ID, "exception", null, "dump", false)).analyze(ir));
+        return ir;
+    }
+}
@@ -23,10 +23,14 @@
 package pascal.taie.analysis.dataflow.fact;
 
 import org.junit.jupiter.api.Test;
+import pascal.taie.util.Indexer;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FactTest {
@@ -75,6 +79,51 @@ public class FactTest {
         assertTrue(f3.isEmpty());
     }
 
+    @Test
+    void testBitVectorFact() {
+        List<String> elems = IntStream.range(0, 200)
+                .mapToObj(i -> "e" + i)
+                .toList();
+        Indexer<String> indexer = new Indexer<>() {
+            @Override
+            public int getIndex(String o) {
+                return Integer.parseInt(o.substring(1));
+            }
+
+            @Override
+            public String getObject(int index) {
+                return elems.get(index);
+            }
+        };
+        BitVectorFact<String> f1 = newBitVectorFact(indexer, "e1", "e70", "e199");
+        BitVectorFact<String> f2 = newBitVectorFact(indexer, "e70", "e150");
+        assertEquals(newSetFact("e1", "e70", "e199"), f1);
+        assertEquals(f1, newSetFact("e1", "e70", "e199"));
+        assertEquals(newSetFact("e1", "e70", "e150", "e199"), f1.unionWith(f2));
+        assertEquals(newSetFact("e70"), f1.intersectWith(f2));
+        assertEquals("[e1, e199, e70]", f1.toString());
+
+        // out = gen U (in - kill)
+        BitVectorFact<String> out = newBitVectorFact(indexer);
+        BitVectorFact.Mask gen = newBitVectorFact(indexer, "e150").toMask();
+        BitVectorFact.Mask kill = f2.toMask();
+        assertTrue(out.transfer(f1, gen, kill));
+        assertEquals(newSetFact("e1", "e150", "e199"), out);
+        assertFalse(out.transfer(f1, gen, kill));
+        assertTrue(out.transfer(out, BitVectorFact.Mask.EMPTY,
+                newBitVectorFact(indexer, "e1").toMask()));
+        assertEquals(newSetFact("e150", "e199"), out);
+    }
+
+    private static BitVectorFact<String> newBitVectorFact(
+            Indexer<String> indexer, String... args) {
+        BitVectorFact<String> fact = new BitVectorFact<>(indexer, 200);
+        for (String arg : args) {
+            fact.add(arg);
+        }
+        return fact;
+    }
+
     @SafeVarargs
     private static <T> SetFact<T> newSetFact(T... args) {
         return new SetFact<>(Arrays.asList(args));
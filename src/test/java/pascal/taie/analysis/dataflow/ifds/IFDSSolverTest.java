@@ -0,0 +1,243 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.ifds;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link IFDSSolver} with a taint-like problem on a toy ICFG,
+ * whose nodes are named as {@code method.index}.
+ * <pre>
+ * main: main.0 (a = source) -> main.1 (r1 = id(a)) -> main.2
+ *       -> main.3 (r2 = id(r1)) -> main.4 -> main.5 (r3 = rec(r2))
+ *       -> main.6 -> main.7 (exit)
+ * id:   id.0 -> id.1 (exit), returns its parameter p
+ * rec:  rec.0 -> rec.1 (q = rec(q)) -> rec.2 -> rec.3 (exit),
+ *       and rec.0 -> rec.3, returns its parameter q
+ * </pre>
+ */
+public class IFDSSolverTest {
+
+    private static final String ZERO = "0";
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    void testTaint(int parallelism) {
+        ToyICFG icfg = new ToyICFG();
+        ToyProblem problem = new ToyProblem();
+        IFDSResult<String, String> result =
+                new IFDSSolver<>(problem, icfg, parallelism).solve();
+        assertEquals(Set.of(), result.getFactsAt("main.0"));
+        assertEquals(Set.of("a"), result.getFactsAt("main.1"));
+        assertEquals(Set.of("a", "r1"), result.getFactsAt("main.2"));
+        assertEquals(Set.of("a", "r1", "r2"), result.getFactsAt("main.4"));
+        assertEquals(Set.of("a", "r1", "r2", "r3"), result.getFactsAt("main.7"));
+        assertEquals(Set.of("p"), result.getFactsAt("id.1"));
+        assertEquals(Set.of("q"), result.getFactsAt("rec.3"));
+        assertTrue(result.isReachable("rec.2"));
+        assertFalse(result.isReachable("dead.0"));
+        // id is analyzed once for entry fact p, and its summary
+        // is reused at the second call site
+        assertEquals(1, problem.idFlows.get());
+    }
+
+    private static class ToyICFG implements ICFG<String, String> {
+
+        private final MultiMap<String, String> succs = Maps.newMultiMap();
+
+        private final MultiMap<String, String> callees = Maps.newMultiMap();
+
+        private final Map<String, String> exits = Map.of(
+                "main", "main.7", "id", "id.1",
+                "rec", "rec.3", "dead", "dead.0");
+
+        private ToyICFG() {
+            chain("main.0", "main.1");
+            chain("main.2", "main.3");
+            chain("main.4", "main.5");
+            chain("main.6", "main.7");
+            chain("id.0", "id.1");
+            chain("rec.0", "rec.1");
+            chain("rec.0", "rec.3");
+            chain("rec.2", "rec.3");
+            callees.put("main.1", "id");
+            callees.put("main.3", "id");
+            callees.put("main.5", "rec");
+            callees.put("rec.1", "rec");
+        }
+
+        private void chain(String source, String target) {
+            succs.put(source, target);
+        }
+
+        @Override
+        public Stream<String> entryMethods() {
+            return Stream.of("main");
+        }
+
+        @Override
+        public Set<ICFGEdge<String>> getInEdgesOf(String node) {
+            return Set.of();
+        }
+
+        @Override
+        public Set<ICFGEdge<String>> getOutEdgesOf(String node) {
+            return Set.of();
+        }
+
+        @Override
+        public Set<String> getCalleesOf(String callSite) {
+            return callees.get(callSite);
+        }
+
+        @Override
+        public Set<String> getReturnSitesOf(String callSite) {
+            return Set.of(next(callSite));
+        }
+
+        @Override
+        public String getEntryOf(String method) {
+            return method + ".0";
+        }
+
+        @Override
+        public String getExitOf(String method) {
+            return exits.get(method);
+        }
+
+        @Override
+        public Set<String> getCallersOf(String method) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getContainingMethodOf(String node) {
+            return node.substring(0, node.indexOf('.'));
+        }
+
+        @Override
+        public boolean isCallSite(String node) {
+            return callees.containsKey(node);
+        }
+
+        @Override
+        public Set<String> getPredsOf(String node) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<String> getSuccsOf(String node) {
+            return succs.get(node);
+        }
+
+        @Override
+        public Set<String> getNodes() {
+            throw new UnsupportedOperationException();
+        }
+
+        private static String next(String node) {
+            int i = node.indexOf('.');
+            return node.substring(0, i + 1) +
+                    (Integer.parseInt(node.substring(i + 1)) + 1);
+        }
+    }
+
+    private static class ToyProblem implements IFDSProblem<String, String, String> {
+
+        /**
+         * Number of times the parameter of id flows through its body.
+         */
+        private final AtomicInteger idFlows = new AtomicInteger();
+
+        @Override
+        public String zeroValue() {
+            return ZERO;
+        }
+
+        @Override
+        public FlowFunction<String> getNormalFlowFunction(String curr, String succ) {
+            if (curr.equals("main.0")) {
+                return d -> d.equals(ZERO) ? Set.of(ZERO, "a") : Set.of(d);
+            }
+            if (curr.equals("id.0")) {
+                return d -> {
+                    if (d.equals("p")) {
+                        idFlows.incrementAndGet();
+                    }
+                    return Set.of(d);
+                };
+            }
+            return FlowFunction.identity();
+        }
+
+        @Override
+        public FlowFunction<String> getCallFlowFunction(String callSite, String callee) {
+            String arg = switch (callSite) {
+                case "main.1" -> "a";
+                case "main.3" -> "r1";
+                case "main.5" -> "r2";
+                default -> "q";
+            };
+            String param = callee.equals("id") ? "p" : "q";
+            return d -> d.equals(ZERO) ? Set.of(ZERO)
+                    : d.equals(arg) ? Set.of(param) : Set.of();
+        }
+
+        @Override
+        public FlowFunction<String> getReturnFlowFunction(
+                String callSite, String callee, String exit, String returnSite) {
+            String param = callee.equals("id") ? "p" : "q";
+            String lhs = switch (callSite) {
+                case "main.1" -> "r1";
+                case "main.3" -> "r2";
+                case "main.5" -> "r3";
+                default -> "q";
+            };
+            return d -> d.equals(param) ? Set.of(lhs) : Set.of();
+        }
+
+        @Override
+        public FlowFunction<String> getCallToReturnFlowFunction(
+                String callSite, String returnSite) {
+            // the return value kills the previous fact of rec's q
+            return callSite.equals("rec.1")
+                    ? FlowFunction.killAll(ZERO)
+                    : FlowFunction.identity();
+        }
+    }
+}
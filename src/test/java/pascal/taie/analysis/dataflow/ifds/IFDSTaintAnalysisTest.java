@@ -0,0 +1,63 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.ifds;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pascal.taie.Main;
+import pascal.taie.World;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests {@link IFDSTaintAnalysis} on the ICFG of a test program.
+ * The flows are identified by the line numbers of their sources and sinks.
+ */
+public class IFDSTaintAnalysisTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/ifds";
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    void testTaintFlows(int threads) {
+        Main.main("-pp",
+                "-cp", CLASS_PATH,
+                "-m", "TaintFlows",
+                "-a", "cg=algorithm:cha",
+                "-a", IFDSTaintAnalysis.ID + "=threads:" + threads
+                        + ";sources:['<TaintFlows: java.lang.String source()>',"
+                        + "'<TaintFlows: int secret()>']"
+                        + ";sinks:['<TaintFlows: void sink(java.lang.String)>',"
+                        + "'<TaintFlows: void sink(int)>']");
+        Set<IFDSTaintAnalysis.Flow> flows = World.get().getResult(IFDSTaintAnalysis.ID);
+        Set<String> lines = flows.stream()
+                .map(flow -> flow.source().getLineNumber()
+                        + " -> " + flow.sink().getLineNumber())
+                .collect(Collectors.toSet());
+        assertEquals(Set.of("4 -> 6", "4 -> 8", "4 -> 15",
+                "18 -> 20", "34 -> 21", "4 -> 22"), lines);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pascal.taie.analysis.dataflow.analysis.GenKillAnalysis;
+import pascal.taie.analysis.dataflow.fact.BitVectorFact;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.CFGNodeIndexer;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.IntType;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WorkListSolverTest {
+
+    /**
+     * Gen/kill analyses whose boundary facts are not {@link BitVectorFact}s
+     * are solved by the general loop, and give the same results.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"worklist", "rpo", "round-robin"})
+    void testGenKillWithOtherFacts(String kind) {
+        // 0: x = 1; 1: y = 2; 2: if (x == y) goto 0; 3: x = 3; 4: return
+        Var x = new Var(null, "x", IntType.INT, 0);
+        Var y = new Var(null, "y", IntType.INT, 1);
+        If loop = new If(new ConditionExp(ConditionExp.Op.EQ, x, y));
+        List<Stmt> stmts = List.of(
+                new AssignLiteral(x, IntLiteral.get(1)),
+                new AssignLiteral(y, IntLiteral.get(2)),
+                loop,
+                new AssignLiteral(x, IntLiteral.get(3)),
+                new Return());
+        for (int i = 0; i < stmts.size(); ++i) {
+            stmts.get(i).setIndex(i);
+        }
+        loop.setTarget(stmts.get(0));
+        IR ir = new DefaultIR(null, null, List.of(), Set.of(),
+                List.of(x, y), stmts, List.of());
+        CFG<Stmt> cfg = new CFGBuilder(AnalysisConfig.of(
+                CFGBuilder.ID, "exception", null, "dump", false)).analyze(ir);
+        Solver<Stmt, SetFact<Stmt>> solver = Solver.getSolver(kind);
+        DataflowResult<Stmt, SetFact<Stmt>> expected =
+                solver.solve(new Definitions(cfg, false));
+        DataflowResult<Stmt, SetFact<Stmt>> result =
+                solver.solve(new Definitions(cfg, true));
+        assertFalse(result.getInFact(cfg.getEntry()) instanceof BitVectorFact);
+        for (Stmt stmt : cfg) {
+            assertEquals(toSet(expected.getInFact(stmt)), toSet(result.getInFact(stmt)));
+            assertEquals(toSet(expected.getOutFact(stmt)), toSet(result.getOutFact(stmt)));
+        }
+        // x = 3 kills x = 1, and y = 2 reaches x = 1 via the loop
+        assertTrue(toSet(result.getOutFact(stmts.get(3))).contains(stmts.get(1)));
+        assertFalse(toSet(result.getOutFact(stmts.get(3))).contains(stmts.get(0)));
+        assertTrue(toSet(result.getInFact(stmts.get(0))).contains(stmts.get(1)));
+    }
+
+    private static Set<Stmt> toSet(SetFact<Stmt> fact) {
+        return fact.stream().collect(Collectors.toSet());
+    }
+
+    /**
+     * Reaching definitions of variables.
+     */
+    private static class Definitions extends GenKillAnalysis<Stmt, Stmt> {
+
+        private final boolean setBoundary;
+
+        private Definitions(CFG<Stmt> cfg, boolean setBoundary) {
+            super(cfg, new CFGNodeIndexer<>(cfg), cfg.getNumberOfNodes());
+            this.setBoundary = setBoundary;
+        }
+
+        @Override
+        public boolean isForward() {
+            return true;
+        }
+
+        @Override
+        public SetFact<Stmt> newBoundaryFact() {
+            return setBoundary ? new SetFact<>() : super.newBoundaryFact();
+        }
+
+        @Override
+        protected void computeGenKill(Stmt stmt, SetFact<Stmt> gen, SetFact<Stmt> kill) {
+            stmt.getDef().ifPresent(def -> {
+                for (Stmt s : cfg) {
+                    if (s != stmt && s.getDef().equals(stmt.getDef())) {
+                        kill.add(s);
+                    }
+                }
+                gen.add(stmt);
+            });
+        }
+    }
+}
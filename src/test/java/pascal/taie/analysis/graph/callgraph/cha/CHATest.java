@@ -45,4 +45,19 @@ public class CHATest {
         test(mainClass);
     }
 
+    /**
+     * Tests that parallel CHA builds the same call graphs as
+     * the sequential one.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "StaticCall",
+            "VirtualCall",
+            "Interface",
+            "AbstractMethod",
+    })
+    void testParallel(String mainClass) {
+        Tests.testMain(mainClass, CLASS_PATH, "cg", "algorithm:cha;threads:4");
+    }
+
 }
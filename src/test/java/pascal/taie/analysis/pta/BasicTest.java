@@ -63,4 +63,92 @@ public class BasicTest {
         Tests.testPTA(DIR, mainClass);
     }
 
+    /**
+     * Tests that parallel solver produces the same results as the
+     * sequential one.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "LinkedQueue",
+            "RedBlackBST",
+            "Dispatch",
+            "Recursion",
+            "Cycle",
+    })
+    void testParallelSolver(String mainClass) {
+        Tests.testPTA(DIR, mainClass, "solver:parallel", "solver-threads:4");
+    }
+
+    /**
+     * Tests that work list strategies do not affect the results.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"lrf", "size", "topo"})
+    void testWorkListStrategy(String strategy) {
+        Tests.testPTA(DIR, "RedBlackBST", "work-list:" + strategy);
+        Tests.testPTA(DIR, "Cycle", "work-list:" + strategy);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"sparse-bit", "regular-bit", "hash", "roaring", "bdd", "off-heap"})
+    void testPointsToSetRepresentation(String representation) {
+        Tests.testPTA(DIR, "RedBlackBST", "pts-set:" + representation);
+        Tests.testPTA(DIR, "LinkedQueue", "pts-set:" + representation);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"RedBlackBST", "LinkedQueue"})
+    void testPointsToSetSpilling(String mainClass) {
+        Tests.testPTA(DIR, mainClass, "pts-set:off-heap",
+                "pts-spill-dir:output/pts-spill");
+        Tests.testPTA(DIR, mainClass, "pts-set:off-heap",
+                "pts-spill-dir:output/pts-spill", "pts-spill-memory:64");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Assign",
+            "Cycle",
+            "LinkedQueue",
+            "RedBlackBST",
+    })
+    void testPointsToSetSharing(String mainClass) {
+        Tests.testPTA(DIR, mainClass, "pts-sharing:true");
+        Tests.testPTA(DIR, mainClass, "pts-sharing:true", "solver:parallel");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Array",
+            "InstanceField",
+            "RedBlackBST",
+            "StaticField",
+    })
+    void testIndexBasedCSManager(String mainClass) {
+        Tests.testPTA(DIR, mainClass, "cs-manager:index");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Cycle",
+            "LinkedQueue",
+            "Recursion",
+    })
+    void testCycleElimination(String mainClass) {
+        Tests.testPTA(DIR, mainClass, "cycle-elimination:true");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Assign",
+            "Cycle",
+            "LinkedQueue",
+            "Recursion",
+    })
+    void testVariableSubstitution(String mainClass) {
+        Tests.testPTA(DIR, mainClass, "variable-substitution:true");
+        Tests.testPTA(DIR, mainClass, "variable-substitution:true",
+                "cycle-elimination:true");
+    }
+
 }
@@ -50,4 +50,21 @@ public class ContextSensitivityTest {
         Tests.testPTA(DIR, mainClass, opts);
     }
 
+    @ParameterizedTest
+    @MultiStringsSource({"TwoCall", "cs:2-call", "cs-manager:index"})
+    @MultiStringsSource({"TwoObject", "cs:2-obj", "cs-manager:index"})
+    @MultiStringsSource({"TwoType", "cs:2-type", "cs-manager:index"})
+    void testIndexBasedCSManager(String mainClass, String... opts) {
+        Tests.testPTA(DIR, mainClass, opts);
+    }
+
+    @ParameterizedTest
+    @MultiStringsSource({"TwoCall", "cs:2-call", "context-factory:index"})
+    @MultiStringsSource({"TwoObject", "cs:2-obj", "context-factory:index"})
+    @MultiStringsSource({"TwoType", "cs:2-type", "context-factory:index",
+            "cs-manager:index"})
+    void testIndexedContext(String mainClass, String... opts) {
+        Tests.testPTA(DIR, mainClass, opts);
+    }
+
 }
@@ -97,6 +97,32 @@ public class TaintTest {
         }
     }
 
+    @ParameterizedTest
+    @MultiStringsSource({"SimpleTaint", TAINT_CONFIG})
+    @MultiStringsSource({"CycleTaint", TAINT_CONFIG})
+    @MultiStringsSource({"ArgToResult", TAINT_CONFIG})
+    @MultiStringsSource({"BackPropagation", TAINT_CONFIG})
+    void testVariableSubstitution(String mainClass, String... opts) {
+        // sanitizers add filters and taint transfers inject objects into
+        // variables, which must not be lost by merged variables
+        String[] newOpts = new String[opts.length + 1];
+        System.arraycopy(opts, 0, newOpts, 0, opts.length);
+        newOpts[opts.length] = "variable-substitution:true";
+        testInNonInteractiveMode(mainClass, newOpts);
+    }
+
+    @ParameterizedTest
+    @MultiStringsSource({"CycleTaint", TAINT_CONFIG})
+    @MultiStringsSource({"BackPropagation", TAINT_CONFIG})
+    void testCycleElimination(String mainClass, String... opts) {
+        // sanitizers may add filters to merged pointers,
+        // which must be split from the others
+        String[] newOpts = new String[opts.length + 1];
+        System.arraycopy(opts, 0, newOpts, 0, opts.length);
+        newOpts[opts.length] = "cycle-elimination:true";
+        testInNonInteractiveMode(mainClass, newOpts);
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {
             "SimpleTaint",
@@ -29,6 +29,10 @@ import pascal.taie.World;
 import pascal.taie.frontend.cache.CachedIRBuilder;
 import pascal.taie.frontend.cache.CachedWorldBuilder;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class WorldCacheTest {
@@ -51,8 +55,31 @@ public class WorldCacheTest {
         Main.main(args);
         Main.main(args);
         World world2 = World.get();
-        CachedWorldBuilder.getWorldCacheFile(world2.getOptions()).delete();
+        File cacheFile = CachedWorldBuilder.getWorldCacheFile(world2.getOptions());
+        cacheFile.delete();
+        CachedWorldBuilder.getIRCacheFile(cacheFile).delete();
         assertTrue(world2.getIRBuilder() instanceof CachedIRBuilder);
     }
 
+    @Test
+    void testStaleWorldCache() throws IOException {
+        String[] args = {
+                "-wc",
+                "-java", "8",
+                "-cp", "src/test/resources/pta/basic",
+                "-m", "Assign",
+                "-a", "pta=implicit-entries:false;only-app:true"
+        };
+        Main.main(args);
+        File cacheFile = CachedWorldBuilder.getWorldCacheFile(World.get().getOptions());
+        // a cache in unsupported format should be ignored and rebuilt
+        Files.write(cacheFile.toPath(), new byte[]{ 0, 0, 0, 0, 0, 0, 0, 0 });
+        Main.main(args);
+        assertTrue(cacheFile.length() > 8);
+        Main.main(args);
+        assertTrue(World.get().getIRBuilder() instanceof CachedIRBuilder);
+        cacheFile.delete();
+        CachedWorldBuilder.getIRCacheFile(cacheFile).delete();
+    }
+
 }
@@ -45,6 +45,30 @@ public class ContextTest {
         assertEquals(cde.getParent(), cd);
     }
 
+    @Test
+    void testIndexedContext() {
+        testContext(new IndexedContext.Factory<>());
+    }
+
+    @Test
+    void testIndexedContext2() {
+        IndexedContext.Factory<String> factory = new IndexedContext.Factory<>();
+        IndexedContext empty = factory.getEmptyContext();
+        assertEquals(0, empty.getIndex());
+        assertEquals(0, empty.getLength());
+        IndexedContext abc = factory.make("A", "B", "C");
+        assertEquals(3, abc.getLength());
+        assertEquals("A", abc.getElementAt(0));
+        assertEquals("B", abc.getElementAt(1));
+        assertEquals("C", abc.getElementAt(2));
+        assertEquals("[A, B, C]", abc.toString());
+        IndexedContext bcd = factory.append(abc, "D", 3);
+        assertEquals(factory.make("B", "C", "D"), bcd);
+        assertEquals(bcd, factory.getContext(bcd.getIndex()));
+        // the indexes are dense
+        assertEquals(7, factory.getContextCount());
+    }
+
     private static void testContext(ContextFactory<String> factory) {
         Context a = factory.make("A");
         Context empty1 = factory.getEmptyContext();
@@ -0,0 +1,59 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
+import pascal.taie.analysis.pta.core.heap.Descriptor;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.util.Indexer;
+
+/**
+ * Indexer of mock {@link CSObj}s, whose indexes are consecutive from 0.
+ * It allows testing the data structures of CSObjs without building a world.
+ */
+public class MockCSObjIndexer implements Indexer<CSObj> {
+
+    private static final Descriptor MOCK_DESC = () -> "MockCSObj";
+
+    private final CSObj[] objs;
+
+    public MockCSObjIndexer(int size) {
+        Context context = new TrieContext.Factory<>().getEmptyContext();
+        objs = new CSObj[size];
+        for (int i = 0; i < size; ++i) {
+            objs[i] = new CSObj(new MockObj(MOCK_DESC, i, null, null, false),
+                    context, i);
+        }
+    }
+
+    @Override
+    public int getIndex(CSObj o) {
+        return o.getIndex();
+    }
+
+    @Override
+    public CSObj getObject(int index) {
+        return objs[index];
+    }
+}
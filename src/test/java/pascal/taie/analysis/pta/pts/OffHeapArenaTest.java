@@ -0,0 +1,97 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffHeapArenaTest {
+
+    /**
+     * Number of ints of the largest block, which fills a whole chunk.
+     */
+    private static final int CHUNK_INTS = 1 << 24;
+
+    private static final long CHUNK_BYTES = (long) CHUNK_INTS * Integer.BYTES;
+
+    @Test
+    void testReuseFreedBlocks() {
+        OffHeapArena arena = new OffHeapArena();
+        long h1 = arena.allocate(5);
+        assertEquals(8, OffHeapArena.capacityFor(5));
+        arena.free(h1, 5);
+        long h2 = arena.allocate(8);
+        assertEquals(h1, h2);
+        assertTrue(arena.allocate(8) != h2);
+    }
+
+    @Test
+    void testCopy(@TempDir Path spillDir) {
+        for (OffHeapArena arena : new OffHeapArena[]{
+                new OffHeapArena(), new MappedOffHeapArena(spillDir, -1)}) {
+            long src = arena.allocate(4);
+            long dest = arena.allocate(8);
+            for (int i = 0; i < 4; ++i) {
+                arena.set(src, i, i + 1);
+            }
+            arena.copy(src, 1, dest, 5, 3);
+            assertEquals(2, arena.get(dest, 5));
+            assertEquals(4, arena.get(dest, 7));
+            // empty copies at the start of a chunk
+            arena.copy(src, 0, src, 0, 0);
+            arena.copy(dest, 8, src, 0, 0);
+            arena.flush();
+        }
+    }
+
+    @Test
+    void testEvictLeastRecentlyAccessedChunks(@TempDir Path spillDir) {
+        // at most two chunks are mapped
+        MappedOffHeapArena arena = new MappedOffHeapArena(spillDir, 2 * CHUNK_BYTES);
+        long[] blocks = new long[4];
+        for (int i = 0; i < blocks.length; ++i) {
+            blocks[i] = arena.allocate(CHUNK_INTS);
+            arena.set(blocks[i], 0, i);
+            arena.set(blocks[i], CHUNK_INTS - 1, -i);
+            assertTrue(arena.getMappedChunks() <= 2);
+        }
+        // the chunks of blocks 0 and 1 have been unmapped
+        for (int round = 0; round < 2; ++round) {
+            for (int i = 0; i < blocks.length; ++i) {
+                assertEquals(i, arena.get(blocks[i], 0));
+                assertEquals(-i, arena.get(blocks[i], CHUNK_INTS - 1));
+                assertTrue(arena.getMappedChunks() <= 2);
+            }
+            arena.flush();
+        }
+        arena.copy(blocks[0], 0, blocks[3], 1, 1);
+        assertEquals(0, arena.get(blocks[3], 1));
+        assertEquals(3, arena.get(blocks[3], 0));
+        assertEquals(4 * CHUNK_BYTES, arena.getReservedBytes());
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.MockCSObjIndexer;
+import pascal.taie.util.Indexer;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffHeapPointsToSetTest {
+
+    private static final int OBJECTS = 1 << 16;
+
+    private static Indexer<CSObj> indexer;
+
+    @BeforeAll
+    static void makeObjects() {
+        indexer = new MockCSObjIndexer(OBJECTS);
+    }
+
+    private static OffHeapPointsToSet make(OffHeapArena arena) {
+        return new OffHeapPointsToSet(arena, indexer,
+                () -> new HybridBitPointsToSet(indexer, true));
+    }
+
+    @Test
+    void testArrayToBitmap() {
+        OffHeapPointsToSet pts = make(new OffHeapArena());
+        TreeSet<Integer> expected = new TreeSet<>();
+        // 16 indexes in 3 pages of 64 indexes
+        for (int i = 0; i < 16; ++i) {
+            add(pts, expected, 150 - i * 9);
+        }
+        assertFalse(pts.addObject(indexer.getObject(150)));
+        assertEquals(-1, pts.getPageCount());
+        assertEquals(expected, indexesOf(pts));
+        add(pts, expected, 1000);
+        assertEquals(4, pts.getPageCount());
+        assertEquals(expected, indexesOf(pts));
+        for (int index : expected) {
+            assertTrue(pts.contains(indexer.getObject(index)));
+        }
+        assertFalse(pts.contains(indexer.getObject(151)));
+    }
+
+    @Test
+    void testInsertPages() {
+        OffHeapPointsToSet pts = make(new OffHeapArena());
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 17; ++i) {
+            add(pts, expected, 64 * 100 + i);
+        }
+        assertEquals(1, pts.getPageCount());
+        // inserts pages before, between and after the existing pages,
+        // which shifts the pages in place or moves them to a larger block
+        int[] keys = {50, 200, 0, 120, 99, 101, 300, 1, 150, 75};
+        for (int i = 0; i < keys.length; ++i) {
+            add(pts, expected, keys[i] * 64 + 63);
+            add(pts, expected, keys[i] * 64);
+            assertEquals(i + 2, pts.getPageCount());
+            assertEquals(expected, indexesOf(pts));
+        }
+        pts.removeIf(o -> indexer.getIndex(o) % 64 == 63);
+        expected.removeIf(i -> i % 64 == 63);
+        assertEquals(keys.length + 1, pts.getPageCount());
+        assertEquals(expected, indexesOf(pts));
+        pts.removeIf(o -> indexer.getIndex(o) < 64 * 100);
+        expected.removeIf(i -> i < 64 * 100);
+        assertEquals(expected, indexesOf(pts));
+    }
+
+    @Test
+    void testMergePages() {
+        OffHeapArena arena = new OffHeapArena();
+        OffHeapPointsToSet pts = make(arena);
+        OffHeapPointsToSet other = make(arena);
+        TreeSet<Integer> expected = new TreeSet<>();
+        TreeSet<Integer> otherExpected = new TreeSet<>();
+        for (int i = 0; i < 40; ++i) {
+            add(pts, expected, i * 3);
+            add(other, otherExpected, i * 2);
+        }
+        // the pages of other are all in this set, which are merged in place
+        assertDiff(expected, otherExpected, pts.addAllDiff(other));
+        assertEquals(expected, indexesOf(pts));
+        assertEquals(0, pts.addAllDiff(other).size());
+        // new pages of other are inserted into a new block
+        for (int i = 0; i < 40; ++i) {
+            add(other, otherExpected, 5000 - i * 70);
+        }
+        assertDiff(expected, otherExpected, pts.addAllDiff(other));
+        assertEquals(expected, indexesOf(pts));
+        assertEquals(otherExpected.size(), other.size());
+        // merges a set in the bitmap form into a set in the array form
+        OffHeapPointsToSet small = make(arena);
+        TreeSet<Integer> smallExpected = new TreeSet<>();
+        add(small, smallExpected, 4);
+        add(small, smallExpected, 30000);
+        assertEquals(-1, small.getPageCount());
+        assertDiff(smallExpected, expected, small.addAllDiff(pts));
+        assertEquals(smallExpected, indexesOf(small));
+        // merges an on-heap set
+        PointsToSet heapSet = new HybridBitPointsToSet(indexer, true);
+        for (int i = 0; i < 100; ++i) {
+            heapSet.addObject(indexer.getObject(i * 11));
+        }
+        TreeSet<Integer> heapExpected = indexesOf(heapSet);
+        assertDiff(smallExpected, heapExpected, small.addAllDiff(heapSet));
+        assertEquals(smallExpected, indexesOf(small));
+        assertFalse(small.addAll(heapSet));
+    }
+
+    @Test
+    void testRandomOperations(@TempDir Path spillDir) {
+        for (OffHeapArena arena : new OffHeapArena[]{
+                new OffHeapArena(), new MappedOffHeapArena(spillDir, -1)}) {
+            Random random = new Random(0);
+            List<OffHeapPointsToSet> sets = new ArrayList<>();
+            List<TreeSet<Integer>> expectedSets = new ArrayList<>();
+            for (int i = 0; i < 50; ++i) {
+                sets.add(make(arena));
+                expectedSets.add(new TreeSet<>());
+            }
+            for (int op = 0; op < 2000; ++op) {
+                int i = random.nextInt(sets.size());
+                int j = random.nextInt(sets.size());
+                OffHeapPointsToSet pts = sets.get(i);
+                TreeSet<Integer> expected = expectedSets.get(i);
+                TreeSet<Integer> otherExpected = expectedSets.get(j);
+                switch (random.nextInt(6)) {
+                    case 0, 1 -> {
+                        // indexes clustered at a random base
+                        int base = random.nextInt(OBJECTS - 2000);
+                        int n = 1 + random.nextInt(random.nextBoolean() ? 20 : 300);
+                        for (int k = 0; k < n; ++k) {
+                            int index = base + random.nextInt(2000);
+                            assertEquals(expected.add(index),
+                                    pts.addObject(indexer.getObject(index)));
+                        }
+                    }
+                    case 2 -> {
+                        TreeSet<Integer> diff = new TreeSet<>(otherExpected);
+                        diff.removeAll(expected);
+                        assertEquals(!diff.isEmpty(), pts.addAll(sets.get(j)));
+                        expected.addAll(otherExpected);
+                    }
+                    case 3 -> assertDiff(expected, otherExpected,
+                            pts.addAllDiff(sets.get(j)));
+                    case 4 -> {
+                        int mod = 2 + random.nextInt(5);
+                        pts.removeIf(o -> indexer.getIndex(o) % mod == 0);
+                        expected.removeIf(index -> index % mod == 0);
+                    }
+                    default -> assertEquals(expected, indexesOf(pts.copy()));
+                }
+                assertEquals(expected, indexesOf(pts));
+                assertEquals(expected.size(), pts.size());
+                int index = random.nextInt(OBJECTS);
+                assertEquals(expected.contains(index),
+                        pts.contains(indexer.getObject(index)));
+            }
+            arena.flush();
+        }
+    }
+
+    /**
+     * Checks the result of {@code addAllDiff}, and adds the objects
+     * of {@code otherExpected} to {@code expected}.
+     */
+    private static void assertDiff(TreeSet<Integer> expected,
+                                   TreeSet<Integer> otherExpected,
+                                   PointsToSet diff) {
+        TreeSet<Integer> expectedDiff = new TreeSet<>(otherExpected);
+        expectedDiff.removeAll(expected);
+        assertEquals(expectedDiff, indexesOf(diff));
+        expected.addAll(otherExpected);
+    }
+
+    private static void add(PointsToSet pts, TreeSet<Integer> expected, int index) {
+        assertEquals(expected.add(index), pts.addObject(indexer.getObject(index)));
+    }
+
+    /**
+     * @return the indexes of the objects in given set, which also checks
+     * that the set iterates over the objects in the order of their indexes.
+     */
+    private static TreeSet<Integer> indexesOf(PointsToSet pts) {
+        List<Integer> indexes = new ArrayList<>();
+        pts.forEach(o -> indexes.add(indexer.getIndex(o)));
+        TreeSet<Integer> result = new TreeSet<>(indexes);
+        if (pts instanceof OffHeapPointsToSet) {
+            assertEquals(new ArrayList<>(result), indexes);
+        }
+        return result;
+    }
+}
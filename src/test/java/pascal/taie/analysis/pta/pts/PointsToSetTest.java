@@ -0,0 +1,278 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.MockCSObjIndexer;
+import pascal.taie.util.Indexer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PointsToSetTest {
+
+    /**
+     * Number of objects, whose indexes span four chunks
+     * of {@link RoaringPointsToSet}.
+     */
+    private static final int OBJECTS = 4 << 16;
+
+    private static Indexer<CSObj> indexer;
+
+    private static CSObj[] objs;
+
+    @BeforeAll
+    static void makeObjects() {
+        indexer = new MockCSObjIndexer(OBJECTS);
+        objs = new CSObj[OBJECTS];
+        for (int i = 0; i < OBJECTS; ++i) {
+            objs[i] = indexer.getObject(i);
+        }
+    }
+
+    private static PointsToSet make(String representation) {
+        return new PointsToSetFactory(indexer, representation, false, null, -1)
+                .make();
+    }
+
+    @Test
+    void testRoaringContainerTransitions() {
+        RoaringPointsToSet pts = new RoaringPointsToSet(indexer);
+        TreeSet<Integer> expected = new TreeSet<>();
+        // array container of at most 4096 indexes
+        add(pts, expected, i -> i < 8192 && i % 2 == 0);
+        assertEquals("array", pts.getContainerKind(0));
+        assertEquals(4096, pts.size());
+        // array container becomes bitmap container when it overflows
+        assertTrue(pts.addObject(objs[8192]));
+        expected.add(8192);
+        assertEquals("bitmap", pts.getContainerKind(0));
+        assertEquals(expected, indexesOf(pts));
+        // bitmap container becomes run container after merging a run
+        RoaringPointsToSet all = new RoaringPointsToSet(indexer);
+        add(all, expected, i -> i < 1 << 16);
+        assertEquals("bitmap", all.getContainerKind(0));
+        PointsToSet diff = pts.addAllDiff(all);
+        assertEquals(expected, indexesOf(pts));
+        assertEquals((1 << 16) - 4097, diff.size());
+        assertEquals("run", pts.getContainerKind(0));
+        assertTrue(pts.contains(objs[(1 << 16) - 1]));
+        assertFalse(pts.addAll(all));
+        assertEquals("run", pts.getContainerKind(0));
+        // removing objects keeps the runs
+        pts.removeIf(o -> indexer.getIndex(o) % 1000 == 0);
+        expected.removeIf(i -> i % 1000 == 0);
+        assertEquals("run", pts.getContainerKind(0));
+        assertEquals(expected, indexesOf(pts));
+        // run container becomes bitmap container when it is modified
+        assertTrue(pts.addObject(objs[1000]));
+        expected.add(1000);
+        assertEquals("bitmap", pts.getContainerKind(0));
+        assertEquals(expected, indexesOf(pts));
+        // run containers of other sets are copied when they are merged
+        RoaringPointsToSet runs = new RoaringPointsToSet(indexer);
+        runs.addAll(all);
+        assertEquals("run", runs.getContainerKind(0));
+        RoaringPointsToSet copy = (RoaringPointsToSet) runs.copy();
+        copy.addObject(objs[1 << 16]);
+        assertEquals("run", runs.getContainerKind(0));
+        assertEquals("run", copy.getContainerKind(0));
+        assertEquals("array", copy.getContainerKind(1));
+        assertEquals(1 << 16, runs.size());
+        // combining run containers with other containers
+        assertEquals(indexesOf(pts), indexesOf(runs.intersect(pts)));
+        assertEquals(List.of(0, 2000, 3000), new ArrayList<>(
+                indexesOf(runs.subtract(pts))).subList(0, 3));
+        assertEquals(Integer.valueOf(1 << 16),
+                indexesOf(copy.subtract(runs)).first());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"roaring", "bdd", "sparse-bit", "hash"})
+    void testRandomOperations(String representation) {
+        Random random = new Random(representation.hashCode());
+        for (int round = 0; round < 100; ++round) {
+            PointsToSet pts = make(representation);
+            TreeSet<Integer> expected = new TreeSet<>();
+            for (int op = 0; op < 20; ++op) {
+                PointsToSet other = make(representation);
+                TreeSet<Integer> otherExpected = new TreeSet<>();
+                add(other, otherExpected, randomIndexes(random));
+                switch (random.nextInt(7)) {
+                    case 0 -> {
+                        int index = random.nextInt(OBJECTS);
+                        assertEquals(expected.add(index), pts.addObject(objs[index]));
+                    }
+                    case 1 -> assertEquals(expected.addAll(otherExpected),
+                            pts.addAll(other));
+                    case 2 -> {
+                        TreeSet<Integer> expectedDiff = new TreeSet<>(otherExpected);
+                        expectedDiff.removeAll(expected);
+                        expected.addAll(otherExpected);
+                        assertEquals(expectedDiff, indexesOf(pts.addAllDiff(other)));
+                    }
+                    case 3 -> {
+                        TreeSet<Integer> expectedResult = new TreeSet<>(expected);
+                        expectedResult.retainAll(otherExpected);
+                        assertEquals(expectedResult, indexesOf(pts.intersect(other)));
+                    }
+                    case 4 -> {
+                        TreeSet<Integer> expectedResult = new TreeSet<>(expected);
+                        expectedResult.removeAll(otherExpected);
+                        assertEquals(expectedResult, indexesOf(pts.subtract(other)));
+                    }
+                    case 5 -> {
+                        int mod = 2 + random.nextInt(5);
+                        pts.removeIf(o -> indexer.getIndex(o) % mod == 0);
+                        expected.removeIf(i -> i % mod == 0);
+                    }
+                    default -> {
+                        PointsToSet copy = pts.copy();
+                        copy.addAll(other);
+                        assertEquals(expected, indexesOf(pts));
+                        pts = copy;
+                        expected.addAll(otherExpected);
+                    }
+                }
+                assertEquals(expected, indexesOf(pts));
+                assertEquals(expected.size(), pts.size());
+                assertEquals(expected.isEmpty(), pts.isEmpty());
+                int index = random.nextInt(OBJECTS);
+                assertEquals(expected.contains(index), pts.contains(objs[index]));
+                assertEquals(expected.size(), pts.objects().count());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"roaring", "bdd"})
+    void testIterationOrder(String representation) {
+        Random random = new Random(0);
+        PointsToSet pts = make(representation);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 10; ++i) {
+            add(pts, expected, randomIndexes(random));
+        }
+        List<Integer> indexes = new ArrayList<>();
+        pts.forEach(o -> indexes.add(indexer.getIndex(o)));
+        assertEquals(new ArrayList<>(expected), indexes);
+    }
+
+    @Test
+    void testBDDSharing() {
+        BDDManager manager = new BDDManager();
+        BDDPointsToSet pts1 = new BDDPointsToSet(manager, indexer);
+        BDDPointsToSet pts2 = new BDDPointsToSet(manager, indexer);
+        for (int i = 0; i < 1000; ++i) {
+            pts1.addObject(objs[i * 7]);
+        }
+        for (int i = 999; i >= 0; --i) {
+            pts2.addObject(objs[i * 7]);
+        }
+        // equal sets are the same node
+        assertEquals(pts1.root, pts2.root);
+        assertEquals(pts1.root, ((BDDPointsToSet) pts1.copy()).root);
+        pts2.addObject(objs[1]);
+        assertEquals(1000, pts1.size());
+        assertEquals(1001, pts2.size());
+    }
+
+    @Test
+    void testBDDNodeReclamation() {
+        BDDManager manager = new BDDManager();
+        Random random = new Random(0);
+        BDDPointsToSet live = new BDDPointsToSet(manager, indexer);
+        TreeSet<Integer> expected = new TreeSet<>();
+        add(live, expected, randomIndexes(random));
+        // makes millions of unreachable nodes, and checks that they are
+        // reclaimed and the live set is intact
+        for (int i = 0; i < 100; ++i) {
+            BDDPointsToSet garbage = new BDDPointsToSet(manager, indexer);
+            for (int j = 0; j < 3000; ++j) {
+                garbage.addObject(objs[random.nextInt(OBJECTS)]);
+            }
+            if (i % 10 == 0) {
+                // clears the references to the unreachable sets
+                System.gc();
+            }
+            assertEquals(expected, indexesOf(live));
+        }
+        assertTrue(manager.getNodeCount() < 2 << 20);
+        add(live, expected, randomIndexes(random));
+        assertEquals(expected, indexesOf(live));
+    }
+
+    /**
+     * @return random indexes, which are a few scattered indexes,
+     * a range of indexes with random density, or a run.
+     */
+    private static int[] randomIndexes(Random random) {
+        int start = random.nextInt(OBJECTS);
+        IntStream range = IntStream.range(start,
+                Math.min(OBJECTS, start + 1 + random.nextInt(3000)));
+        return switch (random.nextInt(3)) {
+            case 0 -> random.ints(1 + random.nextInt(8), 0, OBJECTS).toArray();
+            case 1 -> {
+                int mod = 1 + random.nextInt(20);
+                yield range.filter(i -> i % mod == 0).toArray();
+            }
+            default -> range.toArray();
+        };
+    }
+
+    private static void add(PointsToSet pts, TreeSet<Integer> expected,
+                            int[] indexes) {
+        for (int index : indexes) {
+            pts.addObject(objs[index]);
+            expected.add(index);
+        }
+    }
+
+    private static void add(PointsToSet pts, TreeSet<Integer> expected,
+                            IntPredicate predicate) {
+        for (int i = 0; i < OBJECTS; ++i) {
+            if (predicate.test(i)) {
+                pts.addObject(objs[i]);
+                expected.add(i);
+            }
+        }
+    }
+
+    private static TreeSet<Integer> indexesOf(PointsToSet pts) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        pts.forEach(o -> indexes.add(indexer.getIndex(o)));
+        return indexes;
+    }
+}
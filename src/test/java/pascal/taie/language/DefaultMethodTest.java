@@ -26,6 +26,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import pascal.taie.Main;
 
+import static pascal.taie.language.HierarchyTest.testDispatch;
 import static pascal.taie.language.HierarchyTest.testResolveMethod;
 
 public class DefaultMethodTest {
@@ -40,4 +41,11 @@ public class DefaultMethodTest {
         testResolveMethod("DefaultMethod$C", "foo", "DefaultMethod$A");
         testResolveMethod("DefaultMethod$C", "bar", "DefaultMethod$II");
     }
+
+    @Test
+    void testDispatchDefaultMethod() {
+        testDispatch("DefaultMethod$C", "DefaultMethod$I", "bar", "DefaultMethod$II");
+        testDispatch("DefaultMethod$C", "DefaultMethod$II", "foo", "DefaultMethod$A");
+        testDispatch("DefaultMethod$C", "DefaultMethod$B", "foo", "DefaultMethod$A");
+    }
 }
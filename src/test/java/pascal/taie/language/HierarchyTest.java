@@ -29,17 +29,27 @@ import pascal.taie.World;
 import pascal.taie.ir.proginfo.FieldRef;
 import pascal.taie.ir.proginfo.FieldResolutionFailedException;
 import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JClassBuilder;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Modifier;
+import pascal.taie.language.generics.ClassGSignature;
 import pascal.taie.language.type.ClassType;
 import pascal.taie.language.type.Type;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static pascal.taie.language.type.BooleanType.BOOLEAN;
@@ -104,6 +114,116 @@ public class HierarchyTest {
         expectedNotSubclass(d, c);
     }
 
+    /**
+     * Test that subclass checking agrees with the subclasses
+     * collected by traversing the hierarchy.
+     */
+    @Test
+    void testSubclass5() {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        List<JClass> classes = hierarchy.applicationClasses().toList();
+        for (JClass sup : classes) {
+            Collection<JClass> subclasses = hierarchy.getAllSubclassesOf(sup);
+            for (JClass sub : classes) {
+                assertEquals(subclasses.contains(sub),
+                        hierarchy.isSubclass(sup, sub), sup + " <: " + sub);
+            }
+        }
+    }
+
+    /**
+     * Test that subclass checking sees the classes added to the hierarchy
+     * after previous checks, e.g., the phantom classes added lazily.
+     */
+    @Test
+    void testSubclass6() {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        JClass i = getClass("I"), ii = getClass("II"),
+                c = getClass("C"), d = getClass("D");
+        assertFalse(hierarchy.isSubclass(i, d));
+        JClass late = new JClass(d.getClassLoader(), "LateSubclass");
+        late.build(new LateClassBuilder(late, d, getClass("IIII")));
+        hierarchy.addClass(late);
+        assertTrue(hierarchy.isSubclass(i, late));
+        assertTrue(hierarchy.isSubclass(ii, late));
+        assertTrue(hierarchy.isSubclass(c, late));
+        assertFalse(hierarchy.isSubclass(i, d));
+        assertFalse(hierarchy.isSubclass(late, d));
+    }
+
+    /**
+     * Builds a non-application class with given superclass and interface.
+     */
+    private record LateClassBuilder(JClass jclass, JClass superClass,
+                                    JClass iface) implements JClassBuilder {
+
+        @Override
+        public void build(JClass jclass) {
+            jclass.build(this);
+        }
+
+        @Override
+        public Set<Modifier> getModifiers() {
+            return Set.of(Modifier.PUBLIC);
+        }
+
+        @Override
+        public String getSimpleName() {
+            return jclass.getName();
+        }
+
+        @Override
+        public ClassType getClassType() {
+            return World.get().getTypeSystem().getClassType(
+                    jclass.getClassLoader(), jclass.getName());
+        }
+
+        @Override
+        public JClass getSuperClass() {
+            return superClass;
+        }
+
+        @Override
+        public Collection<JClass> getInterfaces() {
+            return List.of(iface);
+        }
+
+        @Override
+        public JClass getOuterClass() {
+            return null;
+        }
+
+        @Override
+        public Collection<JField> getDeclaredFields() {
+            return List.of();
+        }
+
+        @Override
+        public Collection<JMethod> getDeclaredMethods() {
+            return List.of();
+        }
+
+        @Override
+        public AnnotationHolder getAnnotationHolder() {
+            return AnnotationHolder.emptyHolder();
+        }
+
+        @Override
+        public boolean isApplication() {
+            return false;
+        }
+
+        @Override
+        public boolean isPhantom() {
+            return true;
+        }
+
+        @Override
+        public ClassGSignature getGSignature() {
+            return null;
+        }
+    }
+
     private static void expectedSubclass(String sup, String sub) {
         JClass superclass = getClass(sup);
         JClass subclass = getClass(sub);
@@ -269,6 +389,81 @@ public class HierarchyTest {
                 declaringClass, parameterTypes);
     }
 
+    // ---------- Test method dispatch dispatch()  ----------
+
+    /**
+     * Dispatch to the methods of current class and superclasses.
+     */
+    @Test
+    void testDispatch1() {
+        testDispatch("E", "C", "foo", "C", LONG);
+        testDispatch("E", "E", "foo", "E", INT);
+        testDispatch("G", "C", "bar", "C");
+        testDispatch("G", "IIII", "baz", "C", BOOLEAN);
+        testDispatch("D", "java.lang.Object", "hashCode", INT,
+                "java.lang.Object");
+    }
+
+    /**
+     * Dispatch fails on abstract methods and unrelated classes.
+     */
+    @Test
+    void testDispatch2() {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        MethodRef biu = MethodRef.get(getClass("I"), "biu",
+                List.of(getClassType("I")), VOID, false);
+        assertNull(hierarchy.dispatch(getClass("G"), biu));
+        MethodRef bar = MethodRef.get(getClass("C"), "bar",
+                List.of(), VOID, false);
+        assertNull(hierarchy.dispatch(getClass("F"), bar));
+    }
+
+    /**
+     * Test that bulk dispatch agrees with dispatch of each receiver.
+     */
+    @Test
+    void testDispatchAll() {
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        List<JClass> classes = hierarchy.applicationClasses().toList();
+        List<Type> receivers = classes.stream()
+                .flatMap(c -> Stream.of(c.getType(), c.getType()))
+                .map(Type.class::cast)
+                .toList();
+        for (JClass jclass : classes) {
+            for (JMethod method : jclass.getDeclaredMethods()) {
+                MethodRef methodRef = method.getRef();
+                List<JMethod> targets = new ArrayList<>();
+                hierarchy.dispatchAll(methodRef, receivers, type -> type,
+                        (type, target) -> targets.add(target));
+                assertEquals(receivers.stream()
+                        .map(type -> hierarchy.dispatch(type, methodRef))
+                        .toList(), targets);
+            }
+        }
+    }
+
+    /**
+     * Test dispatch() on a receiver class with specified method reference.
+     * The declaring class of the dispatched method should be the same
+     * as the given expected class.
+     */
+    static void testDispatch(
+            String recvClass, String refClass, String refName, Type returnType,
+            String declaringClass, Type... parameterTypes) {
+        MethodRef methodRef = MethodRef.get(getClass(refClass), refName,
+                Arrays.asList(parameterTypes), returnType, false);
+        JMethod method = World.get().getClassHierarchy()
+                .dispatch(getClass(recvClass), methodRef);
+        assertEquals(getClass(declaringClass), method.getDeclaringClass());
+    }
+
+    static void testDispatch(
+            String recvClass, String refClass, String refName,
+            String declaringClass, Type... parameterTypes) {
+        testDispatch(recvClass, refClass, refName, VOID,
+                declaringClass, parameterTypes);
+    }
+
     // ---------- Test subclasses getAllSubclasses()  ----------
 
     /**
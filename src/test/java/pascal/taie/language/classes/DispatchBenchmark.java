@@ -0,0 +1,203 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Compares the per-dispatch latency of {@link ClassHierarchy#dispatch}
+ * and {@link ClassHierarchy#dispatchAll}, which use {@link DispatchTables},
+ * with the previous dispatch that memoizes the methods looked up along
+ * the hierarchy in a {@link TwoKeyMap} from (class, subsignature).
+ * The benchmark also checks that all of them dispatch to the same methods.
+ * <p>
+ * Usage: {@code DispatchBenchmark [dispatches] [rounds]}. The world is
+ * built with the classes of the Java library, and each dispatch is made
+ * on a random class for a method declared in a random supertype of it.
+ * For bulk dispatch, the receivers are grouped into batches of 16 with
+ * the same method reference, like the objects of a points-to set delta.
+ */
+public class DispatchBenchmark {
+
+    private static final int BATCH = 16;
+
+    public static void main(String[] args) {
+        int dispatches = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Main.buildWorld("-pp", "-cp", "src/test/resources/world",
+                "--input-classes", "Hierarchy");
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        List<JClass> classes = hierarchy.allClasses()
+                .filter(c -> !c.isInterface())
+                .toList();
+        Random random = new Random(0);
+        MethodRef[] refs = new MethodRef[dispatches];
+        JClass[] receivers = new JClass[dispatches];
+        for (int i = 0; i < dispatches; ) {
+            // receivers of a batch are subclasses of the declaring class
+            // of the method reference
+            JClass sub = classes.get(random.nextInt(classes.size()));
+            List<JClass> supertypes = getSupertypes(sub);
+            JClass sup = supertypes.get(random.nextInt(supertypes.size()));
+            List<JMethod> methods = sup.getDeclaredMethods().stream()
+                    .filter(m -> !m.isStatic() && !m.isPrivate()
+                            && !m.isConstructor())
+                    .toList();
+            if (methods.isEmpty()) {
+                continue;
+            }
+            MethodRef ref = methods.get(random.nextInt(methods.size())).getRef();
+            List<JClass> subclasses = new ArrayList<>(
+                    hierarchy.getAllSubclassesOf(sup));
+            for (int j = 0; j < BATCH && i < dispatches; ++j, ++i) {
+                refs[i] = ref;
+                receivers[i] = subclasses.get(random.nextInt(subclasses.size()));
+            }
+        }
+        TwoKeyMap<JClass, Subsignature, JMethod> memo =
+                Maps.newTwoKeyMap(Maps.newConcurrentMap(), Maps::newConcurrentMap);
+        JMethod[] expected = new JMethod[dispatches];
+        for (int i = 0; i < dispatches; ++i) {
+            expected[i] = lookupMethod(receivers[i], refs[i].getSubsignature());
+            if (expected[i] != null) {
+                memo.put(receivers[i], refs[i].getSubsignature(), expected[i]);
+            }
+            if (expected[i] != hierarchy.dispatch(receivers[i], refs[i])) {
+                throw new AssertionError("Different targets of dispatching "
+                        + refs[i] + " on " + receivers[i]);
+            }
+        }
+        System.out.printf("%d classes, %d dispatches%n",
+                classes.size(), dispatches);
+        run("TwoKeyMap", dispatches, rounds, () -> {
+            long count = 0;
+            for (int i = 0; i < dispatches; ++i) {
+                if (hierarchy.isSubclass(refs[i].getDeclaringClass(), receivers[i])
+                        && memo.get(receivers[i], refs[i].getSubsignature()) != null) {
+                    ++count;
+                }
+            }
+            return count;
+        });
+        run("dispatch", dispatches, rounds, () -> {
+            long count = 0;
+            for (int i = 0; i < dispatches; ++i) {
+                if (hierarchy.dispatch(receivers[i], refs[i]) != null) {
+                    ++count;
+                }
+            }
+            return count;
+        });
+        List<List<Type>> batches = new ArrayList<>();
+        for (int i = 0; i < dispatches; i += BATCH) {
+            List<Type> batch = new ArrayList<>();
+            for (int j = i; j < Math.min(i + BATCH, dispatches); ++j) {
+                batch.add(receivers[j].getType());
+            }
+            batches.add(batch);
+        }
+        run("dispatchAll", dispatches, rounds, () -> {
+            long[] count = {0};
+            for (int b = 0; b < batches.size(); ++b) {
+                hierarchy.dispatchAll(refs[b * BATCH], batches.get(b),
+                        type -> type, (type, target) -> {
+                            if (target != null) {
+                                ++count[0];
+                            }
+                        });
+            }
+            return count[0];
+        });
+    }
+
+    private static List<JClass> getSupertypes(JClass jclass) {
+        List<JClass> supertypes = new ArrayList<>();
+        for (JClass c = jclass; c != null; c = c.getSuperClass()) {
+            supertypes.add(c);
+            supertypes.addAll(c.getInterfaces());
+        }
+        return supertypes;
+    }
+
+    /**
+     * The previous lookup of the method dispatched on a class,
+     * following JVM Spec. (11 Ed.), 5.4.3.3.
+     */
+    private static JMethod lookupMethod(JClass jclass, Subsignature subsignature) {
+        for (JClass c = jclass; c != null; c = c.getSuperClass()) {
+            JMethod method = c.getDeclaredMethod(subsignature);
+            if (method != null && !method.isAbstract()) {
+                return method;
+            }
+        }
+        for (JClass c = jclass; c != null; c = c.getSuperClass()) {
+            for (JClass iface : c.getInterfaces()) {
+                JMethod method = lookupMethodFromSuperinterfaces(iface, subsignature);
+                if (method != null) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static JMethod lookupMethodFromSuperinterfaces(
+            JClass jclass, Subsignature subsignature) {
+        JMethod method = jclass.getDeclaredMethod(subsignature);
+        if (method != null && !method.isAbstract()) {
+            return method;
+        }
+        for (JClass iface : jclass.getInterfaces()) {
+            method = lookupMethodFromSuperinterfaces(iface, subsignature);
+            if (method != null) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static void run(String name, int dispatches, int rounds,
+                            LongSupplier benchmark) {
+        long checksum = 0;
+        for (int i = 0; i < rounds; ++i) {
+            checksum += benchmark.getAsLong();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; ++i) {
+            checksum += benchmark.getAsLong();
+        }
+        double nanos = (double) (System.nanoTime() - start) / rounds / dispatches;
+        System.out.printf("%-12s %8.2f ns/dispatch (checksum %d)%n",
+                name, nanos, checksum);
+    }
+}
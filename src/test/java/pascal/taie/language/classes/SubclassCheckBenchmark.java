@@ -0,0 +1,110 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import pascal.taie.Main;
+import pascal.taie.World;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Compares the per-check latency of {@link ClassHierarchy#isSubclass}
+ * for interfaces, which uses {@link InterfaceBitMatrix}, with the
+ * previous check that looks up the cached subclasses of the interface
+ * ({@link ClassHierarchy#getAllSubclassesOf}).
+ * <p>
+ * Usage: {@code SubclassCheckBenchmark [checks] [rounds]}. The world is
+ * built with the classes of the Java library, and the checks are made
+ * on random (interface, class) pairs of the loaded classes.
+ */
+public class SubclassCheckBenchmark {
+
+    public static void main(String[] args) {
+        int checks = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Main.buildWorld("-pp", "-cp", "src/test/resources/world",
+                "--input-classes", "Hierarchy");
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        List<JClass> classes = hierarchy.allClasses().toList();
+        List<JClass> interfaces = classes.stream()
+                .filter(JClass::isInterface)
+                .toList();
+        System.out.printf("%d classes, %d interfaces%n",
+                classes.size(), interfaces.size());
+        Random random = new Random(0);
+        JClass[] sups = new JClass[checks];
+        JClass[] subs = new JClass[checks];
+        for (int i = 0; i < checks; ++i) {
+            sups[i] = interfaces.get(random.nextInt(interfaces.size()));
+            subs[i] = classes.get(random.nextInt(classes.size()));
+        }
+        long start = System.nanoTime();
+        InterfaceBitMatrix matrix = new InterfaceBitMatrix(classes);
+        System.out.printf("build bit matrix %.2f ms%n",
+                (System.nanoTime() - start) / 1e6);
+        run("getAllSubclassesOf", checks, rounds, () -> {
+            long count = 0;
+            for (int i = 0; i < checks; ++i) {
+                if (hierarchy.getAllSubclassesOf(sups[i]).contains(subs[i])) {
+                    ++count;
+                }
+            }
+            return count;
+        });
+        run("bit matrix", checks, rounds, () -> {
+            long count = 0;
+            for (int i = 0; i < checks; ++i) {
+                if (matrix.isSubclass(sups[i], subs[i])) {
+                    ++count;
+                }
+            }
+            return count;
+        });
+        run("isSubclass", checks, rounds, () -> {
+            long count = 0;
+            for (int i = 0; i < checks; ++i) {
+                if (hierarchy.isSubclass(sups[i], subs[i])) {
+                    ++count;
+                }
+            }
+            return count;
+        });
+    }
+
+    private static void run(String name, int checks, int rounds,
+                            LongSupplier benchmark) {
+        long checksum = 0;
+        for (int i = 0; i < rounds; ++i) {
+            checksum += benchmark.getAsLong();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; ++i) {
+            checksum += benchmark.getAsLong();
+        }
+        double nanos = (double) (System.nanoTime() - start) / rounds / checks;
+        System.out.printf("%-18s %8.2f ns/check (checksum %d)%n",
+                name, nanos, checksum);
+    }
+}
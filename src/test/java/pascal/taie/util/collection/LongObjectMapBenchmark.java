@@ -0,0 +1,106 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Compares {@link LongObjectMap} with the maps it replaces, i.e., nested
+ * hash maps and a hash map with boxed {@code long} keys, on the lookups
+ * of (element index, context index) pairs as done by the index-based
+ * context-sensitive element manager.
+ * <p>
+ * Usage: {@code LongObjectMapBenchmark [pairs] [rounds]}. Each benchmark
+ * is run for the given rounds after the same number of warm-up rounds,
+ * and the average time of the measured rounds is printed.
+ */
+public class LongObjectMapBenchmark {
+
+    public static void main(String[] args) {
+        int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        // elements have 1 to 8 contexts, like the variables in 2-obj analysis
+        Random random = new Random(0);
+        int[] elems = new int[pairs];
+        int[] ctxs = new int[pairs];
+        for (int i = 0, elem = 0; i < pairs; ++elem) {
+            int nCtxs = 1 + random.nextInt(8);
+            for (int j = 0; j < nCtxs && i < pairs; ++j, ++i) {
+                elems[i] = elem;
+                ctxs[i] = random.nextInt(pairs / 4 + 1);
+            }
+        }
+        run("LongObjectMap", rounds, () -> {
+            LongObjectMap<Object> map = new LongObjectMap<>();
+            for (int i = 0; i < pairs; ++i) {
+                map.computeIfAbsent(LongObjectMap.key(elems[i], ctxs[i]), k -> k);
+            }
+            long sum = 0;
+            for (int i = 0; i < pairs; ++i) {
+                sum += map.get(LongObjectMap.key(elems[i], ctxs[i])).hashCode();
+            }
+            return sum;
+        });
+        run("HashMap<Long, V>", rounds, () -> {
+            Map<Long, Object> map = new HashMap<>();
+            for (int i = 0; i < pairs; ++i) {
+                map.computeIfAbsent(LongObjectMap.key(elems[i], ctxs[i]), k -> k);
+            }
+            long sum = 0;
+            for (int i = 0; i < pairs; ++i) {
+                sum += map.get(LongObjectMap.key(elems[i], ctxs[i])).hashCode();
+            }
+            return sum;
+        });
+        run("nested HashMaps", rounds, () -> {
+            Map<Integer, Map<Integer, Object>> map = new HashMap<>();
+            for (int i = 0; i < pairs; ++i) {
+                long key = LongObjectMap.key(elems[i], ctxs[i]);
+                map.computeIfAbsent(elems[i], e -> new HashMap<>())
+                        .computeIfAbsent(ctxs[i], c -> key);
+            }
+            long sum = 0;
+            for (int i = 0; i < pairs; ++i) {
+                sum += map.get(elems[i]).get(ctxs[i]).hashCode();
+            }
+            return sum;
+        });
+    }
+
+    private static void run(String name, int rounds, LongSupplier benchmark) {
+        long checksum = 0;
+        for (int i = 0; i < rounds; ++i) {
+            checksum += benchmark.getAsLong();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; ++i) {
+            checksum += benchmark.getAsLong();
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / rounds;
+        System.out.printf("%-16s %8.2f ms/round (checksum %d)%n",
+                name, millis, checksum);
+    }
+}
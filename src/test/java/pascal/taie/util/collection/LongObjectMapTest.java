@@ -0,0 +1,91 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.util.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LongObjectMapTest {
+
+    @Test
+    void testPutAndGet() {
+        LongObjectMap<String> m = new LongObjectMap<>();
+        assertNull(m.put(1, "one"));
+        assertNull(m.put(-1, "minus one"));
+        assertNull(m.put(Long.MAX_VALUE, "max"));
+        assertEquals("one", m.put(1, "ONE"));
+        assertEquals("ONE", m.get(1));
+        assertEquals("minus one", m.get(-1));
+        assertEquals("max", m.get(Long.MAX_VALUE));
+        assertNull(m.get(2));
+        assertTrue(m.containsKey(-1));
+        assertFalse(m.containsKey(0));
+        assertEquals(3, m.size());
+        assertThrows(NullPointerException.class, () -> m.put(3, null));
+    }
+
+    @Test
+    void testKey() {
+        LongObjectMap<String> m = new LongObjectMap<>();
+        m.put(LongObjectMap.key(1, 2), "1-2");
+        m.put(LongObjectMap.key(2, 1), "2-1");
+        m.put(LongObjectMap.key(1, -1), "1-(-1)");
+        assertEquals("1-2", m.get(LongObjectMap.key(1, 2)));
+        assertEquals("2-1", m.get(LongObjectMap.key(2, 1)));
+        assertEquals("1-(-1)", m.get(LongObjectMap.key(1, -1)));
+        assertNull(m.get(LongObjectMap.key(2, -1)));
+    }
+
+    @Test
+    void testComputeIfAbsent() {
+        LongObjectMap<String> m = new LongObjectMap<>();
+        assertEquals("5", m.computeIfAbsent(5, Long::toString));
+        assertEquals("5", m.computeIfAbsent(5, k -> "five"));
+        assertEquals(1, m.size());
+    }
+
+    @Test
+    void testResize() {
+        LongObjectMap<Integer> m = new LongObjectMap<>(2);
+        Map<Long, Integer> expected = Maps.newMap();
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; ++i) {
+            long key = LongObjectMap.key(random.nextInt(200), random.nextInt(200));
+            m.put(key, i);
+            expected.put(key, i);
+        }
+        assertEquals(expected.size(), m.size());
+        expected.forEach((k, v) -> assertEquals(v, m.get(k)));
+        assertEquals(expected.size(), m.values().size());
+        assertEquals(Set.copyOf(expected.values()), Set.copyOf(m.values()));
+    }
+}
@@ -0,0 +1,58 @@
+public class TaintFlows {
+
+    public static void main(String[] args) {
+        String s = source();
+        String t = s;
+        sink(t); // flow from line 4
+        String u = id(s);
+        sink(u); // flow from line 4 through id()
+        String v = id("safe");
+        sink(v); // no flow, id() is summarized per entry fact
+        String w = source();
+        w = "clean";
+        sink(w); // no flow, w is overwritten
+        String x = first(s, "b");
+        sink(x); // flow from line 4
+        String y = first("a", s);
+        sink(y); // no flow, first() returns its first parameter
+        int n = secret();
+        int m = n * 2 + 1;
+        sink(m); // flow from line 18 through arithmetic
+        sink(relay()); // flow from line 34 in relay()
+        sink(recurse(s, 3)); // flow from line 4 through recursion
+    }
+
+    static String id(String p) {
+        return p;
+    }
+
+    static String first(String p, String q) {
+        return p;
+    }
+
+    static String relay() {
+        String r = source();
+        return r;
+    }
+
+    static String recurse(String p, int k) {
+        if (k == 0) {
+            return p;
+        }
+        return recurse(p, k - 1);
+    }
+
+    static String source() {
+        return "secret";
+    }
+
+    static int secret() {
+        return 42;
+    }
+
+    static void sink(String s) {
+    }
+
+    static void sink(int i) {
+    }
+}